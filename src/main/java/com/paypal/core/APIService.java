@@ -2,6 +2,8 @@ package com.paypal.core;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import com.paypal.core.credential.CertificateCredential;
@@ -35,42 +37,14 @@ public class APIService {
 	 */
 	private ConfigManager config = null;
 
-	/**
-	 * HttpConfiguration
-	 */
-	private HttpConfiguration httpConfiguration = null;
-
 	/**
 	 * APISerice
 	 * 
 	 * @deprecated
 	 */
 	public APIService() {
-		httpConfiguration = new HttpConfiguration();
 		config = ConfigManager.getInstance();
 		endPoint = config.getValue(Constants.ENDPOINT);
-		httpConfiguration.setGoogleAppEngine(Boolean.parseBoolean(config
-				.getValue(Constants.GOOGLE_APP_ENGINE)));
-		if (Boolean.parseBoolean(config.getValue(Constants.USE_HTTP_PROXY))) {
-			httpConfiguration.setProxyPort(Integer.parseInt(config
-					.getValue(Constants.HTTP_PROXY_PORT)));
-			httpConfiguration.setProxyHost(config
-					.getValue(Constants.HTTP_PROXY_HOST));
-			httpConfiguration.setProxyUserName(config
-					.getValue(Constants.HTTP_PROXY_USERNAME));
-			httpConfiguration.setProxyPassword(config
-					.getValue(Constants.HTTP_PROXY_PASSWORD));
-		}
-		httpConfiguration.setConnectionTimeout(Integer.parseInt(config
-				.getValue(Constants.HTTP_CONNECTION_TIMEOUT)));
-		httpConfiguration.setMaxRetry(Integer.parseInt(config
-				.getValue(Constants.HTTP_CONNECTION_RETRY)));
-		httpConfiguration.setReadTimeout(Integer.parseInt(config
-				.getValue(Constants.HTTP_CONNECTION_READ_TIMEOUT)));
-		httpConfiguration.setMaxHttpConnection(Integer.parseInt(config
-				.getValue(Constants.HTTP_CONNECTION_MAX_CONNECTION)));
-		httpConfiguration.setIpAddress(config
-				.getValue(Constants.DEVICE_IP_ADDRESS));
 	}
 
 	/**
@@ -85,37 +59,7 @@ public class APIService {
 					"ConfigurationMap cannot be null");
 		}
 		this.configurationMap = configurationMap;
-		httpConfiguration = new HttpConfiguration();
 		endPoint = (String) this.configurationMap.get(Constants.ENDPOINT);
-		httpConfiguration.setGoogleAppEngine(Boolean
-				.parseBoolean((String) this.configurationMap
-						.get(Constants.GOOGLE_APP_ENGINE)));
-		if (Boolean.parseBoolean((String) this.configurationMap
-				.get(Constants.USE_HTTP_PROXY))) {
-			httpConfiguration.setProxyPort(Integer
-					.parseInt((String) this.configurationMap
-							.get(Constants.HTTP_PROXY_PORT)));
-			httpConfiguration.setProxyHost((String) this.configurationMap
-					.get(Constants.HTTP_PROXY_HOST));
-			httpConfiguration.setProxyUserName((String) this.configurationMap
-					.get(Constants.HTTP_PROXY_USERNAME));
-			httpConfiguration.setProxyPassword((String) this.configurationMap
-					.get(Constants.HTTP_PROXY_PASSWORD));
-		}
-		httpConfiguration.setConnectionTimeout(Integer
-				.parseInt((String) this.configurationMap
-						.get(Constants.HTTP_CONNECTION_TIMEOUT)));
-		httpConfiguration.setMaxRetry(Integer
-				.parseInt((String) this.configurationMap
-						.get(Constants.HTTP_CONNECTION_RETRY)));
-		httpConfiguration.setReadTimeout(Integer
-				.parseInt((String) this.configurationMap
-						.get(Constants.HTTP_CONNECTION_READ_TIMEOUT)));
-		httpConfiguration.setMaxHttpConnection(Integer
-				.parseInt((String) this.configurationMap
-						.get(Constants.HTTP_CONNECTION_MAX_CONNECTION)));
-		httpConfiguration.setIpAddress((String) this.configurationMap
-				.get(Constants.DEVICE_IP_ADDRESS));
 	}
 
 	/**
@@ -148,37 +92,88 @@ public class APIService {
 		String response = null;
 		apiCallPreHandler.validate();
 		Map<String, String> headers = null;
-		ConnectionManager connectionMgr = ConnectionManager.getInstance();
-		HttpConnection connection = connectionMgr
-				.getConnection(httpConfiguration);
 		String url = apiCallPreHandler.getEndPoint();
 		if (url == null || url.trim().length() <= 0) {
 			throw new HttpErrorException(
 					"Unable to retrieve a valid end-point from configuration");
 		}
+
+		// Each call gets its own HttpConfiguration, calls made concurrently
+		// through makeRequestUsingAsync(..) must not share the endpoint.
+		// Settings are parsed once per distinct configuration
+		HttpConfiguration httpConfiguration = new HttpConfiguration();
+		SDKConfig.getInstance(
+				configurationMap != null ? configurationMap : config
+						.getConfigurationMap()).applyTo(httpConfiguration);
 		httpConfiguration.setEndPointUrl(url);
-		headers = apiCallPreHandler.getHeaderMap();
-		String payLoad = apiCallPreHandler.getPayLoad();
-		LoggingManager.info(APIService.class, payLoadToLog(payLoad));
-		if (apiCallPreHandler.getCredential() instanceof CertificateCredential) {
-			CertificateCredential credential = (CertificateCredential) apiCallPreHandler
-					.getCredential();
-			connection.setupClientSSL(credential.getCertificatePath(),
-					credential.getCertificateKey());
-		}
-		connection.createAndconfigureHttpConnection(httpConfiguration);
 
-		// null values are not permitted for headers. But empty values are
-		// accepted
-		if (httpConfiguration.getIpAddress() != null) {
-			headers.put(Constants.PAYPAL_DEVICE_IPADDRESS_HEADER,
-					httpConfiguration.getIpAddress());
+		// The request timeout spans the wait for a connection and all attempts
+		Deadline previous = Deadline.enter(httpConfiguration
+				.getRequestTimeout());
+		try {
+			// Fail fast before building the payload if the endpoint is
+			// unhealthy
+			ConnectionManager connectionMgr = ConnectionManager.getInstance();
+			connectionMgr.checkCircuitBreaker(httpConfiguration);
+			headers = apiCallPreHandler.getHeaderMap();
+			String payLoad = apiCallPreHandler.getPayLoad();
+			LoggingManager.info(APIService.class, payLoadToLog(payLoad));
+			HttpConnection connection = connectionMgr
+					.leaseConnection(httpConfiguration);
+			try {
+				if (apiCallPreHandler.getCredential() instanceof CertificateCredential) {
+					CertificateCredential credential = (CertificateCredential) apiCallPreHandler
+							.getCredential();
+					connection.setupClientSSL(credential.getCertificatePath(),
+							credential.getCertificateKey());
+				}
+				connection.createAndconfigureHttpConnection(httpConfiguration);
+
+				// null values are not permitted for headers. But empty values
+				// are accepted
+				if (httpConfiguration.getIpAddress() != null) {
+					headers.put(Constants.PAYPAL_DEVICE_IPADDRESS_HEADER,
+							httpConfiguration.getIpAddress());
+				}
+				response = connection.execute(url, payLoad, headers);
+			} finally {
+				connectionMgr.releaseConnection(connection);
+			}
+		} finally {
+			Deadline.setCurrent(previous);
 		}
-		response = connection.execute(url, payLoad, headers);
 		LoggingManager.info(APIService.class, response);
 		return response;
 	}
 	
+	/**
+	 * Makes a request to API service on a worker thread of the
+	 * {@link java.util.concurrent.ExecutorService} configured in
+	 * {@link ConnectionManager}, the calling thread is not blocked. Failures
+	 * are reported through the returned {@link Future} as an
+	 * {@link java.util.concurrent.ExecutionException} wrapping the exception
+	 * thrown by makeRequestUsing(..)
+	 * 
+	 * @param apiCallPreHandler
+	 *            API Call specific handler
+	 * @return {@link Future} of the response from API as string
+	 */
+	public Future<String> makeRequestUsingAsync(
+			final APICallPreHandler apiCallPreHandler) {
+		final Deadline deadline = Deadline.getCurrent();
+		return ConnectionManager.getInstance().getExecutorService()
+				.submit(new Callable<String>() {
+					public String call() throws Exception {
+						Deadline.setCurrent(deadline);
+						try {
+							return makeRequestUsing(apiCallPreHandler);
+						} finally {
+							Deadline.setCurrent(null);
+						}
+					}
+				});
+	}
+
 	private String payLoadToLog(String payload) {
 		Pattern p= Pattern.compile("(<(ebl:(Username|Password|Subject|Signature|CreditCardNumber|CVV2))>)[\\W\\w]+(</\\2>)");
 		String passSub= p.matcher(payload).replaceAll("$1****************$4");
@@ -11,6 +11,8 @@ public class BaseAPIContext {
 	private Map<String, String> configurationMap;
 	
 	private XMLMessageSerializer SOAPHeader;
+
+	private long requestTimeout;
 	
 	public BaseAPIContext() {
 		
@@ -57,5 +59,24 @@ public class BaseAPIContext {
 	public void setSOAPHeader(XMLMessageSerializer soapHeader) {
 		SOAPHeader = soapHeader;
 	}
+
+	/**
+	 * @return the requestTimeout
+	 */
+	public long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds a call made with this context may take,
+	 * including all retries and the delays between them. Takes precedence
+	 * over the http.RequestTimeout configuration if shorter, zero means no
+	 * per call limit
+	 * 
+	 * @param requestTimeout the requestTimeout to set
+	 */
+	public void setRequestTimeout(long requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
 	
 }
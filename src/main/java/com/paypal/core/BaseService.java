@@ -25,7 +25,13 @@ public abstract class BaseService {
 	/*
 	 * Map used for to override ConfigManager configurations
 	 */
-	protected Map<String, String> configurationMap = null;
+	protected volatile Map<String, String> configurationMap = null;
+
+	/**
+	 * Whether the configuration is the one of {@link ConfigManager}, resolved
+	 * again for each call so that a reloaded configuration is picked up
+	 */
+	private volatile boolean defaultConfiguration = false;
 
 	/**
 	 * Access Token used in third party authorization
@@ -38,14 +44,19 @@ public abstract class BaseService {
 	private String tokenSecret = null;
 
 	/**
-	 * Last request processed
+	 * Last request set explicitly, overrides the recorded exchange
 	 */
 	private String lastRequest = null;
 
 	/**
-	 * Last response received
+	 * Last response set explicitly, overrides the recorded exchange
 	 */
 	private String lastResponse = null;
+
+	/**
+	 * {@link DiagnosticExchange} recorded for the last call, null if none
+	 */
+	private volatile DiagnosticExchange lastExchange = null;
 	
 	/**
 	 * Default Constructor
@@ -65,7 +76,7 @@ public abstract class BaseService {
 	public BaseService(InputStream inputStream) throws IOException {
 		Properties properties = new Properties();
 		properties.load(inputStream);
-		this.configurationMap = SDKUtil.constructMap(properties);
+		this.configurationMap = ConfigurationView.of(properties);
 	}
 
 	/**
@@ -76,7 +87,7 @@ public abstract class BaseService {
 	 *            Configuration {@link Properties}
 	 */
 	public BaseService(Properties properties) {
-		this.configurationMap = SDKUtil.constructMap(properties);
+		this.configurationMap = ConfigurationView.of(properties);
 	}
 
 	/**
@@ -87,7 +98,7 @@ public abstract class BaseService {
 	 *            Configuration {@link Map}
 	 */
 	public BaseService(Map<String, String> configurationMap) {
-		this.configurationMap = SDKUtil.combineDefaultMap(configurationMap);
+		this.configurationMap = ConfigurationView.of(configurationMap);
 	}
 
 	/**
@@ -131,10 +142,18 @@ public abstract class BaseService {
 	}
 
 	/**
-	 * @return the lastRequest
+	 * Returns the last request processed, as recorded by
+	 * {@link DiagnosticCapture} unless set explicitly: masked and truncated to
+	 * 'diagnostic.MaxBodyLength'
+	 * 
+	 * @return the lastRequest, null if none
 	 */
 	public String getLastRequest() {
-		return lastRequest;
+		if (lastRequest != null) {
+			return lastRequest;
+		}
+		DiagnosticExchange exchange = lastExchange;
+		return exchange != null ? exchange.getRequest() : null;
 	}
 
 	/**
@@ -146,10 +165,18 @@ public abstract class BaseService {
 	}
 
 	/**
-	 * @return the lastResponse
+	 * Returns the last response received, as recorded by
+	 * {@link DiagnosticCapture} unless set explicitly: masked and truncated
+	 * to 'diagnostic.MaxBodyLength'
+	 * 
+	 * @return the lastResponse, null if none
 	 */
 	public String getLastResponse() {
-		return lastResponse;
+		if (lastResponse != null) {
+			return lastResponse;
+		}
+		DiagnosticExchange exchange = lastExchange;
+		return exchange != null ? exchange.getResponse() : null;
 	}
 
 	/**
@@ -161,11 +188,12 @@ public abstract class BaseService {
 	}
 	
 	/**
-	 * Initialize from sdk_config.properties
+	 * Initialize from sdk_config.properties. Each call made afterwards uses
+	 * the configuration current at the time of the call
 	 */
 	protected void initializeToDefault() {
-		configurationMap = SDKUtil.combineDefaultMap(ConfigManager
-				.getInstance().getConfigurationMap());
+		configurationMap = ConfigManager.getInstance().getConfigurationView();
+		defaultConfiguration = true;
 	}
 
 	/**
@@ -256,15 +284,70 @@ public abstract class BaseService {
 			ClientActionRequiredException, InvalidCredentialException,
 			MissingCredentialException, OAuthException,
 			SSLConfigurationException, IOException, InterruptedException {
-		if (this.configurationMap == null || this.configurationMap.size() <= 0) {
+		if (defaultConfiguration) {
+			configurationMap = ConfigManager.getInstance()
+					.getConfigurationView();
+		}
+
+		// The same snapshot applies to the whole call
+		Map<String, String> configuration = this.configurationMap;
+		if (configuration == null || configuration.size() <= 0) {
 			throw new ClientActionRequiredException(
 					"Configuration not loaded..");
 		}
-		APIService apiService = new APIService(configurationMap);
-		lastRequest = apiCallPrehandler.getPayLoad();
-		String response = apiService.makeRequestUsing(apiCallPrehandler);
-		lastResponse = response;
+		APIService apiService = new APIService(configuration);
+		DiagnosticCapture diagnosticCapture = DiagnosticCapture.getInstance();
+		boolean captured = diagnosticCapture.begin(configuration);
+		long startTime = System.currentTimeMillis();
+		lastRequest = null;
+		lastResponse = null;
+		String payLoad = apiCallPrehandler.getPayLoad();
+		String response = null;
+		Exception error = null;
+		try {
+			response = apiService.makeRequestUsing(apiCallPrehandler);
+		} catch (Exception e) {
+			error = e;
+		}
+		DiagnosticExchange exchange = diagnosticCapture.record(
+				configuration, captured, null, "POST",
+				apiCallPrehandler.getEndPoint(), startTime, payLoad, response,
+				error);
+		lastExchange = exchange;
+		if (error != null) {
+			rethrow(error);
+		}
 		return response;
 	}
 
+	/*
+	 * Rethrows an exception caught in call(..) with its declared type
+	 */
+	private static void rethrow(Exception e)
+			throws InvalidResponseDataException, HttpErrorException,
+			ClientActionRequiredException, InvalidCredentialException,
+			MissingCredentialException, OAuthException,
+			SSLConfigurationException, IOException, InterruptedException {
+		if (e instanceof InvalidResponseDataException) {
+			throw (InvalidResponseDataException) e;
+		} else if (e instanceof HttpErrorException) {
+			throw (HttpErrorException) e;
+		} else if (e instanceof ClientActionRequiredException) {
+			throw (ClientActionRequiredException) e;
+		} else if (e instanceof InvalidCredentialException) {
+			throw (InvalidCredentialException) e;
+		} else if (e instanceof MissingCredentialException) {
+			throw (MissingCredentialException) e;
+		} else if (e instanceof OAuthException) {
+			throw (OAuthException) e;
+		} else if (e instanceof SSLConfigurationException) {
+			throw (SSLConfigurationException) e;
+		} else if (e instanceof IOException) {
+			throw (IOException) e;
+		} else if (e instanceof InterruptedException) {
+			throw (InterruptedException) e;
+		}
+		throw (RuntimeException) e;
+	}
+
 }
@@ -0,0 +1,89 @@
+package com.paypal.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <code>BufferPool</code> keeps a bounded number of fixed-size byte and char
+ * buffers for reuse while reading and writing HTTP bodies, so that each call
+ * does not allocate its own transfer buffers. Buffers must be released once
+ * the caller is done with them and must not be used after release.
+ * 
+ */
+public final class BufferPool {
+
+	private BufferPool() {
+	}
+
+	/**
+	 * Size of the pooled buffers
+	 */
+	public static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Maximum number of idle buffers kept per type
+	 */
+	private static final int MAX_POOLED = 64;
+
+	private static final Queue<byte[]> BYTE_BUFFERS = new ConcurrentLinkedQueue<byte[]>();
+
+	private static final Queue<char[]> CHAR_BUFFERS = new ConcurrentLinkedQueue<char[]>();
+
+	private static final AtomicInteger BYTE_BUFFER_COUNT = new AtomicInteger();
+
+	private static final AtomicInteger CHAR_BUFFER_COUNT = new AtomicInteger();
+
+	/**
+	 * @return a byte buffer of {@link #BUFFER_SIZE} bytes
+	 */
+	public static byte[] acquireByteBuffer() {
+		byte[] buffer = BYTE_BUFFERS.poll();
+		if (buffer == null) {
+			return new byte[BUFFER_SIZE];
+		}
+		BYTE_BUFFER_COUNT.decrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * Returns a byte buffer obtained from acquireByteBuffer() to the pool
+	 * 
+	 * @param buffer
+	 */
+	public static void releaseByteBuffer(byte[] buffer) {
+		if (buffer != null && buffer.length == BUFFER_SIZE
+				&& BYTE_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED) {
+			BYTE_BUFFERS.offer(buffer);
+		} else if (buffer != null && buffer.length == BUFFER_SIZE) {
+			BYTE_BUFFER_COUNT.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return a char buffer of {@link #BUFFER_SIZE} chars
+	 */
+	public static char[] acquireCharBuffer() {
+		char[] buffer = CHAR_BUFFERS.poll();
+		if (buffer == null) {
+			return new char[BUFFER_SIZE];
+		}
+		CHAR_BUFFER_COUNT.decrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * Returns a char buffer obtained from acquireCharBuffer() to the pool
+	 * 
+	 * @param buffer
+	 */
+	public static void releaseCharBuffer(char[] buffer) {
+		if (buffer != null && buffer.length == BUFFER_SIZE
+				&& CHAR_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED) {
+			CHAR_BUFFERS.offer(buffer);
+		} else if (buffer != null && buffer.length == BUFFER_SIZE) {
+			CHAR_BUFFER_COUNT.decrementAndGet();
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package com.paypal.core;
+
+/**
+ * <code>CircuitBreaker</code> tracks the outcome of the calls made to an
+ * endpoint over a sliding window of the last calls. The breaker opens once
+ * the window holds enough calls and either the rate of failed calls (no
+ * response or a 5xx response) or the rate of slow calls reaches its
+ * threshold. While open, calls are rejected without being sent. After the
+ * open duration a limited number of trial calls are let through in the
+ * half-open state; the breaker closes again if they stay below the
+ * thresholds and opens otherwise.
+ *
+ */
+public final class CircuitBreaker {
+
+	/**
+	 * States of a {@link CircuitBreaker}
+	 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	/**
+	 * Number of calls in the sliding window
+	 */
+	static final int WINDOW_SIZE = 20;
+
+	/**
+	 * Minimum number of calls in the window before the rates are evaluated
+	 */
+	static final int MINIMUM_CALLS = 10;
+
+	/**
+	 * Number of trial calls permitted in the half-open state
+	 */
+	static final int HALF_OPEN_CALLS = 3;
+
+	/**
+	 * Endpoint guarded by this breaker
+	 */
+	private final String endpoint;
+
+	/**
+	 * Failure rate in percent at which the breaker opens, a value less than or
+	 * equal to zero disables the breaker
+	 */
+	private final float failureRateThreshold;
+
+	/**
+	 * Slow call rate in percent at which the breaker opens
+	 */
+	private final float slowCallRateThreshold;
+
+	/**
+	 * Duration in milliseconds from which a call is slow, a value less than or
+	 * equal to zero disables slow call detection
+	 */
+	private final long slowCallDuration;
+
+	/**
+	 * Time in milliseconds the breaker stays open
+	 */
+	private final long openDuration;
+
+	private final boolean[] failures = new boolean[WINDOW_SIZE];
+
+	private final boolean[] slowCalls = new boolean[WINDOW_SIZE];
+
+	private int next;
+
+	private int calls;
+
+	private int failureCount;
+
+	private int slowCallCount;
+
+	private State state = State.CLOSED;
+
+	private long openedTime;
+
+	private int halfOpenPermits;
+
+	CircuitBreaker(String endpoint, float failureRateThreshold,
+			float slowCallRateThreshold, long slowCallDuration,
+			long openDuration) {
+		this.endpoint = endpoint;
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.slowCallDuration = slowCallDuration;
+		this.openDuration = openDuration;
+	}
+
+	/**
+	 * @return endpoint guarded by this breaker
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * @return current {@link State}
+	 */
+	public synchronized State getState() {
+		updateState();
+		return state;
+	}
+
+	/**
+	 * Returns whether a call would currently be permitted, without reserving
+	 * a half-open trial call
+	 *
+	 * @return false if the breaker rejects calls
+	 */
+	synchronized boolean isCallPermitted() {
+		updateState();
+		return state == State.CLOSED
+				|| (state == State.HALF_OPEN && halfOpenPermits < HALF_OPEN_CALLS);
+	}
+
+	/**
+	 * Reserves a call, each permitted call must be followed by
+	 * onResult(..)
+	 *
+	 * @return false if the breaker rejects the call
+	 */
+	synchronized boolean tryAcquirePermission() {
+		if (!isCallPermitted()) {
+			return false;
+		}
+		if (state == State.HALF_OPEN) {
+			halfOpenPermits++;
+		}
+		return true;
+	}
+
+	/**
+	 * Records the outcome of a permitted call
+	 *
+	 * @param failed
+	 *            true if the call failed
+	 * @param duration
+	 *            Duration of the call in milliseconds
+	 */
+	synchronized void onResult(boolean failed, long duration) {
+		if (state == State.OPEN) {
+			return;
+		}
+		boolean slow = slowCallDuration > 0 && duration >= slowCallDuration;
+		if (calls == WINDOW_SIZE) {
+			failureCount -= failures[next] ? 1 : 0;
+			slowCallCount -= slowCalls[next] ? 1 : 0;
+		} else {
+			calls++;
+		}
+		failures[next] = failed;
+		slowCalls[next] = slow;
+		failureCount += failed ? 1 : 0;
+		slowCallCount += slow ? 1 : 0;
+		next = (next + 1) % WINDOW_SIZE;
+		if (state == State.HALF_OPEN) {
+			if (calls >= HALF_OPEN_CALLS) {
+				if (isThresholdExceeded()) {
+					open();
+				} else {
+					transition(State.CLOSED);
+				}
+			}
+		} else if (calls >= MINIMUM_CALLS && isThresholdExceeded()) {
+			open();
+		}
+	}
+
+	public synchronized String toString() {
+		return "CircuitBreaker [endpoint=" + endpoint + ", state=" + state
+				+ ", calls=" + calls + ", failures=" + failureCount
+				+ ", slowCalls=" + slowCallCount + "]";
+	}
+
+	private boolean isThresholdExceeded() {
+		if (failureRateThreshold <= 0) {
+			return false;
+		}
+		return failureCount * 100f / calls >= failureRateThreshold
+				|| (slowCallRateThreshold > 0 && slowCallCount * 100f / calls >= slowCallRateThreshold);
+	}
+
+	private void open() {
+		transition(State.OPEN);
+		openedTime = System.currentTimeMillis();
+		LoggingManager.severe(CircuitBreaker.class,
+				"Circuit breaker opened for " + endpoint);
+	}
+
+	private void updateState() {
+		if (state == State.OPEN
+				&& System.currentTimeMillis() - openedTime >= openDuration) {
+			transition(State.HALF_OPEN);
+		}
+	}
+
+	/*
+	 * Moves to a new state with an empty window
+	 */
+	private void transition(State newState) {
+		state = newState;
+		next = 0;
+		calls = 0;
+		failureCount = 0;
+		slowCallCount = 0;
+		halfOpenPermits = 0;
+		LoggingManager.debug(CircuitBreaker.class, "Circuit breaker for "
+				+ endpoint + " is " + newState);
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.paypal.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <code>CompressionStatistics</code> counts the compressed responses read by
+ * {@link HttpConnection} along with their size on the wire and after
+ * inflation. The counters are cumulative for the lifetime of the
+ * {@link ConnectionManager} and can be read concurrently.
+ *
+ */
+public final class CompressionStatistics {
+
+	private final AtomicLong compressedResponses = new AtomicLong();
+
+	private final AtomicLong compressedBytes = new AtomicLong();
+
+	private final AtomicLong decompressedBytes = new AtomicLong();
+
+	CompressionStatistics() {
+	}
+
+	/**
+	 * Records a fully or partially read compressed response
+	 *
+	 * @param compressed
+	 *            Bytes read from the connection
+	 * @param decompressed
+	 *            Bytes handed to the caller after inflation
+	 */
+	void record(long compressed, long decompressed) {
+		compressedResponses.incrementAndGet();
+		compressedBytes.addAndGet(compressed);
+		decompressedBytes.addAndGet(decompressed);
+	}
+
+	/**
+	 * @return number of compressed responses read
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.get();
+	}
+
+	/**
+	 * @return bytes of compressed responses read from the connection
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	/**
+	 * @return bytes of compressed responses after inflation
+	 */
+	public long getDecompressedBytes() {
+		return decompressedBytes.get();
+	}
+
+	public String toString() {
+		return "CompressionStatistics [compressedResponses="
+				+ getCompressedResponses() + ", compressedBytes="
+				+ getCompressedBytes() + ", decompressedBytes="
+				+ getDecompressedBytes() + "]";
+	}
+
+}
@@ -1,14 +1,21 @@
 package com.paypal.core;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import com.paypal.sdk.util.ResourceLoader;
 
@@ -20,7 +27,21 @@ import com.paypal.sdk.util.ResourceLoader;
  * 
  * http.ConnectionTimeOut(5000 ms), http.Retry(2), http.ReadTimeOut(30000 ms),
  * http.MaxConnections(100), http.IPAddress(127.0.0.1),
- * http.GoogleAppEngine(false)
+ * http.GoogleAppEngine(false), http.Compression(false),
+ * http.MaxRetryDelay(30000 ms), http.RetryBudgetRatio(0.1),
+ * http.CircuitBreakerFailureRate(50), http.CircuitBreakerSlowCallRate(80),
+ * http.CircuitBreakerSlowCallDuration(10000 ms),
+ * http.CircuitBreakerOpenDuration(30000 ms), http.RequestTimeout(0 ms, no
+ * limit), diagnostic.CaptureMode(errors), diagnostic.SampleRate(0.01),
+ * diagnostic.BufferSize(100), diagnostic.MaxBodyLength(16384),
+ * config.ReloadInterval(0 ms, disabled)
+ * 
+ * The configuration is held in an immutable snapshot that is replaced
+ * atomically by load(..) and reload(..). When 'config.ReloadInterval' is set
+ * in 'sdk_config.properties', or enableReload(..) is called, the file is
+ * polled for changes on a background thread; a changed file is parsed and
+ * validated off the request path and only published if valid. Registered
+ * {@link ConfigurationListener}s are notified of every published change.
  * 
  */
 public final class ConfigManager {
@@ -31,9 +52,9 @@ public final class ConfigManager {
 	private static ConfigManager conf;
 
 	/**
-	 * Underlying property implementation
+	 * Current configuration snapshot, replaced atomically
 	 */
-	private Properties properties;
+	private volatile Snapshot snapshot;
 
 	/**
 	 * Initialized notifier
@@ -41,9 +62,29 @@ public final class ConfigManager {
 	private boolean propertyLoaded = false;
 
 	/**
-	 * Map View of internal {@link Properties}
+	 * {@link ConfigurationListener}s notified of published changes
+	 */
+	private static final List<ConfigurationListener> LISTENERS = new CopyOnWriteArrayList<ConfigurationListener>();
+
+	/**
+	 * Executor polling the watched file, null if reload is disabled
+	 */
+	private ScheduledExecutorService reloadExecutor;
+
+	/**
+	 * Watched configuration file, null if reload is disabled
+	 */
+	private File reloadFile;
+
+	/**
+	 * Last modified time of the watched file when last checked
+	 */
+	private long reloadModified;
+
+	/**
+	 * Length of the watched file when last checked
 	 */
-	private Map<String, String> mapView = null;
+	private long reloadLength;
 
 	/**
 	 * Map View of internal Default {@link Properties}
@@ -64,6 +105,19 @@ public final class ConfigManager {
 		DEFAULT_PROPERTIES.put(Constants.HTTP_CONNECTION_MAX_CONNECTION, "100");
 		DEFAULT_PROPERTIES.put(Constants.DEVICE_IP_ADDRESS, "127.0.0.1");
 		DEFAULT_PROPERTIES.put(Constants.GOOGLE_APP_ENGINE, "false");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CONNECTION_COMPRESSION, "false");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CONNECTION_MAX_RETRY_DELAY, "30000");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CONNECTION_RETRY_BUDGET_RATIO, "0.1");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_REQUEST_TIMEOUT, "0");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CIRCUIT_BREAKER_FAILURE_RATE, "50");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_RATE, "80");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_DURATION, "10000");
+		DEFAULT_PROPERTIES.put(Constants.HTTP_CIRCUIT_BREAKER_OPEN_DURATION, "30000");
+		DEFAULT_PROPERTIES.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "errors");
+		DEFAULT_PROPERTIES.put(Constants.DIAGNOSTIC_SAMPLE_RATE, "0.01");
+		DEFAULT_PROPERTIES.put(Constants.DIAGNOSTIC_BUFFER_SIZE, "100");
+		DEFAULT_PROPERTIES.put(Constants.DIAGNOSTIC_MAX_BODY_LENGTH, "16384");
+		DEFAULT_PROPERTIES.put(Constants.CONFIG_RELOAD_INTERVAL, "0");
 		defaultMapView = new HashMap<String, String>();
 		for (Object object : DEFAULT_PROPERTIES.keySet()) {
 			defaultMapView.put(object.toString().trim(), DEFAULT_PROPERTIES
@@ -81,14 +135,37 @@ public final class ConfigManager {
 		 */
 		ResourceLoader resourceLoader = new ResourceLoader(
 				Constants.DEFAULT_CONFIGURATION_FILE);
+		File configurationFile;
 		try {
 			InputStream inputStream = resourceLoader.getInputStream();
-			properties = new Properties();
-			properties.load(inputStream);
+			try {
+				Properties properties = new Properties();
+				properties.load(inputStream);
+				snapshot = new Snapshot(properties);
+			} finally {
+				inputStream.close();
+			}
 			setPropertyLoaded(true);
+			configurationFile = resourceLoader.getFile();
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+
+		/*
+		 * Poll the file for changes if configured and the configuration was
+		 * found on the file system
+		 */
+		String interval = snapshot.map.get(Constants.CONFIG_RELOAD_INTERVAL);
+		if (interval != null && configurationFile != null) {
+			try {
+				if (Long.parseLong(interval) > 0) {
+					enableReload(configurationFile, Long.parseLong(interval));
+				}
+			} catch (NumberFormatException e) {
+				LoggingManager.warn(ConfigManager.class, "Invalid "
+						+ Constants.CONFIG_RELOAD_INTERVAL + " : " + interval);
+			}
+		}
 	}
 
 	/**
@@ -135,13 +212,11 @@ public final class ConfigManager {
 			Properties receivedProperties) {
 		Properties combinedProperties = new Properties(getDefaultProperties());
 		if ((receivedProperties != null) && (receivedProperties.size() > 0)) {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
-			try {
-				receivedProperties.store(bos, null);
-				combinedProperties.load(new ByteArrayInputStream(bos
-						.toByteArray()));
-			} catch (IOException e) {
-				// TODO return defaultProperties
+			Enumeration<?> keys = receivedProperties.propertyNames();
+			while (keys.hasMoreElements()) {
+				String key = keys.nextElement().toString();
+				combinedProperties.setProperty(key,
+						receivedProperties.getProperty(key));
 			}
 		}
 		return combinedProperties;
@@ -157,8 +232,9 @@ public final class ConfigManager {
 	 * @throws IOException
 	 */
 	public void load(InputStream is) throws IOException {
-		properties = new Properties();
+		Properties properties = new Properties();
 		properties.load(is);
+		publish(new Snapshot(properties));
 		if (!propertyLoaded) {
 			setPropertyLoaded(true);
 		}
@@ -178,32 +254,222 @@ public final class ConfigManager {
 			throw new IllegalArgumentException(
 					"Initialization properties cannot be null");
 		}
-		this.properties = properties;
+		publish(new Snapshot(properties));
 		if (!propertyLoaded) {
 			setPropertyLoaded(true);
 		}
 	}
 
 	/**
-	 * Constructs a {@link Map} object from the underlying {@link Properties}.
-	 * The {@link Properties} object is loaded for 'sdk_config.properties' file
-	 * in the classpath
+	 * Returns a read-only {@link Map} view of the underlying
+	 * {@link Properties}, with keys and values trimmed. The
+	 * {@link Properties} object is loaded for 'sdk_config.properties' file in
+	 * the classpath. The view is shared, copy it before making changes
 	 * 
-	 * @return {@link Map}
+	 * @return read-only {@link Map}
 	 */
 	public Map<String, String> getConfigurationMap() {
-		if (mapView == null) {
-			synchronized (DEFAULT_PROPERTIES) {
-				mapView = new HashMap<String, String>();
-				if (properties != null) {
-					for (Object object : properties.keySet()) {
-						mapView.put(object.toString().trim(), properties
-								.getProperty(object.toString()).trim());
+		return snapshot.map;
+	}
+
+	/**
+	 * Returns the current configuration overlaid on the default
+	 * configuration as a shared {@link ConfigurationView}
+	 * 
+	 * @return {@link ConfigurationView}
+	 */
+	public ConfigurationView getConfigurationView() {
+		return snapshot.view;
+	}
+
+	/**
+	 * Returns the parsed {@link SDKConfig} of the current configuration
+	 * snapshot combined with the defaults. Callers keep the returned instance
+	 * for the duration of a request so that a concurrent reload does not
+	 * change settings mid-call
+	 * 
+	 * @return {@link SDKConfig}
+	 * @throws NumberFormatException
+	 *             if a numeric setting is invalid
+	 */
+	public SDKConfig getSDKConfig() {
+		return snapshot.getSDKConfig();
+	}
+
+	/**
+	 * Registers a {@link ConfigurationListener} notified whenever a new
+	 * configuration is published
+	 * 
+	 * @param listener
+	 *            {@link ConfigurationListener}
+	 */
+	public static void addConfigurationListener(ConfigurationListener listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("Listener cannot be null");
+		}
+		LISTENERS.add(listener);
+	}
+
+	/**
+	 * Removes a registered {@link ConfigurationListener}
+	 * 
+	 * @param listener
+	 *            {@link ConfigurationListener}
+	 */
+	public static void removeConfigurationListener(
+			ConfigurationListener listener) {
+		LISTENERS.remove(listener);
+	}
+
+	/**
+	 * Polls the passed file for changes every interval milliseconds on a
+	 * daemon thread and reloads it when its modification time or length
+	 * changes. Replaces any file watched before
+	 * 
+	 * @param file
+	 *            Configuration {@link File}
+	 * @param interval
+	 *            Poll interval in milliseconds
+	 */
+	public synchronized void enableReload(File file, long interval) {
+		if (file == null) {
+			throw new IllegalArgumentException("File cannot be null");
+		}
+		if (interval <= 0) {
+			throw new IllegalArgumentException(
+					"Reload interval must be positive");
+		}
+		disableReload();
+		reloadFile = file;
+		reloadModified = file.lastModified();
+		reloadLength = file.length();
+		reloadExecutor = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable,
+								"paypal-sdk-config-reload");
+						thread.setDaemon(true);
+						return thread;
 					}
-				}
+				});
+		reloadExecutor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				checkForChanges();
+			}
+		}, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops polling the file passed to enableReload(..)
+	 */
+	public synchronized void disableReload() {
+		if (reloadExecutor != null) {
+			reloadExecutor.shutdownNow();
+			reloadExecutor = null;
+		}
+		reloadFile = null;
+	}
+
+	/**
+	 * Parses and validates the passed configuration file and publishes it if
+	 * it is valid. An invalid file is logged and the current configuration is
+	 * kept
+	 * 
+	 * @param file
+	 *            Configuration {@link File}
+	 * @return true if the configuration was published
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public boolean reload(File file) throws IOException {
+		Properties properties = new Properties();
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			properties.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		Snapshot next = new Snapshot(properties);
+		try {
+			next.getSDKConfig();
+		} catch (NumberFormatException e) {
+			LoggingManager.severe(ConfigManager.class,
+					"Rejected configuration " + file + " : " + e.getMessage());
+			return false;
+		}
+		publish(next);
+		LoggingManager.info(ConfigManager.class, "Reloaded configuration "
+				+ file);
+		return true;
+	}
+
+	/*
+	 * Reloads the watched file if it changed since the last check
+	 */
+	boolean checkForChanges() {
+		File file;
+		synchronized (this) {
+			file = reloadFile;
+			if (file == null) {
+				return false;
+			}
+			long modified = file.lastModified();
+			long length = file.length();
+			if (modified == reloadModified && length == reloadLength) {
+				return false;
+			}
+			reloadModified = modified;
+			reloadLength = length;
+		}
+		try {
+			return reload(file);
+		} catch (IOException e) {
+			LoggingManager.severe(ConfigManager.class,
+					"Unable to reload configuration " + file, e);
+			return false;
+		}
+	}
+
+	/*
+	 * Atomically replaces the current snapshot and notifies the listeners
+	 */
+	private void publish(Snapshot next) {
+		Snapshot previous;
+		synchronized (this) {
+			previous = snapshot;
+			snapshot = next;
+		}
+		if (LISTENERS.isEmpty()) {
+			return;
+		}
+		SDKConfig previousConfig = null;
+		SDKConfig currentConfig;
+		try {
+			if (previous != null) {
+				previousConfig = previous.getSDKConfig();
+			}
+		} catch (NumberFormatException e) {
+			// Previous configuration was never valid
+		}
+		try {
+			currentConfig = next.getSDKConfig();
+		} catch (NumberFormatException e) {
+			LoggingManager.warn(ConfigManager.class,
+					"Listeners not notified of invalid configuration : "
+							+ e.getMessage());
+			return;
+		}
+		if (previousConfig == currentConfig) {
+			return;
+		}
+		for (ConfigurationListener listener : LISTENERS) {
+			try {
+				listener.configurationChanged(previousConfig, currentConfig);
+			} catch (RuntimeException e) {
+				LoggingManager.severe(ConfigManager.class,
+						"Configuration listener failed", e);
 			}
 		}
-		return new HashMap<String, String>(mapView);
 	}
 
 	/**
@@ -216,7 +482,7 @@ public final class ConfigManager {
 	 * @return String value
 	 */
 	public String getValue(String key) {
-		return properties.getProperty(key);
+		return snapshot.properties.getProperty(key);
 	}
 
 	/**
@@ -231,7 +497,7 @@ public final class ConfigManager {
 	 * @return String value corresponding to the key or default value
 	 */
 	public String getValueWithDefault(String key, String defaultValue) {
-		return properties.getProperty(key, defaultValue);
+		return snapshot.properties.getProperty(key, defaultValue);
 	}
 
 	/**
@@ -245,6 +511,7 @@ public final class ConfigManager {
 	 */
 	public Map<String, String> getValuesByCategory(String category) {
 		String key = Constants.EMPTY_STRING;
+		Properties properties = snapshot.properties;
 		HashMap<String, String> map = new HashMap<String, String>();
 		for (Object obj : properties.keySet()) {
 			key = (String) obj;
@@ -265,6 +532,7 @@ public final class ConfigManager {
 
 	public Set<String> getNumOfAcct() {
 		String key = Constants.EMPTY_STRING;
+		Properties properties = snapshot.properties;
 		Set<String> set = new HashSet<String>();
 		for (Object obj : properties.keySet()) {
 			key = (String) obj;
@@ -290,4 +558,28 @@ public final class ConfigManager {
 		this.propertyLoaded = propertyLoaded;
 	}
 
+	/**
+	 * Immutable configuration snapshot: the loaded {@link Properties}, their
+	 * trimmed {@link ConfigurationView} and the same layer overlaid on the
+	 * defaults
+	 */
+	private static final class Snapshot {
+
+		private final Properties properties;
+
+		private final ConfigurationView map;
+
+		private final ConfigurationView view;
+
+		Snapshot(Properties properties) {
+			this.properties = properties;
+			this.map = ConfigurationView.wrap(properties);
+			this.view = ConfigurationView.of(map);
+		}
+
+		SDKConfig getSDKConfig() {
+			return SDKConfig.getInstance(view);
+		}
+	}
+
 }
@@ -0,0 +1,22 @@
+package com.paypal.core;
+
+/**
+ * <code>ConfigurationListener</code> is notified by {@link ConfigManager} when
+ * a reloaded configuration has been published. Listeners are called on the
+ * reload thread after the new configuration is visible to new requests;
+ * requests already in flight keep the configuration they started with.
+ *
+ */
+public interface ConfigurationListener {
+
+	/**
+	 * Called after a new configuration has been published
+	 *
+	 * @param previous
+	 *            {@link SDKConfig} of the replaced configuration
+	 * @param current
+	 *            {@link SDKConfig} of the published configuration
+	 */
+	void configurationChanged(SDKConfig previous, SDKConfig current);
+
+}
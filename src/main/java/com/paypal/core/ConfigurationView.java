@@ -0,0 +1,215 @@
+package com.paypal.core;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * <code>ConfigurationView</code> is an immutable, read-only configuration
+ * {@link Map} made of layers: a per-call or per-service layer overlays the
+ * sdk_config.properties layer, which overlays the default configuration. Each
+ * layer stores its keys and values trimmed, with the keys interned, and
+ * lookups fall through the layers without merging them, so overlaying a
+ * layer on the shared defaults or file configuration copies nothing but the
+ * layer itself. Views are safe to share across threads.
+ *
+ */
+public final class ConfigurationView extends AbstractMap<String, String> {
+
+	/**
+	 * Layer of the default configuration, created on first use
+	 */
+	private static volatile ConfigurationView defaults;
+
+	/**
+	 * Trimmed entries of this layer
+	 */
+	private final Map<String, String> layer;
+
+	/**
+	 * Layer overlaid by this one, null for a base layer
+	 */
+	private final ConfigurationView parent;
+
+	/**
+	 * Entries of all layers, merged when first iterated
+	 */
+	private volatile Map<String, String> merged;
+
+	/**
+	 * {@link SDKConfig} parsed from this view, see
+	 * {@link SDKConfig#getInstance(Map)}
+	 */
+	volatile SDKConfig sdkConfig;
+
+	/**
+	 * {@link CredentialRegistry} of this view, see
+	 * {@link CredentialRegistry#getInstance(Map)}
+	 */
+	volatile CredentialRegistry credentialRegistry;
+
+	private ConfigurationView(Map<String, String> layer,
+			ConfigurationView parent) {
+		this.layer = layer;
+		this.parent = parent;
+	}
+
+	/**
+	 * Returns the layer holding the default configuration, see
+	 * {@link ConfigManager}
+	 *
+	 * @return {@link ConfigurationView} of the defaults
+	 */
+	public static ConfigurationView getDefaults() {
+		if (defaults == null) {
+			defaults = new ConfigurationView(
+					trim(ConfigManager.getDefaultProperties()), null);
+		}
+		return defaults;
+	}
+
+	/**
+	 * Creates a base layer holding only the passed {@link Properties},
+	 * including their defaults, without the default configuration
+	 *
+	 * @param properties
+	 *            {@link Properties}
+	 * @return {@link ConfigurationView}
+	 */
+	public static ConfigurationView wrap(Properties properties) {
+		return new ConfigurationView(trim(properties), null);
+	}
+
+	/**
+	 * Overlays the passed {@link Properties} on the default configuration
+	 *
+	 * @param properties
+	 *            {@link Properties}, may be null
+	 * @return {@link ConfigurationView}
+	 */
+	public static ConfigurationView of(Properties properties) {
+		if (properties == null) {
+			return getDefaults();
+		}
+		return new ConfigurationView(trim(properties), getDefaults());
+	}
+
+	/**
+	 * Overlays the passed configuration {@link Map} on the default
+	 * configuration. A {@link ConfigurationView} already including the
+	 * defaults is returned as is
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map}, may be null
+	 * @return {@link ConfigurationView}
+	 */
+	public static ConfigurationView of(Map<String, String> configurationMap) {
+		return overlay(getDefaults(), configurationMap);
+	}
+
+	/**
+	 * Overlays the passed configuration {@link Map} on the passed parent. A
+	 * base {@link ConfigurationView} shares its layer with the result; any
+	 * other {@link Map} is copied into a new trimmed layer once
+	 *
+	 * @param parent
+	 *            {@link ConfigurationView} to overlay
+	 * @param configurationMap
+	 *            Configuration {@link Map}, may be null
+	 * @return {@link ConfigurationView}
+	 */
+	public static ConfigurationView overlay(ConfigurationView parent,
+			Map<String, String> configurationMap) {
+		if (configurationMap == null || configurationMap == parent) {
+			return parent;
+		}
+		if (configurationMap instanceof ConfigurationView) {
+			ConfigurationView view = (ConfigurationView) configurationMap;
+			if (view.overlays(parent)) {
+				return view;
+			}
+			if (view.parent == null) {
+				return new ConfigurationView(view.layer, parent);
+			}
+		}
+		if (configurationMap.isEmpty()) {
+			return parent;
+		}
+		Map<String, String> layer = new HashMap<String, String>(
+				(int) (configurationMap.size() / 0.75f) + 1);
+		for (Map.Entry<String, String> entry : configurationMap.entrySet()) {
+			if (entry.getKey() != null && entry.getValue() != null) {
+				layer.put(entry.getKey().trim().intern(), entry.getValue()
+						.trim());
+			}
+		}
+		return new ConfigurationView(Collections.unmodifiableMap(layer),
+				parent);
+	}
+
+	/*
+	 * Returns true if the passed view is this view or one of its parents
+	 */
+	private boolean overlays(ConfigurationView view) {
+		for (ConfigurationView current = this; current != null; current = current.parent) {
+			if (current == view) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Map<String, String> trim(Properties properties) {
+		Map<String, String> layer = new HashMap<String, String>();
+		Enumeration<?> keys = properties.propertyNames();
+		while (keys.hasMoreElements()) {
+			String key = keys.nextElement().toString();
+			layer.put(key.trim().intern(), properties.getProperty(key).trim());
+		}
+		return Collections.unmodifiableMap(layer);
+	}
+
+	public String get(Object key) {
+		for (ConfigurationView view = this; view != null; view = view.parent) {
+			String value = view.layer.get(key);
+			if (value != null) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	public int size() {
+		return parent == null ? layer.size() : getMerged().size();
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public Set<Map.Entry<String, String>> entrySet() {
+		return getMerged().entrySet();
+	}
+
+	private Map<String, String> getMerged() {
+		if (parent == null) {
+			return layer;
+		}
+		if (merged == null) {
+			Map<String, String> map = new HashMap<String, String>(
+					parent.getMerged());
+			map.putAll(layer);
+			merged = Collections.unmodifiableMap(map);
+		}
+		return merged;
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * <code>ConnectionLimiter</code> bounds the number of concurrent calls to a
+ * single route (scheme, host and port). Each lease hands out a new
+ * {@link HttpConnection}; sockets are not held here but reused by the JRE
+ * keep-alive cache, which is effective because connections share their
+ * {@link javax.net.ssl.SSLSocketFactory}, see {@link SSLUtil}. Idle sockets
+ * are closed by the JRE ('http.keepAlive' and 'http.maxConnections' system
+ * properties).
+ *
+ */
+final class ConnectionLimiter {
+
+	/**
+	 * Route served by this limiter
+	 */
+	private final String route;
+
+	/**
+	 * Maximum number of concurrent calls to the route
+	 */
+	private final int maxConnections;
+
+	/**
+	 * Number of connections currently leased
+	 */
+	private int leased;
+
+	ConnectionLimiter(String route, int maxConnections) {
+		this.route = route;
+		this.maxConnections = maxConnections > 0 ? maxConnections : 1;
+	}
+
+	/**
+	 * Leases a connection, creating it through {@link ConnectionManager}. If
+	 * the limit is reached the call waits for a connection to be released.
+	 *
+	 * @param httpConfig
+	 *            {@link HttpConfiguration} used to create the connection
+	 * @param waitTimeout
+	 *            Maximum time in milliseconds to wait for a free slot, zero
+	 *            waits indefinitely
+	 * @return Leased {@link HttpConnection}
+	 * @throws IOException
+	 *             if the wait times out or is interrupted
+	 */
+	HttpConnection lease(HttpConfiguration httpConfig, long waitTimeout)
+			throws IOException {
+		synchronized (this) {
+			long deadline = System.currentTimeMillis() + waitTimeout;
+			while (leased >= maxConnections) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (waitTimeout > 0 && remaining <= 0) {
+					throw new IOException(
+							"Timed out waiting for a connection to " + route);
+				}
+				try {
+					wait(waitTimeout > 0 ? remaining : 0);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException(
+							"Interrupted waiting for a connection to " + route);
+				}
+			}
+			leased++;
+		}
+
+		// Create outside the lock, the slot is already reserved
+		HttpConnection connection = null;
+		try {
+			connection = ConnectionManager.getInstance().getConnection(
+					httpConfig);
+			connection.limiter = this;
+			return connection;
+		} finally {
+			if (connection == null) {
+				release();
+			}
+		}
+	}
+
+	/**
+	 * Returns the slot of a leased connection
+	 *
+	 * @param connection
+	 *            {@link HttpConnection} leased from this limiter
+	 */
+	void release(HttpConnection connection) {
+		connection.limiter = null;
+		release();
+	}
+
+	private synchronized void release() {
+		leased--;
+		notifyAll();
+	}
+
+	/**
+	 * @return number of leased connections
+	 */
+	synchronized int getLeasedCount() {
+		return leased;
+	}
+
+}
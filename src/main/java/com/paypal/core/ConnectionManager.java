@@ -1,8 +1,21 @@
 package com.paypal.core;
 
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.paypal.exception.CircuitBreakerOpenException;
+
 /**
  * ConnectionManager acts as a interface to retrieve {@link HttpConnection}
- * objects used by API service
+ * objects used by API service. Connections obtained through
+ * leaseConnection(..) count against a per-endpoint limit of concurrent calls
+ * and must be handed back using releaseConnection(..) once the call completes
  * 
  */
 public final class ConnectionManager {
@@ -12,8 +25,44 @@ public final class ConnectionManager {
 	 */
 	private static ConnectionManager instance;
 
+	/**
+	 * {@link ConnectionLimiter}s keyed by route
+	 */
+	private final Map<String, ConnectionLimiter> limiters = new HashMap<String, ConnectionLimiter>();
+
+	/**
+	 * Default number of worker threads used for asynchronous calls
+	 */
+	private static final int DEFAULT_ASYNC_THREADS = 20;
+
+	/**
+	 * {@link ExecutorService} running asynchronous calls
+	 */
+	private ExecutorService executorService;
+
+	/**
+	 * Byte counters of compressed responses
+	 */
+	private final CompressionStatistics compressionStatistics = new CompressionStatistics();
+
+	/**
+	 * {@link RetryBudget}s keyed by endpoint
+	 */
+	private final Map<String, RetryBudget> retryBudgets = new HashMap<String, RetryBudget>();
+
+	/**
+	 * {@link CircuitBreaker}s keyed by endpoint
+	 */
+	private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<String, CircuitBreaker>();
+
 	// Private Constructor
 	private ConnectionManager() {
+		ConfigManager.addConfigurationListener(new ConfigurationListener() {
+			public void configurationChanged(SDKConfig previous,
+					SDKConfig current) {
+				reconfigure(previous, current);
+			}
+		});
 	}
 
 	/**
@@ -39,6 +88,10 @@ public final class ConnectionManager {
 
 	/**
 	 * Overloaded method used factory to load GoogleAppEngineSpecific connection
+	 * or the {@link HttpConnection} implementation named by the connectionClass
+	 * of the {@link HttpConfiguration}. Implementations that do not use
+	 * {@link java.net.HttpURLConnection}, like a HTTP/2 multiplexing transport,
+	 * override execute(..) and share their underlying client across instances
 	 * 
 	 * @param httpConfig
 	 *            {@link HttpConfiguration} object
@@ -48,8 +101,268 @@ public final class ConnectionManager {
 
 		if (httpConfig.isGoogleAppEngine()) {
 			return new GoogleAppEngineHttpConnection();
+		} else if (httpConfig.getConnectionClass() != null
+				&& httpConfig.getConnectionClass().trim().length() > 0) {
+			return newConnection(httpConfig.getConnectionClass().trim());
 		} else {
 			return new DefaultHttpConnection();
 		}
 	}
+
+	/*
+	 * Instantiates a configured HttpConnection implementation
+	 */
+	private HttpConnection newConnection(String className) {
+		try {
+			ClassLoader classLoader = Thread.currentThread()
+					.getContextClassLoader();
+			Class<?> clazz = Class.forName(className, true,
+					classLoader != null ? classLoader : ConnectionManager.class
+							.getClassLoader());
+			if (!HttpConnection.class.isAssignableFrom(clazz)) {
+				throw new IllegalArgumentException(className
+						+ " does not extend " + HttpConnection.class.getName());
+			}
+			return (HttpConnection) clazz.newInstance();
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException(
+					"HttpConnection class not found : " + className, e);
+		} catch (InstantiationException e) {
+			throw new IllegalArgumentException(
+					"Unable to instantiate HttpConnection class : " + className,
+					e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(
+					"Unable to instantiate HttpConnection class : " + className,
+					e);
+		}
+	}
+
+	/**
+	 * Leases a {@link HttpConnection} for the endpoint configured in the
+	 * passed {@link HttpConfiguration}. Concurrent calls per endpoint are
+	 * bounded by maxHttpConnection, callers wait up to connectionTimeout, or
+	 * until the {@link Deadline} of the call, for a connection to be released
+	 * when the limit is reached. The returned connection must be handed back
+	 * using releaseConnection(..)
+	 * 
+	 * @param httpConfig
+	 *            {@link HttpConfiguration} object
+	 * @return {@link HttpConnection} object
+	 * @throws IOException
+	 *             if the endpoint is malformed or no connection became
+	 *             available in time
+	 * @throws CircuitBreakerOpenException
+	 *             if the circuit breaker of the endpoint is open
+	 */
+	public HttpConnection leaseConnection(HttpConfiguration httpConfig)
+			throws IOException, CircuitBreakerOpenException {
+		checkCircuitBreaker(httpConfig);
+		int waitTimeout = httpConfig.getConnectionTimeout();
+		Deadline deadline = Deadline.forConfiguration(httpConfig);
+		if (deadline != null) {
+			waitTimeout = deadline.shrink(waitTimeout);
+		}
+		return getLimiter(httpConfig).lease(httpConfig, waitTimeout);
+	}
+
+	/**
+	 * Returns the {@link CircuitBreaker} of the scheme, host and port of the
+	 * configured endpoint, creating it on first use
+	 * 
+	 * @param httpConfig
+	 *            {@link HttpConfiguration} object
+	 * @return {@link CircuitBreaker}
+	 * @throws IOException
+	 *             if the endpoint is malformed
+	 */
+	public CircuitBreaker getCircuitBreaker(HttpConfiguration httpConfig)
+			throws IOException {
+		String endpoint = getEndpoint(httpConfig);
+		synchronized (circuitBreakers) {
+			CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+			if (circuitBreaker == null) {
+				circuitBreaker = new CircuitBreaker(endpoint,
+						httpConfig.getCircuitBreakerFailureRate(),
+						httpConfig.getCircuitBreakerSlowCallRate(),
+						httpConfig.getCircuitBreakerSlowCallDuration(),
+						httpConfig.getCircuitBreakerOpenDuration());
+				circuitBreakers.put(endpoint, circuitBreaker);
+			}
+			return circuitBreaker;
+		}
+	}
+
+	/**
+	 * Fails fast if the circuit breaker of the configured endpoint rejects
+	 * calls
+	 * 
+	 * @param httpConfig
+	 *            {@link HttpConfiguration} object
+	 * @throws IOException
+	 *             if the endpoint is malformed
+	 * @throws CircuitBreakerOpenException
+	 *             if the circuit breaker of the endpoint is open
+	 */
+	public void checkCircuitBreaker(HttpConfiguration httpConfig)
+			throws IOException, CircuitBreakerOpenException {
+		CircuitBreaker circuitBreaker = getCircuitBreaker(httpConfig);
+		if (!circuitBreaker.isCallPermitted()) {
+			throw new CircuitBreakerOpenException(circuitBreaker.getEndpoint());
+		}
+	}
+
+	/**
+	 * Hands back a {@link HttpConnection} obtained from leaseConnection(..),
+	 * freeing its slot. Connections not leased, or already released, are
+	 * ignored
+	 * 
+	 * @param connection
+	 *            {@link HttpConnection} object
+	 */
+	public void releaseConnection(HttpConnection connection) {
+		if (connection != null && connection.limiter != null) {
+			connection.limiter.release(connection);
+		}
+	}
+
+	/*
+	 * Drops the limiters, retry budgets and circuit breakers whose settings
+	 * changed in a reloaded configuration; they are recreated with the new
+	 * settings on next use. Connections in use are released to the dropped
+	 * limiter
+	 */
+	private void reconfigure(SDKConfig previous, SDKConfig current) {
+		if (previous == null
+				|| previous.getMaxHttpConnection() != current
+						.getMaxHttpConnection()) {
+			synchronized (limiters) {
+				limiters.clear();
+			}
+		}
+		if (previous == null
+				|| previous.getRetryBudgetRatio() != current
+						.getRetryBudgetRatio()) {
+			synchronized (retryBudgets) {
+				retryBudgets.clear();
+			}
+		}
+		if (previous == null
+				|| previous.getCircuitBreakerFailureRate() != current
+						.getCircuitBreakerFailureRate()
+				|| previous.getCircuitBreakerSlowCallRate() != current
+						.getCircuitBreakerSlowCallRate()
+				|| previous.getCircuitBreakerSlowCallDuration() != current
+						.getCircuitBreakerSlowCallDuration()
+				|| previous.getCircuitBreakerOpenDuration() != current
+						.getCircuitBreakerOpenDuration()) {
+			synchronized (circuitBreakers) {
+				circuitBreakers.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link ExecutorService} used to run asynchronous calls. If
+	 * none was set a fixed pool of daemon worker threads is created on first
+	 * use
+	 * 
+	 * @return {@link ExecutorService}
+	 */
+	public synchronized ExecutorService getExecutorService() {
+		if (executorService == null) {
+			executorService = Executors.newFixedThreadPool(
+					DEFAULT_ASYNC_THREADS, new DaemonThreadFactory());
+		}
+		return executorService;
+	}
+
+	/**
+	 * Sets the {@link ExecutorService} used to run asynchronous calls. The
+	 * previous {@link ExecutorService} is not shut down
+	 * 
+	 * @param executorService
+	 *            {@link ExecutorService}
+	 */
+	public synchronized void setExecutorService(ExecutorService executorService) {
+		if (executorService == null) {
+			throw new IllegalArgumentException(
+					"ExecutorService cannot be null");
+		}
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Returns the cumulative byte counters of the gzip and deflate compressed
+	 * responses read through this {@link ConnectionManager}
+	 * 
+	 * @return {@link CompressionStatistics}
+	 */
+	public CompressionStatistics getCompressionStatistics() {
+		return compressionStatistics;
+	}
+
+	/*
+	 * Returns the retry budget shared by all requests to the scheme, host and
+	 * port of the configured endpoint, creating it on first use
+	 */
+	RetryBudget getRetryBudget(HttpConfiguration httpConfig)
+			throws IOException {
+		String endpoint = getEndpoint(httpConfig);
+		synchronized (retryBudgets) {
+			RetryBudget retryBudget = retryBudgets.get(endpoint);
+			if (retryBudget == null) {
+				retryBudget = new RetryBudget(httpConfig.getRetryBudgetRatio());
+				retryBudgets.put(endpoint, retryBudget);
+			}
+			return retryBudget;
+		}
+	}
+
+	/*
+	 * Returns the scheme, host and port of the configured endpoint
+	 */
+	private static String getEndpoint(HttpConfiguration httpConfig)
+			throws IOException {
+		URL url = new URL(httpConfig.getEndPointUrl());
+		int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+		return url.getProtocol() + "://" + url.getHost() + ":" + port;
+	}
+
+	/*
+	 * Returns the limiter for the route of the configured endpoint, creating
+	 * it on first use
+	 */
+	ConnectionLimiter getLimiter(HttpConfiguration httpConfig)
+			throws IOException {
+		String route = getEndpoint(httpConfig)
+				+ (httpConfig.isGoogleAppEngine() ? "#gae" : "")
+				+ (httpConfig.getConnectionClass() != null ? "#"
+						+ httpConfig.getConnectionClass() : "");
+		synchronized (limiters) {
+			ConnectionLimiter limiter = limiters.get(route);
+			if (limiter == null) {
+				limiter = new ConnectionLimiter(route,
+						httpConfig.getMaxHttpConnection());
+				limiters.put(route, limiter);
+			}
+			return limiter;
+		}
+	}
+
+	/**
+	 * {@link ThreadFactory} creating named daemon threads so that pending
+	 * asynchronous calls do not prevent JVM shutdown
+	 */
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "paypal-sdk-async-"
+					+ count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
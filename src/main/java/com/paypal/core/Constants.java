@@ -30,6 +30,12 @@ public final class Constants {
 	// HTTP Accept Header
 	public static final String HTTP_ACCEPT_HEADER = "Accept";
 
+	// HTTP Accept-Encoding Header
+	public static final String HTTP_ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+	// HTTP Retry-After Header
+	public static final String HTTP_RETRY_AFTER_HEADER = "Retry-After";
+
 	// PayPal Security UserId Header
 	public static final String PAYPAL_SECURITY_USERID_HEADER = "X-PAYPAL-SECURITY-USERID";
 
@@ -79,6 +85,27 @@ public final class Constants {
 	// OAuth End point
 	public static final String OAUTH_ENDPOINT = "oauth.EndPoint";
 
+	// OAuth token store directory shared between processes
+	public static final String OAUTH_TOKEN_STORE_DIRECTORY = "oauth.TokenStoreDirectory";
+
+	// Diagnostic capture mode (errors, sampled, off or all)
+	public static final String DIAGNOSTIC_CAPTURE_MODE = "diagnostic.CaptureMode";
+
+	// Diagnostic capture sample rate
+	public static final String DIAGNOSTIC_SAMPLE_RATE = "diagnostic.SampleRate";
+
+	// Diagnostic capture ring buffer size
+	public static final String DIAGNOSTIC_BUFFER_SIZE = "diagnostic.BufferSize";
+
+	// Diagnostic capture maximum body length
+	public static final String DIAGNOSTIC_MAX_BODY_LENGTH = "diagnostic.MaxBodyLength";
+
+	// Diagnostic capture masked field names
+	public static final String DIAGNOSTIC_MASK_FIELDS = "diagnostic.MaskFields";
+
+	// Configuration file poll interval in milliseconds, 0 disables reload
+	public static final String CONFIG_RELOAD_INTERVAL = "config.ReloadInterval";
+
 	// Service Redirect Endpoint
 	public static final String SERVICE_REDIRECT_ENDPOINT = "service.RedirectURL";
 
@@ -112,9 +139,36 @@ public final class Constants {
 	// HTTP Read timeout
 	public static final String HTTP_CONNECTION_READ_TIMEOUT = "http.ReadTimeOut";
 
+	// HTTP maximum delay between retries
+	public static final String HTTP_CONNECTION_MAX_RETRY_DELAY = "http.MaxRetryDelay";
+
+	// HTTP fraction of requests that may be retried per endpoint
+	public static final String HTTP_CONNECTION_RETRY_BUDGET_RATIO = "http.RetryBudgetRatio";
+
+	// HTTP overall request timeout spanning all retries
+	public static final String HTTP_REQUEST_TIMEOUT = "http.RequestTimeout";
+
+	// HTTP circuit breaker failure rate in percent
+	public static final String HTTP_CIRCUIT_BREAKER_FAILURE_RATE = "http.CircuitBreakerFailureRate";
+
+	// HTTP circuit breaker slow call rate in percent
+	public static final String HTTP_CIRCUIT_BREAKER_SLOW_CALL_RATE = "http.CircuitBreakerSlowCallRate";
+
+	// HTTP circuit breaker slow call duration
+	public static final String HTTP_CIRCUIT_BREAKER_SLOW_CALL_DURATION = "http.CircuitBreakerSlowCallDuration";
+
+	// HTTP circuit breaker open duration
+	public static final String HTTP_CIRCUIT_BREAKER_OPEN_DURATION = "http.CircuitBreakerOpenDuration";
+
 	// HTTP Max Connections
 	public static final String HTTP_CONNECTION_MAX_CONNECTION = "http.MaxConnection";
 
+	// HTTP Connection implementation class
+	public static final String HTTP_CONNECTION_CLASS = "http.ConnectionClass";
+
+	// HTTP response compression (gzip, deflate)
+	public static final String HTTP_CONNECTION_COMPRESSION = "http.Compression";
+
 	// HTTP Device IP Address Key
 	public static final String DEVICE_IP_ADDRESS = "http.IPAddress";
 
@@ -0,0 +1,188 @@
+package com.paypal.core;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * <code>ContentDecoder</code> wraps a response stream according to its
+ * Content-Encoding, inflating gzip and deflate bodies while they are read.
+ * Compressed and decompressed byte counts are recorded in
+ * {@link CompressionStatistics} when the returned stream is closed.
+ *
+ */
+final class ContentDecoder {
+
+	/**
+	 * Content-Encoding values advertised when compression is enabled
+	 */
+	static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private ContentDecoder() {
+	}
+
+	/**
+	 * Returns a stream inflating the passed stream, or the stream itself if
+	 * the content encoding is not supported or the body is empty
+	 *
+	 * @param inputStream
+	 *            Response stream as read from the connection
+	 * @param contentEncoding
+	 *            Value of the Content-Encoding header, may be null
+	 * @param contentLength
+	 *            Length of the response body, -1 if unknown
+	 * @param statistics
+	 *            {@link CompressionStatistics} to record into
+	 * @return decoded {@link InputStream}
+	 * @throws IOException
+	 */
+	static InputStream decode(InputStream inputStream, String contentEncoding,
+			long contentLength, CompressionStatistics statistics)
+			throws IOException {
+		if (inputStream == null || contentEncoding == null
+				|| contentLength == 0) {
+			return inputStream;
+		}
+		String encoding = contentEncoding.trim().toLowerCase(Locale.ENGLISH);
+		if (!isSupported(encoding)) {
+			return inputStream;
+		}
+		CountingInputStream compressed = new CountingInputStream(
+				new BufferedInputStream(inputStream, BufferPool.BUFFER_SIZE));
+		InputStream inflated;
+		Inflater inflater = null;
+		if ("deflate".equals(encoding)) {
+			// Servers send either zlib wrapped (RFC 1950) or raw deflate data
+			inflater = new Inflater(!isZlibWrapped(compressed));
+			inflated = new InflaterInputStream(compressed, inflater,
+					BufferPool.BUFFER_SIZE);
+		} else {
+			inflated = new GZIPInputStream(compressed, BufferPool.BUFFER_SIZE);
+		}
+		return new DecodedInputStream(inflated, compressed, inflater,
+				statistics);
+	}
+
+	/**
+	 * @param contentEncoding
+	 *            Content-Encoding value in lower case
+	 * @return true if the encoding can be inflated
+	 */
+	static boolean isSupported(String contentEncoding) {
+		return "gzip".equals(contentEncoding)
+				|| "x-gzip".equals(contentEncoding)
+				|| "deflate".equals(contentEncoding);
+	}
+
+	/*
+	 * Peeks at the first two bytes for a zlib header
+	 */
+	private static boolean isZlibWrapped(InputStream inputStream)
+			throws IOException {
+		inputStream.mark(2);
+		try {
+			int cmf = inputStream.read();
+			int flg = inputStream.read();
+			return cmf != -1 && flg != -1 && (cmf & 0x0F) == 8
+					&& ((cmf << 8) | flg) % 31 == 0;
+		} finally {
+			inputStream.reset();
+		}
+	}
+
+	/**
+	 * {@link FilterInputStream} counting the bytes read through it
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		private long mark;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				count++;
+			}
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		public synchronized void mark(int readlimit) {
+			super.mark(readlimit);
+			mark = count;
+		}
+
+		public synchronized void reset() throws IOException {
+			super.reset();
+			count = mark;
+		}
+	}
+
+	/**
+	 * Decoded response stream, records its byte counts once on close
+	 */
+	private static class DecodedInputStream extends CountingInputStream {
+
+		private final CountingInputStream compressed;
+
+		private final Inflater inflater;
+
+		private final CompressionStatistics statistics;
+
+		private boolean closed;
+
+		DecodedInputStream(InputStream inflated,
+				CountingInputStream compressed, Inflater inflater,
+				CompressionStatistics statistics) {
+			super(inflated);
+			this.compressed = compressed;
+			this.inflater = inflater;
+			this.statistics = statistics;
+		}
+
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				super.close();
+			} finally {
+				if (inflater != null) {
+					inflater.end();
+				}
+				if (statistics != null) {
+					statistics.record(compressed.getCount(), getCount());
+				}
+			}
+		}
+	}
+
+}
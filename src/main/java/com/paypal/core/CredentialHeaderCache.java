@@ -0,0 +1,131 @@
+package com.paypal.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.core.credential.CertificateCredential;
+import com.paypal.core.credential.SignatureCredential;
+import com.paypal.core.credential.SubjectAuthorization;
+
+/**
+ * <code>CredentialHeaderCache</code> memoizes the SOAP RequesterCredentials
+ * fragments of signature and certificate credentials. Entries are keyed by
+ * the credential values and the subject authorization, so they are reused
+ * across calls and across copies of the same credential, and the credential
+ * values are XML escaped once. Token authorization headers depend on the time
+ * of the call and are never cached.
+ *
+ */
+public final class CredentialHeaderCache {
+
+	/**
+	 * Maximum number of cached entries, the cache is cleared when exceeded
+	 */
+	private static final int MAX_ENTRIES = 1024;
+
+	/**
+	 * Empty SOAP header used under token authorization
+	 */
+	public static final String TOKEN_SOAP_HEADER = "<ns:RequesterCredentials/>";
+
+	/**
+	 * SOAP header fragments keyed by credential values and subject
+	 */
+	private static final ConcurrentMap<List<String>, String> SOAP_HEADERS = new ConcurrentHashMap<List<String>, String>();
+
+	private CredentialHeaderCache() {
+	}
+
+	/**
+	 * Returns the SOAP RequesterCredentials fragment of a
+	 * {@link SignatureCredential}
+	 *
+	 * @param credential
+	 *            {@link SignatureCredential}
+	 * @param subjectAuth
+	 *            {@link SubjectAuthorization}, may be null
+	 * @return SOAP header fragment
+	 */
+	public static String getSOAPHeader(SignatureCredential credential,
+			SubjectAuthorization subjectAuth) {
+		String subject = subjectAuth != null ? subjectAuth.getSubject() : null;
+		List<String> key = Arrays.asList("signature", credential.getUserName(),
+				credential.getPassword(), credential.getSignature(), subject);
+		String header = SOAP_HEADERS.get(key);
+		if (header == null) {
+			header = put(key, soapHeader(credential.getUserName(),
+					credential.getPassword(), credential.getSignature(),
+					subject));
+		}
+		return header;
+	}
+
+	/**
+	 * Returns the SOAP RequesterCredentials fragment of a
+	 * {@link CertificateCredential}
+	 *
+	 * @param credential
+	 *            {@link CertificateCredential}
+	 * @param subjectAuth
+	 *            {@link SubjectAuthorization}, may be null
+	 * @return SOAP header fragment
+	 */
+	public static String getSOAPHeader(CertificateCredential credential,
+			SubjectAuthorization subjectAuth) {
+		String subject = subjectAuth != null ? subjectAuth.getSubject() : null;
+		List<String> key = Arrays.asList("certificate",
+				credential.getUserName(), credential.getPassword(), subject);
+		String header = SOAP_HEADERS.get(key);
+		if (header == null) {
+			header = put(key, soapHeader(credential.getUserName(),
+					credential.getPassword(), null, subject));
+		}
+		return header;
+	}
+
+	private static String soapHeader(String userName, String password,
+			String signature, String subject) {
+		StringBuilder soapMsg = new StringBuilder();
+		soapMsg.append("<ns:RequesterCredentials>");
+		soapMsg.append("<ebl:Credentials>");
+		soapMsg.append("<ebl:Username>")
+				.append(SDKUtil.escapeInvalidXmlChars(userName))
+				.append("</ebl:Username>");
+		soapMsg.append("<ebl:Password>")
+				.append(SDKUtil.escapeInvalidXmlChars(password))
+				.append("</ebl:Password>");
+		if (signature != null) {
+			soapMsg.append("<ebl:Signature>")
+					.append(SDKUtil.escapeInvalidXmlChars(signature))
+					.append("</ebl:Signature>");
+		}
+
+		// Append subject credential if available
+		if (subject != null) {
+			soapMsg.append("<ebl:Subject>")
+					.append(SDKUtil.escapeInvalidXmlChars(subject))
+					.append("</ebl:Subject>");
+		}
+		soapMsg.append("</ebl:Credentials>");
+		soapMsg.append("</ns:RequesterCredentials>");
+		return soapMsg.toString();
+	}
+
+	private static String put(List<String> key, String value) {
+		if (SOAP_HEADERS.size() >= MAX_ENTRIES) {
+			SOAP_HEADERS.clear();
+		}
+		String existing = SOAP_HEADERS.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * Clears all cached headers
+	 */
+	public static void clear() {
+		SOAP_HEADERS.clear();
+	}
+
+}
@@ -0,0 +1,411 @@
+package com.paypal.core;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.core.credential.CertificateCredential;
+import com.paypal.core.credential.ICredential;
+import com.paypal.core.credential.SignatureCredential;
+import com.paypal.core.credential.SubjectAuthorization;
+import com.paypal.core.credential.ThirdPartyAuthorization;
+import com.paypal.exception.InvalidCredentialException;
+import com.paypal.exception.MissingCredentialException;
+
+/**
+ * <code>CredentialRegistry</code> indexes the API accounts ('acctN.*' keys) of
+ * a configuration by account key and by case-insensitive username. The
+ * configuration is scanned once when the registry is created; registries are
+ * cached per configuration, so lookups on the request path are constant time
+ * regardless of the number of accounts. Credentials are created once per
+ * account and shared. Accounts may be added or removed at runtime; such
+ * changes belong to the registry of that configuration and do not carry over
+ * to a reloaded configuration. Registries changed at runtime are never
+ * evicted from the cache.
+ *
+ */
+public final class CredentialRegistry {
+
+	/**
+	 * Maximum number of cached registries, registries not changed at runtime
+	 * are evicted when exceeded
+	 */
+	private static final int MAX_REGISTRIES = 64;
+
+	/**
+	 * Registries keyed by a copy of the configuration {@link Map} they were
+	 * created from
+	 */
+	private static final ConcurrentMap<Map<String, String>, CredentialRegistry> REGISTRIES = new ConcurrentHashMap<Map<String, String>, CredentialRegistry>();
+
+	/**
+	 * Account key of the default account
+	 */
+	private static final String DEFAULT_ACCOUNT = Constants.ACCOUNT_PREFIX + 1;
+
+	/**
+	 * Accounts keyed by account key
+	 */
+	private final ConcurrentMap<String, Account> accounts = new ConcurrentHashMap<String, Account>();
+
+	/**
+	 * Accounts keyed by lower case username
+	 */
+	private final ConcurrentMap<String, Account> userNames = new ConcurrentHashMap<String, Account>();
+
+	/**
+	 * Key of this registry in the cache, null for the registry of a
+	 * {@link ConfigurationView}
+	 */
+	private final Map<String, String> cacheKey;
+
+	/**
+	 * Set once an account is added or removed at runtime
+	 */
+	private volatile boolean modified;
+
+	private CredentialRegistry(Map<String, String> configurationMap,
+			Map<String, String> cacheKey) {
+		this.cacheKey = cacheKey;
+		Set<String> accountKeys = new HashSet<String>();
+		for (String key : configurationMap.keySet()) {
+			int pos = key.indexOf('.');
+			if (pos > 0 && key.contains(Constants.ACCOUNT_PREFIX)) {
+				accountKeys.add(key.substring(0, pos));
+			}
+		}
+		for (String accountKey : accountKeys) {
+			add(new Account(accountKey, configurationMap.get(accountKey
+					+ Constants.CREDENTIAL_USERNAME_SUFFIX), configurationMap,
+					null));
+		}
+	}
+
+	/**
+	 * Returns the registry of the passed configuration
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map}, the registry of a
+	 *            {@link ConfigurationView} is resolved without a lookup after
+	 *            its first use
+	 * @return {@link CredentialRegistry}
+	 */
+	public static CredentialRegistry getInstance(
+			Map<String, String> configurationMap) {
+		if (configurationMap == null) {
+			throw new IllegalArgumentException(
+					"ConfigurationMap cannot be null");
+		}
+		if (configurationMap instanceof ConfigurationView) {
+			ConfigurationView view = (ConfigurationView) configurationMap;
+			CredentialRegistry registry = view.credentialRegistry;
+			if (registry == null) {
+				// Racing threads must not each create a registry, accounts
+				// added to the losing one would be lost
+				synchronized (view) {
+					registry = view.credentialRegistry;
+					if (registry == null) {
+						registry = new CredentialRegistry(view, null);
+						view.credentialRegistry = registry;
+					}
+				}
+			}
+			return registry;
+		}
+		CredentialRegistry registry = REGISTRIES.get(configurationMap);
+		if (registry == null) {
+			Map<String, String> key = Collections
+					.unmodifiableMap(new HashMap<String, String>(
+							configurationMap));
+			registry = new CredentialRegistry(key, key);
+			if (REGISTRIES.size() >= MAX_REGISTRIES) {
+				evictUnmodified();
+			}
+			CredentialRegistry existing = REGISTRIES.putIfAbsent(key, registry);
+			if (existing != null) {
+				registry = existing;
+			}
+		}
+		return registry;
+	}
+
+	/*
+	 * Evicts the cached registries not changed at runtime
+	 */
+	private static void evictUnmodified() {
+		synchronized (REGISTRIES) {
+			Iterator<CredentialRegistry> registries = REGISTRIES.values()
+					.iterator();
+			while (registries.hasNext()) {
+				if (!registries.next().modified) {
+					registries.remove();
+				}
+			}
+		}
+	}
+
+	/*
+	 * Marks this registry as changed at runtime so it is kept in the cache. A
+	 * registry evicted before being marked is cached again, replacing a
+	 * registry recreated from the same configuration in the meantime
+	 */
+	private void markModified() {
+		if (cacheKey == null) {
+			modified = true;
+			return;
+		}
+		synchronized (REGISTRIES) {
+			modified = true;
+			CredentialRegistry existing = REGISTRIES.putIfAbsent(cacheKey,
+					this);
+			if (existing != null && existing != this && !existing.modified) {
+				REGISTRIES.replace(cacheKey, existing, this);
+			}
+		}
+	}
+
+	/**
+	 * Returns the shared credential of the account configured for the passed
+	 * username, or of account 'acct1' if the username is empty. The returned
+	 * instance must not be modified, see {@link #copy(ICredential)}
+	 *
+	 * @param userId
+	 *            Username, case-insensitive
+	 * @return {@link ICredential}
+	 * @throws MissingCredentialException
+	 *             if no matching account is configured
+	 * @throws InvalidCredentialException
+	 *             if the account has neither signature nor certificate
+	 */
+	public ICredential getCredential(String userId)
+			throws MissingCredentialException, InvalidCredentialException {
+		if (accounts.isEmpty()) {
+			throw new MissingCredentialException(
+					"No API accounts have been configured in application properties");
+		}
+		Account account;
+		if (userId != null && userId.trim().length() != 0) {
+			account = userNames.get(userId.toLowerCase(Locale.ENGLISH));
+			if (account == null) {
+				throw new MissingCredentialException(
+						"Account for the username does not exists in the properties file");
+			}
+		} else {
+			account = accounts.get(DEFAULT_ACCOUNT);
+			if (account == null || account.userName == null
+					|| account.userName.trim().length() == 0) {
+				throw new MissingCredentialException(
+						"Associate valid account for index 1");
+			}
+		}
+		return account.getCredential();
+	}
+
+	/**
+	 * Returns the shared credential of the passed account key. The returned
+	 * instance must not be modified
+	 *
+	 * @param accountKey
+	 *            Account key, e.g. 'acct1'
+	 * @return {@link ICredential}, null if the account is not registered
+	 * @throws InvalidCredentialException
+	 *             if the account has neither signature nor certificate
+	 */
+	public ICredential getCredentialByAccount(String accountKey)
+			throws InvalidCredentialException {
+		Account account = accounts.get(accountKey);
+		return account != null ? account.getCredential() : null;
+	}
+
+	/**
+	 * @return the registered account keys
+	 */
+	public Set<String> getAccountKeys() {
+		return Collections.unmodifiableSet(accounts.keySet());
+	}
+
+	/**
+	 * Registers the passed credential under the passed account key,
+	 * replacing any account registered under that key. The registry keeps a
+	 * copy of the credential
+	 *
+	 * @param accountKey
+	 *            Account key
+	 * @param credential
+	 *            {@link SignatureCredential} or {@link CertificateCredential}
+	 */
+	public void addCredential(String accountKey, ICredential credential) {
+		if (accountKey == null || accountKey.trim().length() == 0) {
+			throw new IllegalArgumentException(
+					"accountKey cannot be empty or null");
+		}
+		String userName;
+		if (credential instanceof SignatureCredential) {
+			userName = ((SignatureCredential) credential).getUserName();
+		} else if (credential instanceof CertificateCredential) {
+			userName = ((CertificateCredential) credential).getUserName();
+		} else {
+			throw new IllegalArgumentException(
+					"Only signature and certificate credentials can be registered");
+		}
+		markModified();
+		add(new Account(accountKey, userName, null, copy(credential)));
+	}
+
+	/**
+	 * Removes the account registered under the passed account key
+	 *
+	 * @param accountKey
+	 *            Account key
+	 * @return true if an account was removed
+	 */
+	public boolean removeCredential(String accountKey) {
+		if (!accounts.containsKey(accountKey)) {
+			return false;
+		}
+		markModified();
+		return remove(accountKey);
+	}
+
+	private synchronized boolean remove(String accountKey) {
+		Account account = accounts.remove(accountKey);
+		if (account == null) {
+			return false;
+		}
+		if (account.userName != null) {
+			userNames.remove(account.userName.toLowerCase(Locale.ENGLISH),
+					account);
+		}
+		return true;
+	}
+
+	private synchronized void add(Account account) {
+		remove(account.key);
+		accounts.put(account.key, account);
+		if (account.userName != null) {
+			userNames.putIfAbsent(account.userName.toLowerCase(Locale.ENGLISH),
+					account);
+		}
+	}
+
+	/**
+	 * Returns a copy of the passed credential that may be modified, for
+	 * example to set a token authorization for a single call
+	 *
+	 * @param credential
+	 *            {@link ICredential}
+	 * @return copy of a {@link SignatureCredential} or
+	 *         {@link CertificateCredential}, the passed credential otherwise
+	 */
+	public static ICredential copy(ICredential credential) {
+		if (credential instanceof SignatureCredential) {
+			SignatureCredential source = (SignatureCredential) credential;
+			SignatureCredential copy = new SignatureCredential(
+					source.getUserName(), source.getPassword(),
+					source.getSignature());
+			copy.setApplicationId(source.getApplicationId());
+			copy.setThirdPartyAuthorization(source.getThirdPartyAuthorization());
+			return copy;
+		} else if (credential instanceof CertificateCredential) {
+			CertificateCredential source = (CertificateCredential) credential;
+			CertificateCredential copy = new CertificateCredential(
+					source.getUserName(), source.getPassword(),
+					source.getCertificatePath(), source.getCertificateKey());
+			copy.setApplicationId(source.getApplicationId());
+			copy.setThirdPartyAuthorization(source.getThirdPartyAuthorization());
+			return copy;
+		}
+		return credential;
+	}
+
+	/**
+	 * Creates the credential of the passed account key from the configuration
+	 *
+	 * @param credMap
+	 *            Configuration {@link Map}
+	 * @param acctKey
+	 *            Account key
+	 * @return {@link ICredential}
+	 * @throws InvalidCredentialException
+	 *             if the account has neither signature nor certificate
+	 */
+	static ICredential createCredential(Map<String, String> credMap,
+			String acctKey) throws InvalidCredentialException {
+		ICredential credential = null;
+		String userName = (String) credMap.get(acctKey
+				+ Constants.CREDENTIAL_USERNAME_SUFFIX);
+		String password = (String) credMap.get(acctKey
+				+ Constants.CREDENTIAL_PASSWORD_SUFFIX);
+		String appId = (String) credMap.get(acctKey
+				+ Constants.CREDENTIAL_APPLICATIONID_SUFFIX);
+		String subject = (String) credMap.get(acctKey
+				+ Constants.CREDENTIAL_SUBJECT_SUFFIX);
+		if (credMap.get(acctKey + Constants.CREDENTIAL_SIGNATURE_SUFFIX) != null) {
+			String signature = (String) credMap.get(acctKey
+					+ Constants.CREDENTIAL_SIGNATURE_SUFFIX);
+			credential = new SignatureCredential(userName, password, signature);
+			((SignatureCredential) credential).setApplicationId(appId);
+			if (subject != null && subject.trim().length() > 0) {
+				ThirdPartyAuthorization thirdPartyAuthorization = new SubjectAuthorization(
+						subject);
+				((SignatureCredential) credential)
+						.setThirdPartyAuthorization(thirdPartyAuthorization);
+			}
+		} else if (credMap.get(acctKey + Constants.CREDENTIAL_CERTPATH_SUFFIX) != null) {
+			String certPath = (String) credMap.get(acctKey
+					+ Constants.CREDENTIAL_CERTPATH_SUFFIX);
+			String certKey = (String) credMap.get(acctKey
+					+ Constants.CREDENTIAL_CERTKEY_SUFFIX);
+			credential = new CertificateCredential(userName, password,
+					certPath, certKey);
+			((CertificateCredential) credential).setApplicationId(appId);
+			if (subject != null && subject.trim().length() > 0) {
+				ThirdPartyAuthorization thirdPartyAuthorization = new SubjectAuthorization(
+						subject);
+				((CertificateCredential) credential)
+						.setThirdPartyAuthorization(thirdPartyAuthorization);
+			}
+		} else {
+			throw new InvalidCredentialException(
+					"The account does not have a valid credential type(signature/certificate)");
+		}
+		return credential;
+	}
+
+	/**
+	 * Registered account, its credential is created from the configuration on
+	 * first use
+	 */
+	private static final class Account {
+
+		private final String key;
+
+		private final String userName;
+
+		private final Map<String, String> configurationMap;
+
+		private volatile ICredential credential;
+
+		Account(String key, String userName,
+				Map<String, String> configurationMap, ICredential credential) {
+			this.key = key;
+			this.userName = userName;
+			this.configurationMap = configurationMap;
+			this.credential = credential;
+		}
+
+		ICredential getCredential() throws InvalidCredentialException {
+			if (credential == null) {
+				credential = createCredential(configurationMap, key);
+			}
+			return credential;
+		}
+	}
+
+}
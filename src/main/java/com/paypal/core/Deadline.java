@@ -0,0 +1,157 @@
+package com.paypal.core;
+
+/**
+ * <code>Deadline</code> is the point in time by which a call must complete,
+ * covering every attempt, the back-off between attempts and the wait for a
+ * free connection slot. Connect and read timeouts of each attempt are shrunk to
+ * the time remaining.
+ * 
+ * A deadline applies to a call through {@link HttpConfiguration#setDeadline}
+ * or the request timeout of the call, see
+ * {@link BaseAPIContext#setRequestTimeout(long)} and the http.RequestTimeout
+ * configuration. setCurrent(..) scopes a deadline to the calling thread,
+ * which lets a single deadline span several calls, for example an OAuth token
+ * request and the API call using the token. The service entry points resolve
+ * the request timeout once per call with enter(..), so the wait for a
+ * connection slot does not restart the budget of the attempts.
+ * 
+ */
+public final class Deadline {
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	/**
+	 * Expiry time in milliseconds
+	 */
+	private final long expiryTime;
+
+	private Deadline(long expiryTime) {
+		this.expiryTime = expiryTime;
+	}
+
+	/**
+	 * Creates a {@link Deadline} expiring after the passed timeout
+	 * 
+	 * @param timeout
+	 *            Timeout in milliseconds
+	 * @return {@link Deadline}
+	 */
+	public static Deadline after(long timeout) {
+		if (timeout <= 0) {
+			throw new IllegalArgumentException("Timeout must be positive : "
+					+ timeout);
+		}
+		return new Deadline(System.currentTimeMillis() + timeout);
+	}
+
+	/**
+	 * @return the {@link Deadline} scoped to the calling thread, null if none
+	 */
+	public static Deadline getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Scopes a {@link Deadline} to the calling thread, it applies to all calls
+	 * made by the thread without a deadline of their own until cleared by
+	 * passing null
+	 * 
+	 * @param deadline
+	 *            {@link Deadline} or null
+	 */
+	public static void setCurrent(Deadline deadline) {
+		if (deadline == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(deadline);
+		}
+	}
+
+	/**
+	 * Scopes the passed request timeout, counted from now, to the calling
+	 * thread unless the deadline already scoped ends earlier
+	 * 
+	 * @param timeout
+	 *            Request timeout in milliseconds, zero or less for none
+	 * @return the previously scoped {@link Deadline}, to be restored with
+	 *         setCurrent(..) once the call completes
+	 */
+	public static Deadline enter(long timeout) {
+		Deadline previous = getCurrent();
+		if (timeout > 0) {
+			setCurrent(earliest(previous, after(timeout)));
+		}
+		return previous;
+	}
+
+	/**
+	 * @return time remaining in milliseconds, zero once expired
+	 */
+	public long getRemaining() {
+		return Math.max(0, expiryTime - System.currentTimeMillis());
+	}
+
+	/**
+	 * @return true if the deadline has passed
+	 */
+	public boolean isExpired() {
+		return getRemaining() == 0;
+	}
+
+	/**
+	 * Shrinks a socket timeout to the time remaining
+	 * 
+	 * @param timeout
+	 *            Configured timeout in milliseconds, zero for none
+	 * @return timeout in milliseconds, at least one
+	 */
+	int shrink(int timeout) {
+		long remaining = Math.max(1, getRemaining());
+		if (timeout > 0 && timeout < remaining) {
+			return timeout;
+		}
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the {@link Deadline} applying to a call made with the passed
+	 * {@link HttpConfiguration}, the earlier of its deadline and the deadline
+	 * of the calling thread. Its request timeout, counted from now, only
+	 * applies if neither is set, as the entry points scope it once per call
+	 * 
+	 * @param httpConfig
+	 *            {@link HttpConfiguration}
+	 * @return {@link Deadline}, null if the call is not bounded
+	 */
+	static Deadline forConfiguration(HttpConfiguration httpConfig) {
+		Deadline deadline = earliest(httpConfig.getDeadline(), getCurrent());
+		if (deadline == null && httpConfig.getRequestTimeout() > 0) {
+			deadline = after(httpConfig.getRequestTimeout());
+		}
+		return deadline;
+	}
+
+	/**
+	 * Returns the earlier of two deadlines
+	 * 
+	 * @param first
+	 *            {@link Deadline}, may be null
+	 * @param second
+	 *            {@link Deadline}, may be null
+	 * @return earlier {@link Deadline}, null if both are null
+	 */
+	public static Deadline earliest(Deadline first, Deadline second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		return first.expiryTime <= second.expiryTime ? first : second;
+	}
+
+	public String toString() {
+		return "Deadline [remaining=" + getRemaining() + " ms]";
+	}
+
+}
@@ -15,7 +15,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
 import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 
 import com.paypal.exception.SSLConfigurationException;
 
@@ -26,13 +26,21 @@ import com.paypal.exception.SSLConfigurationException;
 public class DefaultHttpConnection extends HttpConnection {
 
 	/**
-	 * Secure Socket Layer context
+	 * Shared Secure Socket Layer socket factory, see {@link SSLUtil}. The JRE
+	 * keep-alive cache only reuses a persistent socket for the same factory
+	 * instance
 	 */
-	private SSLContext sslContext;
+	private SSLSocketFactory sslSocketFactory;
+
+	/**
+	 * Shared socket factory carrying the client certificate of the current
+	 * request, null if no client certificate is used
+	 */
+	private SSLSocketFactory clientSSLSocketFactory;
 
 	public DefaultHttpConnection() {
 		try {
-			sslContext = SSLUtil.getSSLContext(null);
+			sslSocketFactory = SSLUtil.getSSLSocketFactory();
 		} catch (SSLConfigurationException e) {
 			throw new RuntimeException(e);
 		}
@@ -42,7 +50,8 @@ public class DefaultHttpConnection extends HttpConnection {
 	public void setupClientSSL(String certPath, String certKey)
 			throws SSLConfigurationException {
 		try {
-			this.sslContext = SSLUtil.setupClientSSL(certPath, certKey);
+			this.clientSSLSocketFactory = SSLUtil.getSSLSocketFactory(
+					certPath, certKey);
 		} catch (Exception e) {
 			throw new SSLConfigurationException(e.getMessage(), e);
 		}
@@ -68,7 +77,8 @@ public class DefaultHttpConnection extends HttpConnection {
 		}
 		if (this.connection instanceof HttpsURLConnection) {
 			((HttpsURLConnection) this.connection)
-					.setSSLSocketFactory(this.sslContext.getSocketFactory());
+					.setSSLSocketFactory(clientSSLSocketFactory != null ? this.clientSSLSocketFactory
+							: this.sslSocketFactory);
 		}
 
 		if (this.config.getProxyUserName() != null
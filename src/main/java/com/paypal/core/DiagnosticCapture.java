@@ -0,0 +1,449 @@
+package com.paypal.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <code>DiagnosticCapture</code> records request and response pairs for
+ * debugging in a fixed-size ring buffer. Slots are claimed with an atomic
+ * sequence number, so recording never locks and the oldest exchanges are
+ * overwritten once the buffer is full. Bodies are truncated and then masked
+ * before they are stored, which bounds the memory and time spent regardless
+ * of the size of the payloads. By default only failed calls are captured;
+ * capturing every call with 'all' keeps the raw bytes of each response and
+ * is meant for debugging. Capture is configured per call through the
+ * configuration {@link Map}
+ *
+ * <pre>
+ * diagnostic.CaptureMode    errors, sampled, off or all (errors)
+ * diagnostic.SampleRate     fraction of calls captured in sampled mode (0.01)
+ * diagnostic.BufferSize     number of exchanges kept (100)
+ * diagnostic.MaxBodyLength  characters kept per body, 0 keeps none (16384)
+ * diagnostic.MaskFields     comma separated JSON, NVP and XML field names
+ *                           whose values are masked
+ * </pre>
+ *
+ * The capture mode only decides which exchanges are kept in the buffer. The
+ * last exchange of each thread is always recorded, masked and truncated the
+ * same way, and backs the getLastRequest() and getLastResponse() methods of
+ * the service classes whatever the mode.
+ *
+ */
+public final class DiagnosticCapture {
+
+	/**
+	 * Capture modes
+	 */
+	public enum Mode {
+
+		/**
+		 * Nothing is captured
+		 */
+		OFF,
+
+		/**
+		 * Every call is captured, for debugging
+		 */
+		ALL,
+
+		/**
+		 * A fraction of the calls is captured
+		 */
+		SAMPLED,
+
+		/**
+		 * Only failed calls are captured
+		 */
+		ERRORS
+	}
+
+	/**
+	 * Default number of exchanges kept
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 100;
+
+	/**
+	 * Default number of characters kept per body
+	 */
+	public static final int DEFAULT_MAX_BODY_LENGTH = 16384;
+
+	/**
+	 * Default fraction of calls captured in {@link Mode#SAMPLED}
+	 */
+	public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+	/**
+	 * Default field names whose values are masked
+	 */
+	public static final String DEFAULT_MASK_FIELDS = "access_token,refresh_token,id_token,client_secret,password,pwd,signature,acct,cvv2,number";
+
+	/**
+	 * Replacement of masked values
+	 */
+	private static final String MASK = "****";
+
+	/**
+	 * Singleton instance
+	 */
+	private static DiagnosticCapture instance;
+
+	/**
+	 * Ring buffer, replaced when the configured size changes
+	 */
+	private final AtomicReference<AtomicReferenceArray<DiagnosticExchange>> ring = new AtomicReference<AtomicReferenceArray<DiagnosticExchange>>(
+			new AtomicReferenceArray<DiagnosticExchange>(DEFAULT_BUFFER_SIZE));
+
+	/**
+	 * Sequence of recorded exchanges, the first exchange has id 1
+	 */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Counter of calls seen in {@link Mode#SAMPLED}
+	 */
+	private final AtomicLong sampleCounter = new AtomicLong();
+
+	/**
+	 * Compiled mask patterns keyed by the mask field list
+	 */
+	private final ConcurrentMap<String, Pattern[]> maskPatterns = new ConcurrentHashMap<String, Pattern[]>();
+
+	/**
+	 * Last exchange recorded by the current thread, its bodies are bounded by
+	 * 'diagnostic.MaxBodyLength'
+	 */
+	private final ThreadLocal<DiagnosticExchange> lastExchanges = new ThreadLocal<DiagnosticExchange>();
+
+	// Private Constructor
+	private DiagnosticCapture() {
+	}
+
+	/**
+	 * Singleton accessor method
+	 *
+	 * @return {@link DiagnosticCapture} singleton object
+	 */
+	public static DiagnosticCapture getInstance() {
+		synchronized (DiagnosticCapture.class) {
+			if (instance == null) {
+				instance = new DiagnosticCapture();
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns the {@link Mode} configured in the passed configuration
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map}, may be null
+	 * @return {@link Mode}, {@link Mode#ERRORS} if not configured
+	 */
+	public static Mode getMode(Map<String, String> configurationMap) {
+		String mode = configurationMap != null ? configurationMap
+				.get(Constants.DIAGNOSTIC_CAPTURE_MODE) : null;
+		if (mode != null) {
+			mode = mode.trim();
+			if ("off".equalsIgnoreCase(mode)) {
+				return Mode.OFF;
+			} else if ("sampled".equalsIgnoreCase(mode)) {
+				return Mode.SAMPLED;
+			} else if ("all".equalsIgnoreCase(mode)) {
+				return Mode.ALL;
+			}
+		}
+		return Mode.ERRORS;
+	}
+
+	/**
+	 * Marks the start of a call on the current thread and decides whether it
+	 * may be kept in the buffer
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map} of the call
+	 * @return true if the call may be captured
+	 */
+	public boolean begin(Map<String, String> configurationMap) {
+		lastExchanges.remove();
+		Mode mode = getMode(configurationMap);
+		if (mode == Mode.OFF) {
+			return false;
+		} else if (mode == Mode.SAMPLED) {
+			double rate = parseDouble(configurationMap
+					.get(Constants.DIAGNOSTIC_SAMPLE_RATE), DEFAULT_SAMPLE_RATE);
+			long n = sampleCounter.getAndIncrement();
+			return (long) ((n + 1) * rate) != (long) (n * rate);
+		}
+		return true;
+	}
+
+	/**
+	 * Records a call started with begin(..) as the last exchange of the
+	 * current thread, and keeps it in the buffer if the capture mode selects
+	 * it
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map} of the call
+	 * @param captured
+	 *            Value returned by begin(..)
+	 * @param correlationId
+	 *            Correlation Id, may be null
+	 * @param method
+	 *            HTTP method, may be null
+	 * @param endpoint
+	 *            Endpoint, may be null
+	 * @param startTime
+	 *            Start of the call in milliseconds since epoch
+	 * @param request
+	 *            Request payload, may be null
+	 * @param response
+	 *            Response payload, may be null
+	 * @param error
+	 *            Failure of the call, null if the call succeeded
+	 * @return Recorded {@link DiagnosticExchange}, its id is 0 if it is not
+	 *         kept in the buffer
+	 */
+	public DiagnosticExchange record(Map<String, String> configurationMap,
+			boolean captured, String correlationId, String method,
+			String endpoint, long startTime, Object request, Object response,
+			Throwable error) {
+		if (configurationMap == null) {
+			configurationMap = Collections.emptyMap();
+		}
+		boolean buffered = captured
+				&& (error != null || getMode(configurationMap) != Mode.ERRORS);
+		int maxBodyLength = parseInt(configurationMap
+				.get(Constants.DIAGNOSTIC_MAX_BODY_LENGTH),
+				DEFAULT_MAX_BODY_LENGTH);
+		String maskFields = configurationMap
+				.get(Constants.DIAGNOSTIC_MASK_FIELDS);
+		Pattern[] patterns = getMaskPatterns(maskFields != null ? maskFields
+				: DEFAULT_MASK_FIELDS);
+
+		long id = buffered ? sequence.incrementAndGet() : 0;
+		DiagnosticExchange exchange = new DiagnosticExchange(id,
+				correlationId, Thread.currentThread(), startTime,
+				System.currentTimeMillis() - startTime, method, endpoint,
+				capture(request, maxBodyLength, patterns), capture(response,
+						maxBodyLength, patterns), error != null ? String
+						.valueOf(error.getMessage()) : null);
+		if (buffered) {
+			AtomicReferenceArray<DiagnosticExchange> buffer = getRing(parseInt(
+					configurationMap.get(Constants.DIAGNOSTIC_BUFFER_SIZE),
+					DEFAULT_BUFFER_SIZE));
+			buffer.set((int) (id % buffer.length()), exchange);
+		}
+		lastExchanges.set(exchange);
+		return exchange;
+	}
+
+	/**
+	 * Returns the exchange with the passed id if it is still in the buffer
+	 *
+	 * @param id
+	 *            Id of the exchange
+	 * @return {@link DiagnosticExchange} or null
+	 */
+	public DiagnosticExchange getExchange(long id) {
+		if (id <= 0) {
+			return null;
+		}
+		AtomicReferenceArray<DiagnosticExchange> buffer = ring.get();
+		DiagnosticExchange exchange = buffer.get((int) (id % buffer.length()));
+		return exchange != null && exchange.getId() == id ? exchange : null;
+	}
+
+	/**
+	 * Returns the exchange of the last call made by the current thread,
+	 * whether or not it is kept in the buffer
+	 *
+	 * @return {@link DiagnosticExchange} or null if no call was recorded
+	 */
+	public DiagnosticExchange getLastExchange() {
+		return lastExchanges.get();
+	}
+
+	/**
+	 * Returns the exchanges in the buffer, most recent first
+	 *
+	 * @return {@link List} of {@link DiagnosticExchange}
+	 */
+	public List<DiagnosticExchange> getExchanges() {
+		return getExchanges(null);
+	}
+
+	/**
+	 * Returns the exchanges in the buffer with the passed correlation Id, most
+	 * recent first
+	 *
+	 * @param correlationId
+	 *            Correlation Id, null returns all exchanges
+	 * @return {@link List} of {@link DiagnosticExchange}
+	 */
+	public List<DiagnosticExchange> getExchanges(String correlationId) {
+		AtomicReferenceArray<DiagnosticExchange> buffer = ring.get();
+		List<DiagnosticExchange> exchanges = new ArrayList<DiagnosticExchange>();
+		long last = sequence.get();
+		for (long id = last; id > 0 && id > last - buffer.length(); id--) {
+			DiagnosticExchange exchange = buffer
+					.get((int) (id % buffer.length()));
+			if (exchange != null
+					&& exchange.getId() == id
+					&& (correlationId == null || correlationId.equals(exchange
+							.getCorrelationId()))) {
+				exchanges.add(exchange);
+			}
+		}
+		return exchanges;
+	}
+
+	/**
+	 * @return number of exchanges the buffer holds
+	 */
+	public int getCapacity() {
+		return ring.get().length();
+	}
+
+	/**
+	 * Discards all recorded exchanges
+	 */
+	public void clear() {
+		ring.set(new AtomicReferenceArray<DiagnosticExchange>(ring.get()
+				.length()));
+	}
+
+	/**
+	 * Masks the values of the passed fields in JSON, NVP and XML payloads
+	 *
+	 * @param payload
+	 *            Payload
+	 * @param maskFields
+	 *            Comma separated field names
+	 * @return Masked payload
+	 */
+	public static String mask(String payload, String maskFields) {
+		return mask(payload, compileMaskPatterns(maskFields));
+	}
+
+	/*
+	 * Returns the ring buffer, replacing it if the configured size changed
+	 */
+	private AtomicReferenceArray<DiagnosticExchange> getRing(int size) {
+		size = size > 0 ? size : DEFAULT_BUFFER_SIZE;
+		AtomicReferenceArray<DiagnosticExchange> buffer = ring.get();
+		while (buffer.length() != size) {
+			AtomicReferenceArray<DiagnosticExchange> resized = new AtomicReferenceArray<DiagnosticExchange>(
+					size);
+			if (ring.compareAndSet(buffer, resized)) {
+				return resized;
+			}
+			buffer = ring.get();
+		}
+		return buffer;
+	}
+
+	private Pattern[] getMaskPatterns(String maskFields) {
+		Pattern[] patterns = maskPatterns.get(maskFields);
+		if (patterns == null) {
+			if (maskPatterns.size() >= 16) {
+				maskPatterns.clear();
+			}
+			patterns = compileMaskPatterns(maskFields);
+			maskPatterns.put(maskFields, patterns);
+		}
+		return patterns;
+	}
+
+	private static Pattern[] compileMaskPatterns(String maskFields) {
+		StringBuilder alternatives = new StringBuilder();
+		if (maskFields != null) {
+			for (String field : maskFields.split(",")) {
+				field = field.trim();
+				if (field.length() > 0) {
+					if (alternatives.length() > 0) {
+						alternatives.append('|');
+					}
+					alternatives.append(Pattern.quote(field));
+				}
+			}
+		}
+		if (alternatives.length() == 0) {
+			return new Pattern[0];
+		}
+		String names = "(?:" + alternatives + ")";
+		return new Pattern[] {
+				// JSON "name" : "value" or "name" : literal
+				Pattern.compile("(\"" + names
+						+ "\"\\s*:\\s*)(?:\"(?:[^\"\\\\]|\\\\.)*\"|[^,}\\]\\s]+)",
+						Pattern.CASE_INSENSITIVE),
+				// NVP name=value
+				Pattern.compile("((?:^|[&?])" + names + "=)[^&]*",
+						Pattern.CASE_INSENSITIVE),
+				// XML <prefix:name attributes>value
+				Pattern.compile("(<(?:[\\w.-]+:)?" + names
+						+ "(?:\\s[^>]*)?>)[^<]*", Pattern.CASE_INSENSITIVE) };
+	}
+
+	private static String mask(String payload, Pattern[] patterns) {
+		if (payload == null) {
+			return null;
+		}
+		for (int i = 0; i < patterns.length; i++) {
+			Matcher matcher = patterns[i].matcher(payload);
+			if (matcher.find()) {
+				payload = matcher.replaceAll(i == 0 ? "$1\"" + MASK + "\""
+						: "$1" + MASK);
+			}
+		}
+		return payload;
+	}
+
+	/*
+	 * Truncates the body before masking it, so that masking is bounded by the
+	 * maximum body length rather than the size of the payload
+	 */
+	private static String capture(Object body, int maxBodyLength,
+			Pattern[] patterns) {
+		if (body == null || maxBodyLength <= 0) {
+			return null;
+		}
+		String text = body.toString();
+		if (text.length() > maxBodyLength) {
+			return mask(text.substring(0, maxBodyLength), patterns) + "...["
+					+ (text.length() - maxBodyLength) + " characters truncated]";
+		}
+		return mask(text, patterns);
+	}
+
+	private static int parseInt(String value, int defaultValue) {
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		}
+		return defaultValue;
+	}
+
+	private static double parseDouble(String value, double defaultValue) {
+		if (value != null) {
+			try {
+				return Double.parseDouble(value.trim());
+			} catch (NumberFormatException e) {
+				// use default
+			}
+		}
+		return defaultValue;
+	}
+
+}
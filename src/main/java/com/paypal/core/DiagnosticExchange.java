@@ -0,0 +1,187 @@
+package com.paypal.core;
+
+import java.util.Date;
+
+/**
+ * <code>DiagnosticExchange</code> is an immutable record of a request and
+ * response pair recorded by {@link DiagnosticCapture}. Bodies are masked and
+ * truncated according to the capture configuration at the time the exchange
+ * was recorded.
+ *
+ */
+public final class DiagnosticExchange {
+
+	/**
+	 * Sequence number, unique within the {@link DiagnosticCapture} buffer, 0
+	 * if the exchange is not kept in the buffer
+	 */
+	private final long id;
+
+	/**
+	 * Correlation Id, the PayPal-Request-Id of the call if any
+	 */
+	private final String correlationId;
+
+	/**
+	 * Id of the thread that made the call
+	 */
+	private final long threadId;
+
+	/**
+	 * Name of the thread that made the call
+	 */
+	private final String threadName;
+
+	/**
+	 * Start of the call in milliseconds since epoch
+	 */
+	private final long timestamp;
+
+	/**
+	 * Duration of the call in milliseconds
+	 */
+	private final long duration;
+
+	/**
+	 * HTTP method, may be null
+	 */
+	private final String method;
+
+	/**
+	 * Endpoint of the call, may be null
+	 */
+	private final String endpoint;
+
+	/**
+	 * Masked and truncated request body
+	 */
+	private final String request;
+
+	/**
+	 * Masked and truncated response body
+	 */
+	private final String response;
+
+	/**
+	 * Error message, null if the call succeeded
+	 */
+	private final String error;
+
+	DiagnosticExchange(long id, String correlationId, Thread thread,
+			long timestamp, long duration, String method, String endpoint,
+			String request, String response, String error) {
+		this.id = id;
+		this.correlationId = correlationId;
+		this.threadId = thread.getId();
+		this.threadName = thread.getName();
+		this.timestamp = timestamp;
+		this.duration = duration;
+		this.method = method;
+		this.endpoint = endpoint;
+		this.request = request;
+		this.response = response;
+		this.error = error;
+	}
+
+	/**
+	 * @return the id
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return the correlationId
+	 */
+	public String getCorrelationId() {
+		return correlationId;
+	}
+
+	/**
+	 * @return the threadId
+	 */
+	public long getThreadId() {
+		return threadId;
+	}
+
+	/**
+	 * @return the threadName
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+
+	/**
+	 * @return the timestamp in milliseconds since epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the duration in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the method
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the endpoint
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * @return the request
+	 */
+	public String getRequest() {
+		return request;
+	}
+
+	/**
+	 * @return the response
+	 */
+	public String getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return the error
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * @return true if the call failed
+	 */
+	public boolean isError() {
+		return error != null;
+	}
+
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("#").append(id).append(" ").append(new Date(timestamp))
+				.append(" [").append(threadName).append("] ");
+		if (method != null) {
+			sb.append(method).append(" ");
+		}
+		sb.append(endpoint).append(" (").append(duration).append(" ms)");
+		if (correlationId != null) {
+			sb.append(" correlationId=").append(correlationId);
+		}
+		if (error != null) {
+			sb.append(" error=").append(error);
+		}
+		return sb.toString();
+	}
+
+}
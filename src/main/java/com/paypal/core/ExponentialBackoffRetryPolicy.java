@@ -0,0 +1,105 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * <code>ExponentialBackoffRetryPolicy</code> is the default
+ * {@link RetryPolicy}. Delays grow exponentially with decorrelated jitter,
+ * each delay is drawn at random between the base delay and three times the
+ * previous delay and capped by the maximum delay, so that clients failing
+ * together do not retry in lock step. A Retry-After delay sent by the server
+ * is honored as a lower bound, retrying stops if it exceeds the maximum delay.
+ * 
+ * Connection failures and the response codes 408, 429, 502, 503 and 504 are
+ * retried for idempotent methods (GET, HEAD, PUT, DELETE, OPTIONS, TRACE) and
+ * for requests carrying a PayPal-Request-Id header. Other requests are only
+ * retried when they cannot have been processed, that is when the connection
+ * was refused or the server answered 429 or 503.
+ *
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+	private static final Random RANDOM = new Random();
+
+	/**
+	 * Base delay in milliseconds
+	 */
+	private final long baseDelay;
+
+	/**
+	 * Maximum delay in milliseconds
+	 */
+	private final long maxDelay;
+
+	/**
+	 * ExponentialBackoffRetryPolicy
+	 *
+	 * @param baseDelay
+	 *            Base delay in milliseconds
+	 * @param maxDelay
+	 *            Maximum delay in milliseconds
+	 */
+	public ExponentialBackoffRetryPolicy(long baseDelay, long maxDelay) {
+		if (baseDelay < 0 || maxDelay < baseDelay) {
+			throw new IllegalArgumentException(
+					"Invalid retry delays : base " + baseDelay + ", max "
+							+ maxDelay);
+		}
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+	}
+
+	public boolean isRetryable(String httpMethod, Map<String, String> headers,
+			int responseCode, Exception exception) {
+		if (responseCode == 429 || responseCode == 503) {
+			return true;
+		}
+		if (responseCode < 0 && exception instanceof ConnectException) {
+			return true;
+		}
+		boolean transientFailure = responseCode == 408 || responseCode == 502
+				|| responseCode == 504
+				|| (responseCode < 0 && exception instanceof IOException);
+		return transientFailure
+				&& (isIdempotent(httpMethod) || hasIdempotencyKey(headers));
+	}
+
+	public long getRetryDelay(int retry, long previousDelay, long retryAfter) {
+		if (retryAfter > maxDelay) {
+			return -1;
+		}
+		long upper = Math.min(maxDelay, Math.max(baseDelay, previousDelay) * 3);
+		long delay = baseDelay
+				+ (long) (RANDOM.nextDouble() * (upper - baseDelay));
+		return Math.max(delay, retryAfter);
+	}
+
+	/**
+	 * @param httpMethod
+	 *            HTTP method
+	 * @return true if the HTTP method is idempotent
+	 */
+	protected boolean isIdempotent(String httpMethod) {
+		return "GET".equalsIgnoreCase(httpMethod)
+				|| "HEAD".equalsIgnoreCase(httpMethod)
+				|| "PUT".equalsIgnoreCase(httpMethod)
+				|| "DELETE".equalsIgnoreCase(httpMethod)
+				|| "OPTIONS".equalsIgnoreCase(httpMethod)
+				|| "TRACE".equalsIgnoreCase(httpMethod);
+	}
+
+	private boolean hasIdempotencyKey(Map<String, String> headers) {
+		if (headers != null) {
+			for (String key : headers.keySet()) {
+				if (Constants.PAYPAL_REQUEST_ID_HEADER.equalsIgnoreCase(key)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
@@ -62,11 +62,70 @@ public class HttpConfiguration {
 	 */
 	private boolean googleAppEngine;
 
+	/**
+	 * Fully qualified name of the {@link HttpConnection} implementation to
+	 * use, {@link DefaultHttpConnection} is used when not set
+	 */
+	private String connectionClass;
+
+	/**
+	 * Request gzip or deflate compressed responses
+	 */
+	private boolean compressionEnabled;
+
 	/**
 	 * Delay used for retry mechanism
 	 */
 	private int retryDelay;
 
+	/**
+	 * Maximum delay between retries
+	 */
+	private int maxRetryDelay;
+
+	/**
+	 * Fraction of the requests to an endpoint that may be retried
+	 */
+	private double retryBudgetRatio;
+
+	/**
+	 * {@link RetryPolicy}, {@link ExponentialBackoffRetryPolicy} is used when
+	 * not set
+	 */
+	private RetryPolicy retryPolicy;
+
+	/**
+	 * Time in milliseconds a call may take across all attempts
+	 */
+	private long requestTimeout;
+
+	/**
+	 * {@link Deadline} of the call
+	 */
+	private Deadline deadline;
+
+	/**
+	 * Failure rate in percent at which the circuit breaker of an endpoint
+	 * opens
+	 */
+	private float circuitBreakerFailureRate;
+
+	/**
+	 * Slow call rate in percent at which the circuit breaker of an endpoint
+	 * opens
+	 */
+	private float circuitBreakerSlowCallRate;
+
+	/**
+	 * Duration in milliseconds from which a call counts as slow
+	 */
+	private long circuitBreakerSlowCallDuration;
+
+	/**
+	 * Time in milliseconds an open circuit breaker rejects calls
+	 */
+	private long circuitBreakerOpenDuration;
+
 	/**
 	 * IP Address
 	 */
@@ -115,6 +174,18 @@ public class HttpConfiguration {
 
 		this.retryDelay = 1000;
 
+		this.maxRetryDelay = 30000;
+
+		this.retryBudgetRatio = 0.1;
+
+		this.circuitBreakerFailureRate = 50;
+
+		this.circuitBreakerSlowCallRate = 80;
+
+		this.circuitBreakerSlowCallDuration = 10000;
+
+		this.circuitBreakerOpenDuration = 30000;
+
 		this.ipAddress = "127.0.0.1";
 
 		this.httpMethod = Constants.HTTP_CONFIG_DEFAULT_HTTP_METHOD;
@@ -185,6 +256,157 @@ public class HttpConfiguration {
 		this.retryDelay = retryDelay;
 	}
 
+	/**
+	 * @return the maxRetryDelay
+	 */
+	public int getMaxRetryDelay() {
+		return maxRetryDelay;
+	}
+
+	/**
+	 * Sets the maxRetryDelay
+	 * 
+	 * @param maxRetryDelay
+	 */
+	public void setMaxRetryDelay(int maxRetryDelay) {
+		this.maxRetryDelay = maxRetryDelay;
+	}
+
+	/**
+	 * @return the retryBudgetRatio
+	 */
+	public double getRetryBudgetRatio() {
+		return retryBudgetRatio;
+	}
+
+	/**
+	 * Sets the retryBudgetRatio, the fraction of the requests to an endpoint
+	 * that may be retried process-wide. The budget of an endpoint is created
+	 * with the ratio of the first request sent to it
+	 * 
+	 * @param retryBudgetRatio
+	 */
+	public void setRetryBudgetRatio(double retryBudgetRatio) {
+		this.retryBudgetRatio = retryBudgetRatio;
+	}
+
+	/**
+	 * @return the retryPolicy
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Sets the {@link RetryPolicy}
+	 * 
+	 * @param retryPolicy
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * @return the requestTimeout
+	 */
+	public long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * Sets the requestTimeout, the time in milliseconds a call may take
+	 * including all retries and the delays between them. Zero means no limit
+	 * 
+	 * @param requestTimeout
+	 */
+	public void setRequestTimeout(long requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * @return the deadline
+	 */
+	public Deadline getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * Sets the {@link Deadline} of the call, the requestTimeout is not
+	 * applied on top of it
+	 * 
+	 * @param deadline
+	 */
+	public void setDeadline(Deadline deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * @return the circuitBreakerFailureRate
+	 */
+	public float getCircuitBreakerFailureRate() {
+		return circuitBreakerFailureRate;
+	}
+
+	/**
+	 * Sets the circuitBreakerFailureRate, a value less than or equal to zero
+	 * disables the circuit breaker. The breaker of an endpoint is created
+	 * with the settings of the first request sent to it
+	 * 
+	 * @param circuitBreakerFailureRate
+	 */
+	public void setCircuitBreakerFailureRate(float circuitBreakerFailureRate) {
+		this.circuitBreakerFailureRate = circuitBreakerFailureRate;
+	}
+
+	/**
+	 * @return the circuitBreakerSlowCallRate
+	 */
+	public float getCircuitBreakerSlowCallRate() {
+		return circuitBreakerSlowCallRate;
+	}
+
+	/**
+	 * Sets the circuitBreakerSlowCallRate
+	 * 
+	 * @param circuitBreakerSlowCallRate
+	 */
+	public void setCircuitBreakerSlowCallRate(float circuitBreakerSlowCallRate) {
+		this.circuitBreakerSlowCallRate = circuitBreakerSlowCallRate;
+	}
+
+	/**
+	 * @return the circuitBreakerSlowCallDuration
+	 */
+	public long getCircuitBreakerSlowCallDuration() {
+		return circuitBreakerSlowCallDuration;
+	}
+
+	/**
+	 * Sets the circuitBreakerSlowCallDuration
+	 * 
+	 * @param circuitBreakerSlowCallDuration
+	 */
+	public void setCircuitBreakerSlowCallDuration(
+			long circuitBreakerSlowCallDuration) {
+		this.circuitBreakerSlowCallDuration = circuitBreakerSlowCallDuration;
+	}
+
+	/**
+	 * @return the circuitBreakerOpenDuration
+	 */
+	public long getCircuitBreakerOpenDuration() {
+		return circuitBreakerOpenDuration;
+	}
+
+	/**
+	 * Sets the circuitBreakerOpenDuration
+	 * 
+	 * @param circuitBreakerOpenDuration
+	 */
+	public void setCircuitBreakerOpenDuration(long circuitBreakerOpenDuration) {
+		this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+	}
+
 	/**
 	 * @return the endPointUrl
 	 */
@@ -313,6 +535,42 @@ public class HttpConfiguration {
 		this.googleAppEngine = googleAppEngine;
 	}
 
+	/**
+	 * @return the connectionClass
+	 */
+	public String getConnectionClass() {
+		return connectionClass;
+	}
+
+	/**
+	 * Sets the fully qualified name of the {@link HttpConnection}
+	 * implementation to use, for example one negotiating HTTP/2. The class
+	 * must have a public no-argument constructor
+	 * 
+	 * @param connectionClass
+	 */
+	public void setConnectionClass(String connectionClass) {
+		this.connectionClass = connectionClass;
+	}
+
+	/**
+	 * @return the compressionEnabled
+	 */
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * Sets the compressionEnabled, when true requests advertise
+	 * 'Accept-Encoding: gzip, deflate' and compressed responses are inflated
+	 * while they are read
+	 * 
+	 * @param compressionEnabled
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
 	/**
 	 * @return the httpMethod
 	 */
@@ -1,16 +1,24 @@
 package com.paypal.core;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
-import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
+import com.paypal.exception.CircuitBreakerOpenException;
 import com.paypal.exception.ClientActionRequiredException;
+import com.paypal.exception.DeadlineExceededException;
 import com.paypal.exception.HttpErrorException;
 import com.paypal.exception.InvalidResponseDataException;
 import com.paypal.exception.SSLConfigurationException;
@@ -33,6 +41,12 @@ public abstract class HttpConnection {
 	 */
 	protected HttpURLConnection connection;
 
+	/**
+	 * {@link ConnectionLimiter} this connection was leased from, null if the
+	 * connection was not leased or has been released
+	 */
+	ConnectionLimiter limiter;
+
 	public HttpConnection() {
 
 	}
@@ -54,109 +68,231 @@ public abstract class HttpConnection {
 			Map<String, String> headers) throws InvalidResponseDataException,
 			IOException, InterruptedException, HttpErrorException,
 			ClientActionRequiredException {
-		String successResponse = Constants.EMPTY_STRING, errorResponse = Constants.EMPTY_STRING;
-		int responsecode = -1;
-		BufferedReader reader = null;
-		OutputStreamWriter writer = null;
-		connection.setRequestProperty("Content-Length", ""
-				+ payload.trim().length());
-		if (headers != null) {
+		return execute(url, HttpRequestBody.create(payload), headers);
+	}
+
+	/**
+	 * Executes HTTP request writing the pre-encoded {@link HttpRequestBody}
+	 * straight to the connection. When the content length is known the body
+	 * is sent in fixed-length streaming mode with an exact Content-Length
+	 * 
+	 * @param url
+	 * @param body
+	 * @param headers
+	 * @return String response
+	 * @throws InvalidResponseDataException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws HttpErrorException
+	 * @throws ClientActionRequiredException
+	 */
+	public String execute(String url, HttpRequestBody body,
+			Map<String, String> headers) throws InvalidResponseDataException,
+			IOException, InterruptedException, HttpErrorException,
+			ClientActionRequiredException {
+		String successResponse = execute(url, body, headers,
+				StringResponseHandler.INSTANCE);
+		LoggingManager.debug(HttpConnection.class, "Response : "
+				+ successResponse);
+		return successResponse;
+	}
+
+	/**
+	 * Executes HTTP request and hands the body of a successful response to
+	 * the passed {@link HttpResponseHandler} while it is read from the
+	 * connection, without buffering it as a String. The response stream is
+	 * closed once the handler returns, which returns the underlying socket to
+	 * the keep-alive cache. Failed attempts are retried on a new connection
+	 * as decided by the {@link RetryPolicy} and the retry budget of the
+	 * endpoint, up to {@link HttpConfiguration#getMaxRetry()} attempts and
+	 * within the {@link Deadline} of the call
+	 * 
+	 * @param url
+	 * @param body
+	 * @param headers
+	 * @param handler
+	 *            {@link HttpResponseHandler} consuming the response body
+	 * @return Result of the {@link HttpResponseHandler}
+	 * @throws InvalidResponseDataException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws HttpErrorException
+	 * @throws ClientActionRequiredException
+	 */
+	public <T> T execute(String url, HttpRequestBody body,
+			Map<String, String> headers, HttpResponseHandler<T> handler)
+			throws InvalidResponseDataException, IOException,
+			InterruptedException, HttpErrorException,
+			ClientActionRequiredException {
+		String httpMethod = connection.getRequestMethod();
+		boolean hasBody = "POST".equalsIgnoreCase(httpMethod)
+				|| "PUT".equalsIgnoreCase(httpMethod)
+				|| "PATCH".equalsIgnoreCase(httpMethod);
+		if (headers != null
+				&& LoggingManager.isDebugEnabled(HttpConnection.class)) {
 			LoggingManager.debug(HttpConnection.class, "curl command: ");
 			LoggingManager.debug(HttpConnection.class, "curl -v '" + connection.getURL().toString() + "' \\");
-			setHttpHeaders(headers);
 			Iterator<String> keyIter = headers.keySet().iterator();
 			while (keyIter.hasNext()) {
 				String key = keyIter.next();
 				String value = headers.get(key);
 				LoggingManager.debug(HttpConnection.class, "-H \"" + key + ": " + value + "\" \\");
 			}
-			LoggingManager.debug(HttpConnection.class, "-d '" + payload + "'");
+			LoggingManager.debug(HttpConnection.class, "-d '" + body + "'");
 		}
-		try {
+		Deadline deadline = Deadline.forConfiguration(config);
+		prepare(headers, hasBody, body.getContentLength(), deadline);
+		RetryPolicy retryPolicy = getRetryPolicy();
+		RetryBudget retryBudget = ConnectionManager.getInstance()
+				.getRetryBudget(config);
+		retryBudget.deposit();
+		CircuitBreaker circuitBreaker = ConnectionManager.getInstance()
+				.getCircuitBreaker(config);
+		int retry = 0;
+		long retryDelay = 0;
+		Exception previousException = null;
+		while (true) {
+			if (deadline != null && deadline.isExpired()) {
+				throw new DeadlineExceededException("Deadline exceeded after "
+						+ retry + " retries", previousException);
+			}
+			if (!circuitBreaker.tryAcquirePermission()) {
+				throw new CircuitBreakerOpenException(circuitBreaker
+						.getEndpoint());
+			}
 			// This exception is used to make final log more explicit
 			Exception lastException = null;
-			int retry = 0;
-			retryLoop:
-			do {
+			String errorResponse = Constants.EMPTY_STRING;
+			int responsecode = -1;
+			long retryAfter = -1;
+			boolean failed = true;
+			long startTime = System.currentTimeMillis();
+			OutputStream outputStream = null;
+			InputStream inputStream = null;
+			try {
+				if (hasBody) {
+					outputStream = this.connection.getOutputStream();
+					body.writeTo(outputStream);
+					outputStream.flush();
+				}
+				responsecode = connection.getResponseCode();
+				inputStream = decode(connection.getInputStream());
+				if (responsecode >= 200 && responsecode < 300) {
+					// Only transport errors count against the endpoint, a
+					// handler failing to parse the response is a client error
+					failed = false;
+					return handler.handle(responsecode, inputStream,
+							getResponseCharset(), getResponseContentLength());
+				} else {
+					failed = false;
+					String response = StringResponseHandler.read(inputStream,
+							getResponseCharset(), getResponseContentLength());
+					throw new ClientActionRequiredException(
+							"Response Code : " + responsecode
+									+ " with response : " + response);
+				}
+			} catch (IOException e) {
+				lastException = e;
+				responsecode = -1;
 				try {
-					if ("POST".equalsIgnoreCase(connection.getRequestMethod())
-							||"PUT".equalsIgnoreCase(connection.getRequestMethod())
-							||"PATCH".equalsIgnoreCase(connection.getRequestMethod())) {
-						writer = new OutputStreamWriter(
-								this.connection.getOutputStream(),
-								Charset.forName(Constants.ENCODING_FORMAT));
-						writer.write(payload);
-						writer.flush();
-					}
 					responsecode = connection.getResponseCode();
-					reader = new BufferedReader(new InputStreamReader(
-							connection.getInputStream(),
-							Constants.ENCODING_FORMAT));
-					if (responsecode >= 200 && responsecode < 300) {
-						successResponse = read(reader);
-						LoggingManager.debug(HttpConnection.class,
-								"Response : " + successResponse);
-						break retryLoop;
-					} else {
-						successResponse = read(reader);
-						throw new ClientActionRequiredException(
-								"Response Code : " + responsecode
-										+ " with response : " + successResponse);
-					}
-				} catch (IOException e) {
-					lastException = e;
-					try {
-						responsecode = connection.getResponseCode();
-						if (connection.getErrorStream() != null) {
-							reader = new BufferedReader(new InputStreamReader(
-									connection.getErrorStream(),
-									Constants.ENCODING_FORMAT));
-							errorResponse = read(reader);
-							LoggingManager.severe(HttpConnection.class,
-									"Error code : " + responsecode
-											+ " with response : " + errorResponse);
-						}
-						if ((errorResponse == null)
-								|| (errorResponse.length() == 0)) {
-							errorResponse = e.getMessage();
+					InputStream errorStream = decode(connection
+							.getErrorStream());
+					if (errorStream != null) {
+						try {
+							errorResponse = StringResponseHandler.read(
+									errorStream, getResponseCharset(), -1);
+						} finally {
+							errorStream.close();
 						}
-						if (responsecode <= 500) {
-							throw new HttpErrorException(responsecode,
-									errorResponse,
-									"Error code : "
-									+ responsecode + " with response : "
-									+ errorResponse, e);
-						}
-					} catch (HttpErrorException ex) {
-						throw ex;
-					} catch (Exception ex) {
-						lastException = ex;
-						LoggingManager.severe(this.getClass(), "Caught exception while handling error response", ex);
+						LoggingManager.severe(HttpConnection.class,
+								"Error code : " + responsecode
+										+ " with response : " + errorResponse);
 					}
+					if ((errorResponse == null)
+							|| (errorResponse.length() == 0)) {
+						errorResponse = e.getMessage();
+					}
+					retryAfter = getRetryAfter();
+					// A 2xx response reaching here could not be read
+					failed = responsecode >= 500
+							|| (responsecode >= 200 && responsecode < 300);
+				} catch (Exception ex) {
+					lastException = ex;
+					LoggingManager.severe(this.getClass(), "Caught exception while handling error response", ex);
 				}
-				retry++;
-				if (retry > 0) {
-					LoggingManager.severe(HttpConnection.class, " Retry  No : " + retry + "...");
-					Thread.sleep(this.config.getRetryDelay());
-				}
-			} while (retry < this.config.getMaxRetry());
-			if (successResponse.trim().length() <= 0 && !(responsecode >= 200 && responsecode < 300)) {
-				throw new HttpErrorException("retry fails..  check log for more information", lastException);
-			}
-		} finally {
-			try {
-				if (reader != null) {
-					reader.close();
-				}
-				if (writer != null) {
-					writer.close();
+				if (!retryPolicy.isRetryable(httpMethod, headers, responsecode,
+						e)) {
+					throw newHttpErrorException(responsecode, errorResponse,
+							lastException, e);
 				}
 			} finally {
-				reader = null;
-				writer = null;
+				circuitBreaker.onResult(failed, System.currentTimeMillis()
+						- startTime);
+				closeQuietly(inputStream);
+				closeQuietly(outputStream);
+			}
+			previousException = lastException;
+			retry++;
+			if (retry >= this.config.getMaxRetry()) {
+				throw newHttpErrorException(responsecode, errorResponse,
+						lastException, lastException);
+			}
+			retryDelay = retryPolicy.getRetryDelay(retry, retryDelay,
+					retryAfter);
+			if (retryDelay < 0) {
+				LoggingManager.severe(HttpConnection.class,
+						"Retry-After exceeds the maximum retry delay");
+				throw newHttpErrorException(responsecode, errorResponse,
+						lastException, lastException);
 			}
+			if (!retryBudget.tryAcquire()) {
+				LoggingManager.severe(HttpConnection.class,
+						"Retry budget exhausted for " + config.getEndPointUrl());
+				throw newHttpErrorException(responsecode, errorResponse,
+						lastException, lastException);
+			}
+			if (deadline != null && retryDelay >= deadline.getRemaining()) {
+				throw new DeadlineExceededException(
+						"Deadline leaves no time for retry " + retry,
+						lastException);
+			}
+			LoggingManager.severe(HttpConnection.class, " Retry  No : " + retry
+					+ " in " + retryDelay + " ms...");
+			Thread.sleep(retryDelay);
+			createAndconfigureHttpConnection(config);
+			prepare(headers, hasBody, body.getContentLength(), deadline);
 		}
-		return successResponse;
+	}
+
+	/**
+	 * Executes HTTP request on a worker thread of the
+	 * {@link java.util.concurrent.ExecutorService} configured in
+	 * {@link ConnectionManager}, the calling thread is not blocked. Failures
+	 * are reported through the returned {@link Future} as an
+	 * {@link java.util.concurrent.ExecutionException} wrapping the exception
+	 * thrown by execute(..). A leased connection must not be released before
+	 * the returned {@link Future} is done
+	 * 
+	 * @param url
+	 * @param payload
+	 * @param headers
+	 * @return {@link Future} of the String response
+	 */
+	public Future<String> executeAsync(final String url, final String payload,
+			final Map<String, String> headers) {
+		final Deadline deadline = Deadline.getCurrent();
+		return ConnectionManager.getInstance().getExecutorService()
+				.submit(new Callable<String>() {
+					public String call() throws Exception {
+						Deadline.setCurrent(deadline);
+						try {
+							return execute(url, payload, headers);
+						} finally {
+							Deadline.setCurrent(null);
+						}
+					}
+				});
 	}
 
 	/**
@@ -179,6 +315,17 @@ public abstract class HttpConnection {
 	public abstract void createAndconfigureHttpConnection(
 			HttpConfiguration clientConfiguration) throws IOException;
 
+	/**
+	 * Reads the content of the passed {@link BufferedReader} line by line,
+	 * dropping line separators
+	 * 
+	 * @param reader
+	 * @return Content as String
+	 * @throws IOException
+	 * @deprecated responses are read through {@link HttpResponseHandler},
+	 *             see {@link StringResponseHandler}
+	 */
+	@Deprecated
 	protected String read(BufferedReader reader) throws IOException {
 		String inputLine = Constants.EMPTY_STRING;
 		StringBuilder response = new StringBuilder();
@@ -188,6 +335,158 @@ public abstract class HttpConnection {
 		return response.toString();
 	}
 
+	/**
+	 * Applies the request headers, streaming mode and the timeouts left by
+	 * the {@link Deadline} to a newly created connection
+	 * 
+	 * @param headers
+	 * @param hasBody
+	 * @param contentLength
+	 * @param deadline
+	 */
+	private void prepare(Map<String, String> headers, boolean hasBody,
+			long contentLength, Deadline deadline) {
+		if (deadline != null) {
+			connection.setConnectTimeout(deadline.shrink(config
+					.getConnectionTimeout()));
+			connection.setReadTimeout(deadline.shrink(config.getReadTimeout()));
+		}
+		if (hasBody && contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+			connection.setFixedLengthStreamingMode((int) contentLength);
+		}
+		if (headers != null) {
+			setHttpHeaders(headers);
+		}
+		if (config.isCompressionEnabled()
+				&& connection
+						.getRequestProperty(Constants.HTTP_ACCEPT_ENCODING_HEADER) == null) {
+			connection.setRequestProperty(Constants.HTTP_ACCEPT_ENCODING_HEADER,
+					ContentDecoder.ACCEPT_ENCODING);
+		}
+	}
+
+	/**
+	 * Returns the configured {@link RetryPolicy}, an
+	 * {@link ExponentialBackoffRetryPolicy} based on the retry delays of the
+	 * {@link HttpConfiguration} if none is set
+	 * 
+	 * @return {@link RetryPolicy}
+	 */
+	protected RetryPolicy getRetryPolicy() {
+		if (config.getRetryPolicy() != null) {
+			return config.getRetryPolicy();
+		}
+		long baseDelay = Math.max(0, config.getRetryDelay());
+		return new ExponentialBackoffRetryPolicy(baseDelay, Math.max(baseDelay,
+				config.getMaxRetryDelay()));
+	}
+
+	/**
+	 * Returns the delay requested by the Retry-After header of the response,
+	 * given either in seconds or as a HTTP date
+	 * 
+	 * @return delay in milliseconds, -1 if absent or invalid
+	 */
+	protected long getRetryAfter() {
+		String retryAfter = connection
+				.getHeaderField(Constants.HTTP_RETRY_AFTER_HEADER);
+		if (retryAfter == null || retryAfter.trim().length() == 0) {
+			return -1;
+		}
+		retryAfter = retryAfter.trim();
+		try {
+			return Math.max(0, Long.parseLong(retryAfter) * 1000);
+		} catch (NumberFormatException e) {
+			SimpleDateFormat format = new SimpleDateFormat(
+					"EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+			format.setTimeZone(TimeZone.getTimeZone("GMT"));
+			try {
+				return Math.max(0, format.parse(retryAfter).getTime()
+						- System.currentTimeMillis());
+			} catch (ParseException pe) {
+				return -1;
+			}
+		}
+	}
+
+	/*
+	 * Creates the exception reported when a failed attempt is not retried
+	 */
+	private HttpErrorException newHttpErrorException(int responsecode,
+			String errorResponse, Exception lastException, Exception cause) {
+		if (responsecode >= 0) {
+			return new HttpErrorException(responsecode, errorResponse,
+					"Error code : " + responsecode + " with response : "
+							+ errorResponse, cause);
+		}
+		return new HttpErrorException(
+				"retry fails..  check log for more information", lastException);
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				LoggingManager.debug(HttpConnection.class,
+						"Failed to close stream");
+			}
+		}
+	}
+
+	/**
+	 * Wraps a response stream to inflate a gzip or deflate Content-Encoding
+	 * 
+	 * @param inputStream
+	 *            Response or error stream of the connection
+	 * @return decoded {@link InputStream}
+	 * @throws IOException
+	 */
+	protected InputStream decode(InputStream inputStream) throws IOException {
+		return ContentDecoder.decode(inputStream, connection
+				.getContentEncoding(), connection.getContentLength(),
+				ConnectionManager.getInstance().getCompressionStatistics());
+	}
+
+	/**
+	 * Returns the length of the decoded response body
+	 * 
+	 * @return length in bytes, -1 if unknown or the response is compressed
+	 */
+	protected long getResponseContentLength() {
+		String contentEncoding = connection.getContentEncoding();
+		if (contentEncoding != null
+				&& ContentDecoder.isSupported(contentEncoding.trim()
+						.toLowerCase(Locale.ENGLISH))) {
+			return -1;
+		}
+		return connection.getContentLength();
+	}
+
+	/**
+	 * Returns the charset of the response from the Content-Type header,
+	 * {@link Constants#ENCODING_FORMAT} if none is declared
+	 * 
+	 * @return charset name
+	 */
+	protected String getResponseCharset() {
+		String contentType = connection.getContentType();
+		if (contentType != null) {
+			String[] params = contentType.split(";");
+			for (int i = 1; i < params.length; i++) {
+				String param = params[i].trim();
+				if (param.toLowerCase(Locale.ENGLISH).startsWith("charset=")) {
+					String charset = param.substring("charset=".length())
+							.replace("\"", "").trim();
+					if (charset.length() > 0) {
+						return charset;
+					}
+				}
+			}
+		}
+		return Constants.ENCODING_FORMAT;
+	}
+
 	/**
 	 * Set headers for HttpsURLConnection object
 	 * 
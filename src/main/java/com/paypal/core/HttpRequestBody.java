@@ -0,0 +1,157 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/**
+ * <code>HttpRequestBody</code> represents the pre-encoded payload of a HTTP
+ * request. The body is written straight to the connection output stream, and
+ * a known content length enables fixed-length streaming so the payload is
+ * neither copied nor buffered by the transport. Subclass this class to stream
+ * a payload from a custom source; writeTo(..) is called once per attempt and
+ * must write the same bytes every time.
+ *
+ */
+public abstract class HttpRequestBody {
+
+	/**
+	 * Returns the exact length of the body in bytes
+	 *
+	 * @return length in bytes, -1 if unknown
+	 */
+	public abstract long getContentLength();
+
+	/**
+	 * Writes the body to the passed {@link OutputStream}
+	 *
+	 * @param outputStream
+	 *            {@link OutputStream} of the connection
+	 * @throws IOException
+	 */
+	public abstract void writeTo(OutputStream outputStream) throws IOException;
+
+	/**
+	 * Creates a {@link HttpRequestBody} from a String payload encoded in
+	 * UTF-8
+	 *
+	 * @param payload
+	 *            Payload
+	 * @return {@link HttpRequestBody}
+	 */
+	public static HttpRequestBody create(String payload) {
+		return create(payload, Constants.ENCODING_FORMAT);
+	}
+
+	/**
+	 * Creates a {@link HttpRequestBody} from a String payload encoded in the
+	 * passed charset
+	 *
+	 * @param payload
+	 *            Payload
+	 * @param charset
+	 *            Charset name
+	 * @return {@link HttpRequestBody}
+	 */
+	public static HttpRequestBody create(String payload, String charset) {
+		try {
+			return new ByteArrayRequestBody(payload != null ? payload
+					.getBytes(charset) : new byte[0], payload);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalArgumentException("Unsupported charset : "
+					+ charset, e);
+		}
+	}
+
+	/**
+	 * Creates a {@link HttpRequestBody} from pre-encoded bytes. The array is
+	 * not copied
+	 *
+	 * @param bytes
+	 *            Encoded payload
+	 * @return {@link HttpRequestBody}
+	 */
+	public static HttpRequestBody create(byte[] bytes) {
+		return new ByteArrayRequestBody(bytes, null);
+	}
+
+	/**
+	 * Creates a {@link HttpRequestBody} from the remaining bytes of a
+	 * {@link ByteBuffer}. The buffer is not copied and its position is not
+	 * modified
+	 *
+	 * @param buffer
+	 *            Encoded payload
+	 * @return {@link HttpRequestBody}
+	 */
+	public static HttpRequestBody create(ByteBuffer buffer) {
+		return new ByteBufferRequestBody(buffer);
+	}
+
+	/**
+	 * {@link HttpRequestBody} backed by a byte array
+	 */
+	private static class ByteArrayRequestBody extends HttpRequestBody {
+
+		private final byte[] bytes;
+
+		/**
+		 * Original String payload, kept for logging only
+		 */
+		private final String payload;
+
+		ByteArrayRequestBody(byte[] bytes, String payload) {
+			this.bytes = bytes;
+			this.payload = payload;
+		}
+
+		public long getContentLength() {
+			return bytes.length;
+		}
+
+		public void writeTo(OutputStream outputStream) throws IOException {
+			outputStream.write(bytes);
+		}
+
+		public String toString() {
+			return payload != null ? payload : "<" + bytes.length + " bytes>";
+		}
+	}
+
+	/**
+	 * {@link HttpRequestBody} backed by a {@link ByteBuffer}
+	 */
+	private static class ByteBufferRequestBody extends HttpRequestBody {
+
+		private final ByteBuffer buffer;
+
+		ByteBufferRequestBody(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		public long getContentLength() {
+			return buffer.remaining();
+		}
+
+		public void writeTo(OutputStream outputStream) throws IOException {
+			ByteBuffer source = buffer.duplicate();
+			if (source.hasArray()) {
+				outputStream.write(source.array(), source.arrayOffset()
+						+ source.position(), source.remaining());
+			} else {
+				byte[] chunk = new byte[Math.min(8192, source.remaining())];
+				while (source.hasRemaining()) {
+					int length = Math.min(chunk.length, source.remaining());
+					source.get(chunk, 0, length);
+					outputStream.write(chunk, 0, length);
+				}
+			}
+		}
+
+		public String toString() {
+			return "<" + buffer.remaining() + " bytes>";
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <code>HttpResponseHandler</code> consumes the body of a successful HTTP
+ * response straight from the connection stream, letting callers parse the
+ * response (for example with a Gson JsonReader, StAX or the NVP decoder)
+ * without materializing it as a String first. See
+ * {@link StringResponseHandler} for the String adapter.
+ * 
+ * @param <T>
+ *            Type produced from the response body
+ */
+public interface HttpResponseHandler<T> {
+
+	/**
+	 * Handles the body of a successful (2xx) response. The stream is closed by
+	 * the caller once this method returns
+	 * 
+	 * @param responseCode
+	 *            HTTP response code
+	 * @param inputStream
+	 *            Response body stream
+	 * @param charset
+	 *            Charset of the response, from the Content-Type header or
+	 *            UTF-8 if absent
+	 * @param contentLength
+	 *            Length of the response body in bytes, -1 if unknown
+	 * @return Result of handling the response
+	 * @throws IOException
+	 */
+	T handle(int responseCode, InputStream inputStream, String charset,
+			long contentLength) throws IOException;
+
+}
@@ -46,6 +46,14 @@ public final class LoggingManager {
 		}
 	}
 
+	/**
+	 * Returns true if debug messages of the class are logged, used to skip
+	 * building expensive messages
+	 */
+	public static boolean isDebugEnabled(Class<?> thisClass) {
+		return getLogger(thisClass).isLoggable(Level.FINEST);
+	}
+
 	public static void debug(Class<?> thisClass, Object message) {
 		log(Level.FINEST, thisClass, message);
 	}
@@ -0,0 +1,75 @@
+package com.paypal.core;
+
+/**
+ * <code>RetryBudget</code> is a token bucket limiting the retries sent to an
+ * endpoint across all threads. Every request deposits a fraction of a token
+ * and every retry withdraws a whole token, so retries stay below that
+ * fraction of the traffic once the initial reserve is spent. A small reserve
+ * is refilled over time so that low traffic endpoints can still retry.
+ *
+ */
+final class RetryBudget {
+
+	/**
+	 * Maximum number of tokens
+	 */
+	static final double MAX_TOKENS = 10;
+
+	/**
+	 * Tokens refilled per second
+	 */
+	static final double REFILL_PER_SECOND = 1;
+
+	/**
+	 * Tokens deposited per request
+	 */
+	private final double ratio;
+
+	private double tokens = MAX_TOKENS;
+
+	private long lastRefill = System.currentTimeMillis();
+
+	RetryBudget(double ratio) {
+		this.ratio = ratio > 0 ? ratio : 0;
+	}
+
+	/**
+	 * Records a request
+	 */
+	synchronized void deposit() {
+		refill();
+		tokens = Math.min(MAX_TOKENS, tokens + ratio);
+	}
+
+	/**
+	 * Withdraws a token for a retry
+	 *
+	 * @return true if the retry is within budget
+	 */
+	synchronized boolean tryAcquire() {
+		refill();
+		if (tokens >= 1) {
+			tokens -= 1;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return number of available tokens
+	 */
+	synchronized double getAvailableTokens() {
+		refill();
+		return tokens;
+	}
+
+	private void refill() {
+		long now = System.currentTimeMillis();
+		if (now > lastRefill) {
+			tokens = Math.min(MAX_TOKENS, tokens + (now - lastRefill)
+					* REFILL_PER_SECOND / 1000);
+			lastRefill = now;
+		}
+	}
+
+}
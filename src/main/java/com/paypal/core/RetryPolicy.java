@@ -0,0 +1,47 @@
+package com.paypal.core;
+
+import java.util.Map;
+
+/**
+ * <code>RetryPolicy</code> decides whether a failed HTTP attempt made by
+ * {@link HttpConnection} is retried and how long to wait before the next
+ * attempt. The number of attempts is bounded by
+ * {@link HttpConfiguration#getMaxRetry()} and by the retry budget of the
+ * endpoint. Set a custom policy through
+ * {@link HttpConfiguration#setRetryPolicy(RetryPolicy)}; implementations
+ * must be thread safe.
+ *
+ */
+public interface RetryPolicy {
+
+	/**
+	 * Returns whether a failed attempt may be retried
+	 *
+	 * @param httpMethod
+	 *            HTTP method of the request
+	 * @param headers
+	 *            Request headers, may be null
+	 * @param responseCode
+	 *            HTTP response code, -1 if no response was received
+	 * @param exception
+	 *            Exception raised by the attempt
+	 * @return true if the request may be sent again
+	 */
+	boolean isRetryable(String httpMethod, Map<String, String> headers,
+			int responseCode, Exception exception);
+
+	/**
+	 * Returns the time to wait before the next attempt
+	 *
+	 * @param retry
+	 *            Number of the upcoming retry, starting at 1
+	 * @param previousDelay
+	 *            Delay used before the previous retry, 0 for the first retry
+	 * @param retryAfter
+	 *            Delay requested by the server through a Retry-After header
+	 *            in milliseconds, -1 if absent
+	 * @return delay in milliseconds, or -1 to stop retrying
+	 */
+	long getRetryDelay(int retry, long previousDelay, long retryAfter);
+
+}
@@ -0,0 +1,432 @@
+package com.paypal.core;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <code>SDKConfig</code> is an immutable snapshot of a configuration
+ * {@link Map} combined with the default configuration. The numeric and
+ * boolean HTTP settings are parsed and validated once when the snapshot is
+ * created, and snapshots are cached by the content of the configuration
+ * {@link Map}, so the request path only reads final fields instead of parsing
+ * Strings and copying the default {@link Map} on every call.
+ *
+ */
+public final class SDKConfig {
+
+	/**
+	 * Maximum number of cached snapshots, the cache is cleared when exceeded
+	 */
+	private static final int MAX_SNAPSHOTS = 64;
+
+	/**
+	 * Snapshots keyed by a copy of the configuration {@link Map} they were
+	 * created from
+	 */
+	private static final ConcurrentMap<Map<String, String>, SDKConfig> SNAPSHOTS = new ConcurrentHashMap<Map<String, String>, SDKConfig>();
+
+	/**
+	 * Read-only configuration combined with defaults
+	 */
+	private final SnapshotMap configurationMap;
+
+	private final boolean googleAppEngine;
+
+	private final boolean useHttpProxy;
+
+	private final String proxyHost;
+
+	private final int proxyPort;
+
+	private final String proxyUserName;
+
+	private final String proxyPassword;
+
+	private final int connectionTimeout;
+
+	private final int maxRetry;
+
+	private final int readTimeout;
+
+	private final int maxHttpConnection;
+
+	private final String ipAddress;
+
+	private final String connectionClass;
+
+	private final boolean compressionEnabled;
+
+	private final int maxRetryDelay;
+
+	private final double retryBudgetRatio;
+
+	private final long requestTimeout;
+
+	private final float circuitBreakerFailureRate;
+
+	private final float circuitBreakerSlowCallRate;
+
+	private final long circuitBreakerSlowCallDuration;
+
+	private final long circuitBreakerOpenDuration;
+
+	private SDKConfig(Map<String, String> configurationMap) {
+		Map<String, String> map = ConfigurationView.of(configurationMap);
+		this.configurationMap = new SnapshotMap(map, this);
+
+		// Optional settings default to the HttpConfiguration defaults
+		HttpConfiguration defaults = new HttpConfiguration();
+		googleAppEngine = Boolean.parseBoolean(map
+				.get(Constants.GOOGLE_APP_ENGINE));
+		useHttpProxy = Boolean.parseBoolean(map.get(Constants.USE_HTTP_PROXY));
+		proxyHost = map.get(Constants.HTTP_PROXY_HOST);
+		proxyPort = useHttpProxy ? parseInt(map, Constants.HTTP_PROXY_PORT)
+				: defaults.getProxyPort();
+		proxyUserName = map.get(Constants.HTTP_PROXY_USERNAME);
+		proxyPassword = map.get(Constants.HTTP_PROXY_PASSWORD);
+		connectionTimeout = parseInt(map, Constants.HTTP_CONNECTION_TIMEOUT);
+		maxRetry = parseInt(map, Constants.HTTP_CONNECTION_RETRY);
+		readTimeout = parseInt(map, Constants.HTTP_CONNECTION_READ_TIMEOUT);
+		maxHttpConnection = parseInt(map,
+				Constants.HTTP_CONNECTION_MAX_CONNECTION);
+		ipAddress = map.get(Constants.DEVICE_IP_ADDRESS);
+		connectionClass = map.get(Constants.HTTP_CONNECTION_CLASS);
+		compressionEnabled = Boolean.parseBoolean(map
+				.get(Constants.HTTP_CONNECTION_COMPRESSION));
+		maxRetryDelay = map.get(Constants.HTTP_CONNECTION_MAX_RETRY_DELAY) != null ? parseInt(
+				map, Constants.HTTP_CONNECTION_MAX_RETRY_DELAY) : defaults
+				.getMaxRetryDelay();
+		retryBudgetRatio = map.get(Constants.HTTP_CONNECTION_RETRY_BUDGET_RATIO) != null ? parseDouble(
+				map, Constants.HTTP_CONNECTION_RETRY_BUDGET_RATIO) : defaults
+				.getRetryBudgetRatio();
+		requestTimeout = map.get(Constants.HTTP_REQUEST_TIMEOUT) != null ? parseLong(
+				map, Constants.HTTP_REQUEST_TIMEOUT) : defaults
+				.getRequestTimeout();
+		circuitBreakerFailureRate = map
+				.get(Constants.HTTP_CIRCUIT_BREAKER_FAILURE_RATE) != null ? (float) parseDouble(
+				map, Constants.HTTP_CIRCUIT_BREAKER_FAILURE_RATE) : defaults
+				.getCircuitBreakerFailureRate();
+		circuitBreakerSlowCallRate = map
+				.get(Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_RATE) != null ? (float) parseDouble(
+				map, Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_RATE) : defaults
+				.getCircuitBreakerSlowCallRate();
+		circuitBreakerSlowCallDuration = map
+				.get(Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_DURATION) != null ? parseLong(
+				map, Constants.HTTP_CIRCUIT_BREAKER_SLOW_CALL_DURATION)
+				: defaults.getCircuitBreakerSlowCallDuration();
+		circuitBreakerOpenDuration = map
+				.get(Constants.HTTP_CIRCUIT_BREAKER_OPEN_DURATION) != null ? parseLong(
+				map, Constants.HTTP_CIRCUIT_BREAKER_OPEN_DURATION) : defaults
+				.getCircuitBreakerOpenDuration();
+	}
+
+	/**
+	 * Returns the snapshot of the passed configuration combined with the
+	 * default configuration. Snapshots are cached by content, so the passed
+	 * {@link Map} may be modified afterwards without affecting the snapshot
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map}, a {@link Map} returned by
+	 *            getConfigurationMap() or a {@link ConfigurationView} that
+	 *            was resolved before resolves to its snapshot directly
+	 * @return {@link SDKConfig}
+	 * @throws NumberFormatException
+	 *             if a numeric setting is missing or invalid
+	 */
+	public static SDKConfig getInstance(Map<String, String> configurationMap) {
+		if (configurationMap instanceof SnapshotMap) {
+			return ((SnapshotMap) configurationMap).config;
+		}
+		if (configurationMap instanceof ConfigurationView) {
+			ConfigurationView view = (ConfigurationView) configurationMap;
+			if (view.sdkConfig == null) {
+				view.sdkConfig = lookup(view);
+			}
+			return view.sdkConfig;
+		}
+		if (configurationMap == null) {
+			configurationMap = Collections.emptyMap();
+		}
+		return lookup(configurationMap);
+	}
+
+	private static SDKConfig lookup(Map<String, String> configurationMap) {
+		SDKConfig config = SNAPSHOTS.get(configurationMap);
+		if (config == null) {
+			Map<String, String> key = new HashMap<String, String>(
+					configurationMap);
+			config = new SDKConfig(key);
+			if (SNAPSHOTS.size() >= MAX_SNAPSHOTS) {
+				SNAPSHOTS.clear();
+			}
+			SDKConfig existing = SNAPSHOTS.putIfAbsent(key, config);
+			if (existing != null) {
+				config = existing;
+			}
+		}
+		return config;
+	}
+
+	/**
+	 * Applies the HTTP settings shared by all services to the passed
+	 * {@link HttpConfiguration}
+	 *
+	 * @param httpConfiguration
+	 *            {@link HttpConfiguration}
+	 * @return the passed {@link HttpConfiguration}
+	 */
+	public HttpConfiguration applyTo(HttpConfiguration httpConfiguration) {
+		httpConfiguration.setGoogleAppEngine(googleAppEngine);
+		if (useHttpProxy) {
+			httpConfiguration.setProxyPort(proxyPort);
+			httpConfiguration.setProxyHost(proxyHost);
+			httpConfiguration.setProxyUserName(proxyUserName);
+			httpConfiguration.setProxyPassword(proxyPassword);
+		}
+		httpConfiguration.setConnectionTimeout(connectionTimeout);
+		httpConfiguration.setMaxRetry(maxRetry);
+		httpConfiguration.setReadTimeout(readTimeout);
+		httpConfiguration.setMaxHttpConnection(maxHttpConnection);
+		httpConfiguration.setIpAddress(ipAddress);
+		httpConfiguration.setCompressionEnabled(compressionEnabled);
+		httpConfiguration.setMaxRetryDelay(maxRetryDelay);
+		httpConfiguration.setRetryBudgetRatio(retryBudgetRatio);
+		httpConfiguration.setRequestTimeout(requestTimeout);
+		httpConfiguration.setCircuitBreakerFailureRate(circuitBreakerFailureRate);
+		httpConfiguration
+				.setCircuitBreakerSlowCallRate(circuitBreakerSlowCallRate);
+		httpConfiguration
+				.setCircuitBreakerSlowCallDuration(circuitBreakerSlowCallDuration);
+		httpConfiguration
+				.setCircuitBreakerOpenDuration(circuitBreakerOpenDuration);
+		return httpConfiguration;
+	}
+
+	/**
+	 * Returns the configuration combined with defaults as a read-only
+	 * {@link Map}
+	 *
+	 * @return read-only {@link Map}
+	 */
+	public Map<String, String> getConfigurationMap() {
+		return configurationMap;
+	}
+
+	/**
+	 * @param key
+	 *            Configuration key
+	 * @return the configured value, null if not configured
+	 */
+	public String get(String key) {
+		return configurationMap.get(key);
+	}
+
+	/**
+	 * @return the googleAppEngine
+	 */
+	public boolean isGoogleAppEngine() {
+		return googleAppEngine;
+	}
+
+	/**
+	 * @return the useHttpProxy
+	 */
+	public boolean isUseHttpProxy() {
+		return useHttpProxy;
+	}
+
+	/**
+	 * @return the proxyHost
+	 */
+	public String getProxyHost() {
+		return proxyHost;
+	}
+
+	/**
+	 * @return the proxyPort
+	 */
+	public int getProxyPort() {
+		return proxyPort;
+	}
+
+	/**
+	 * @return the proxyUserName
+	 */
+	public String getProxyUserName() {
+		return proxyUserName;
+	}
+
+	/**
+	 * @return the proxyPassword
+	 */
+	public String getProxyPassword() {
+		return proxyPassword;
+	}
+
+	/**
+	 * @return the connectionTimeout
+	 */
+	public int getConnectionTimeout() {
+		return connectionTimeout;
+	}
+
+	/**
+	 * @return the maxRetry
+	 */
+	public int getMaxRetry() {
+		return maxRetry;
+	}
+
+	/**
+	 * @return the readTimeout
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * @return the maxHttpConnection
+	 */
+	public int getMaxHttpConnection() {
+		return maxHttpConnection;
+	}
+
+	/**
+	 * @return the ipAddress
+	 */
+	public String getIpAddress() {
+		return ipAddress;
+	}
+
+	/**
+	 * @return the connectionClass
+	 */
+	public String getConnectionClass() {
+		return connectionClass;
+	}
+
+	/**
+	 * @return the compressionEnabled
+	 */
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * @return the maxRetryDelay
+	 */
+	public int getMaxRetryDelay() {
+		return maxRetryDelay;
+	}
+
+	/**
+	 * @return the retryBudgetRatio
+	 */
+	public double getRetryBudgetRatio() {
+		return retryBudgetRatio;
+	}
+
+	/**
+	 * @return the requestTimeout
+	 */
+	public long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * @return the circuitBreakerFailureRate
+	 */
+	public float getCircuitBreakerFailureRate() {
+		return circuitBreakerFailureRate;
+	}
+
+	/**
+	 * @return the circuitBreakerSlowCallRate
+	 */
+	public float getCircuitBreakerSlowCallRate() {
+		return circuitBreakerSlowCallRate;
+	}
+
+	/**
+	 * @return the circuitBreakerSlowCallDuration
+	 */
+	public long getCircuitBreakerSlowCallDuration() {
+		return circuitBreakerSlowCallDuration;
+	}
+
+	/**
+	 * @return the circuitBreakerOpenDuration
+	 */
+	public long getCircuitBreakerOpenDuration() {
+		return circuitBreakerOpenDuration;
+	}
+
+	private static int parseInt(Map<String, String> map, String key) {
+		String value = map.get(key);
+		try {
+			return Integer.parseInt(value != null ? value.trim() : null);
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("Invalid value for " + key
+					+ " : " + value);
+		}
+	}
+
+	private static long parseLong(Map<String, String> map, String key) {
+		String value = map.get(key);
+		try {
+			return Long.parseLong(value != null ? value.trim() : null);
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("Invalid value for " + key
+					+ " : " + value);
+		}
+	}
+
+	private static double parseDouble(Map<String, String> map, String key) {
+		String value = map.get(key);
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			throw new NumberFormatException("Invalid value for " + key
+					+ " : " + value);
+		}
+	}
+
+	/**
+	 * Read-only {@link Map} view of a snapshot, carrying a reference to its
+	 * {@link SDKConfig} so that it resolves without a cache lookup
+	 */
+	private static final class SnapshotMap extends
+			AbstractMap<String, String> {
+
+		private final Map<String, String> map;
+
+		private final SDKConfig config;
+
+		SnapshotMap(Map<String, String> map, SDKConfig config) {
+			this.map = map;
+			this.config = config;
+		}
+
+		public String get(Object key) {
+			return map.get(key);
+		}
+
+		public boolean containsKey(Object key) {
+			return map.containsKey(key);
+		}
+
+		public int size() {
+			return map.size();
+		}
+
+		public Set<Map.Entry<String, String>> entrySet() {
+			return map.entrySet();
+		}
+	}
+
+}
@@ -1,8 +1,6 @@
 package com.paypal.core;
 
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
@@ -247,9 +245,9 @@ public final class SDKUtil {
 	}
 
 	/**
-	 * Constructs a Map<String, String> from a {@link Properties} object by
-	 * combining the default values. See {@link ConfigManager} for default
-	 * values
+	 * Constructs a read-only Map<String, String> from a {@link Properties}
+	 * object by overlaying it on the default values. See {@link ConfigManager}
+	 * for default values and {@link ConfigurationView}
 	 * 
 	 * @param properties
 	 *            Input {@link Properties}
@@ -257,19 +255,7 @@ public final class SDKUtil {
 	 * @throws IOException
 	 */
 	public static Map<String, String> constructMap(Properties properties) {
-		Map<String, String> propsMap = null;
-		Properties combinedProperties = ConfigManager
-				.combineDefaultProperties(properties);
-		propsMap = new HashMap<String, String>();
-
-		// Since the default properties are only searchable
-		Enumeration<?> keys = combinedProperties.propertyNames();
-		while (keys.hasMoreElements()) {
-			String key = keys.nextElement().toString().trim();
-			String value = combinedProperties.getProperty(key).trim();
-			propsMap.put(key, value);
-		}
-		return propsMap;
+		return ConfigurationView.of(properties);
 	}
 
 	/**
@@ -8,37 +8,40 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 
 import com.paypal.exception.SSLConfigurationException;
 
 public abstract class SSLUtil {
 
 	/**
-	 * KeyManagerFactory used for {@link SSLContext} {@link KeyManager}
+	 * Number of TLS sessions cached per shared {@link SSLContext} for session
+	 * resumption
 	 */
-	private static final KeyManagerFactory KMF;
+	private static final int SESSION_CACHE_SIZE = 1024;
 
 	/**
 	 * Private {@link Map} used for caching {@link KeyStore}s
 	 */
-	private static final Map<String, KeyStore> STOREMAP;
+	private static final Map<String, KeyStore> STOREMAP = new ConcurrentHashMap<String, KeyStore>();
 
-	static {
-		try {
-			
-			// Initialize KeyManagerFactory and local KeyStore cache
-			KMF = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
-			STOREMAP = new HashMap<String, KeyStore>();
-		} catch (NoSuchAlgorithmException e) {
-			throw new ExceptionInInitializerError(e);
-		}
-	}
+	/**
+	 * Private {@link Map} used for caching shared {@link SSLSocketFactory}s,
+	 * one per client certificate identity
+	 */
+	private static final ConcurrentMap<String, SSLSocketFactory> FACTORYMAP = new ConcurrentHashMap<String, SSLSocketFactory>();
+
+	/**
+	 * Key of the shared {@link SSLSocketFactory} without client certificate
+	 */
+	private static final String DEFAULT_IDENTITY = "";
 
 	/**
 	 * Returns a SSLContext
@@ -97,6 +100,57 @@ public abstract class SSLUtil {
 		return keyStore;
 	}
 
+	/**
+	 * Returns the shared {@link SSLSocketFactory} without client certificate.
+	 * The factory is created once and reused across connections, letting the
+	 * JRE keep-alive cache and the TLS session cache of its {@link SSLContext}
+	 * avoid full handshakes
+	 * 
+	 * @return Shared {@link SSLSocketFactory}
+	 * @throws SSLConfigurationException
+	 */
+	public static SSLSocketFactory getSSLSocketFactory()
+			throws SSLConfigurationException {
+		SSLSocketFactory factory = FACTORYMAP.get(DEFAULT_IDENTITY);
+		if (factory == null) {
+			factory = register(DEFAULT_IDENTITY, getSSLContext(null));
+		}
+		return factory;
+	}
+
+	/**
+	 * Returns the shared {@link SSLSocketFactory} for the provided client
+	 * certificate. The key store is loaded and the {@link SSLContext} is
+	 * created only on first use of a certificate path and key
+	 * 
+	 * @param certPath
+	 * @param certPassword
+	 * @return Shared {@link SSLSocketFactory}
+	 * @throws SSLConfigurationException
+	 */
+	public static SSLSocketFactory getSSLSocketFactory(String certPath,
+			String certPassword) throws SSLConfigurationException {
+		String identity = certPath + "|" + certPassword;
+		SSLSocketFactory factory = FACTORYMAP.get(identity);
+		if (factory == null) {
+			factory = register(identity, setupClientSSL(certPath, certPassword));
+		}
+		return factory;
+	}
+
+	/*
+	 * Sizes the session cache of the SSLContext and publishes its socket
+	 * factory, the first registered factory wins a concurrent race
+	 */
+	private static SSLSocketFactory register(String identity,
+			SSLContext sslContext) {
+		sslContext.getClientSessionContext().setSessionCacheSize(
+				SESSION_CACHE_SIZE);
+		SSLSocketFactory factory = sslContext.getSocketFactory();
+		SSLSocketFactory existing = FACTORYMAP.putIfAbsent(identity, factory);
+		return existing != null ? existing : factory;
+	}
+
 	/**
 	 * Create a SSLContext with provided client certificate
 	 * 
@@ -110,8 +164,10 @@ public abstract class SSLUtil {
 		SSLContext sslContext = null;
 		try {
 			KeyStore ks = p12ToKeyStore(certPath, certPassword);
-			KMF.init(ks, certPassword.toCharArray());
-			sslContext = getSSLContext(KMF.getKeyManagers());
+			KeyManagerFactory kmf = KeyManagerFactory
+					.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			kmf.init(ks, certPassword.toCharArray());
+			sslContext = getSSLContext(kmf.getKeyManagers());
 		} catch (NoSuchAlgorithmException e) {
 			throw new SSLConfigurationException(e.getMessage(), e);
 		} catch (KeyStoreException e) {
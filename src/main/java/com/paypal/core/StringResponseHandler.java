@@ -0,0 +1,65 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * <code>StringResponseHandler</code> is the {@link HttpResponseHandler}
+ * backing the String API of {@link HttpConnection}. The body is decoded
+ * through a pooled char buffer, see {@link BufferPool}, and line separators
+ * are preserved.
+ * 
+ */
+public final class StringResponseHandler implements
+		HttpResponseHandler<String> {
+
+	/**
+	 * Shared instance, the handler is stateless
+	 */
+	public static final StringResponseHandler INSTANCE = new StringResponseHandler();
+
+	/**
+	 * Upper bound for pre-sizing the result from the content length
+	 */
+	private static final int MAX_INITIAL_CAPACITY = 1 << 20;
+
+	private StringResponseHandler() {
+	}
+
+	public String handle(int responseCode, InputStream inputStream,
+			String charset, long contentLength) throws IOException {
+		return read(inputStream, charset, contentLength);
+	}
+
+	/**
+	 * Reads a stream fully into a String
+	 * 
+	 * @param inputStream
+	 *            {@link InputStream} to read
+	 * @param charset
+	 *            Charset name
+	 * @param contentLength
+	 *            Length in bytes used to pre-size the result, -1 if unknown
+	 * @return Content as String
+	 * @throws IOException
+	 */
+	public static String read(InputStream inputStream, String charset,
+			long contentLength) throws IOException {
+		Reader reader = new InputStreamReader(inputStream, charset);
+		StringBuilder response = new StringBuilder(contentLength > 0 ? (int) Math
+				.min(contentLength, MAX_INITIAL_CAPACITY) : 256);
+		char[] buffer = BufferPool.acquireCharBuffer();
+		try {
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				response.append(buffer, 0, read);
+			}
+		} finally {
+			BufferPool.releaseCharBuffer(buffer);
+		}
+		return response.toString();
+	}
+
+}
@@ -0,0 +1,237 @@
+package com.paypal.core.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.paypal.core.ConnectionManager;
+import com.paypal.core.Deadline;
+
+/**
+ * <code>BatchExecutor</code> runs a batch of independent REST calls sharing an
+ * {@link APIContext}, with at most a configured number of calls in flight.
+ * Calls run on the calling thread and on helper workers submitted to the
+ * {@link java.util.concurrent.ExecutorService} of {@link ConnectionManager},
+ * and share its per-endpoint connection limits. The calling thread only waits
+ * for helpers that have started; helpers still queued once it runs out of
+ * calls are cancelled, so a batch started from a thread of that executor
+ * cannot deadlock. As a consequence the concurrency is silently capped by the
+ * threads of the executor that are free. Results are returned in the order
+ * of the requests, a failing call does not affect the others. Each call is
+ * sent with its own Request Id unless the {@link APIContext} masks it.
+ * 
+ */
+public final class BatchExecutor {
+
+	/**
+	 * Default number of calls in flight
+	 */
+	public static final int DEFAULT_CONCURRENCY = 8;
+
+	/**
+	 * Maximum number of calls in flight
+	 */
+	private final int concurrency;
+
+	/**
+	 * BatchExecutor with {@link #DEFAULT_CONCURRENCY}
+	 */
+	public BatchExecutor() {
+		this(DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * BatchExecutor
+	 * 
+	 * @param concurrency
+	 *            Maximum number of calls in flight. Should not exceed
+	 *            http.MaxConnections, extra calls would wait for a free
+	 *            connection slot. Values above the size of the
+	 *            {@link ConnectionManager} executor are capped by it
+	 */
+	public BatchExecutor(int concurrency) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException(
+					"concurrency must be greater than zero");
+		}
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * @return the concurrency
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * Runs the batch and waits for all calls to complete. The Request Timeout
+	 * of the {@link APIContext} applies to each call, a {@link Deadline} of
+	 * the calling thread applies to the whole batch
+	 * 
+	 * @param <T>
+	 *            Common Response Type of the requests
+	 * @param apiContext
+	 *            {@link APIContext} shared by the calls
+	 * @param requests
+	 *            {@link BatchRequest} list
+	 * @return {@link BatchResult} list in the order of the requests
+	 * @throws PayPalRESTException
+	 *             if the calling thread is interrupted
+	 */
+	public <T> List<BatchResult<T>> execute(final APIContext apiContext,
+			List<? extends BatchRequest<? extends T>> requests)
+			throws PayPalRESTException {
+		if (apiContext == null) {
+			throw new IllegalArgumentException("apiContext cannot be null");
+		}
+		final Object[] items = requests.toArray();
+		final Object[] results = new Object[items.length];
+		final AtomicInteger next = new AtomicInteger();
+		final Deadline deadline = Deadline.getCurrent();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+		final boolean maskRequestId = apiContext.getRequestId() == null;
+		int workers = Math.min(concurrency, items.length);
+		final Helpers helpers = new Helpers();
+		List<Future<?>> futures = new ArrayList<Future<?>>(Math.max(0,
+				workers - 1));
+
+		Runnable worker = new Runnable() {
+			public void run() {
+				int index;
+				while (!cancelled.get()
+						&& (index = next.getAndIncrement()) < items.length) {
+					results[index] = call(apiContext, maskRequestId,
+							(BatchRequest<?>) items[index]);
+				}
+			}
+		};
+		for (int i = 1; i < workers; i++) {
+			final Runnable task = worker;
+			try {
+				futures.add(ConnectionManager.getInstance()
+						.getExecutorService().submit(new Runnable() {
+							public void run() {
+								if (!helpers.start()) {
+									return;
+								}
+								Deadline.setCurrent(deadline);
+								try {
+									task.run();
+								} finally {
+									Deadline.setCurrent(null);
+									helpers.finish();
+								}
+							}
+						}));
+			} catch (RejectedExecutionException e) {
+				// The calling thread picks up the remaining calls
+				break;
+			}
+		}
+
+		// The calling thread is one of the workers
+		worker.run();
+		try {
+			helpers.awaitStarted();
+		} catch (InterruptedException e) {
+			cancelled.set(true);
+			Thread.currentThread().interrupt();
+			throw new PayPalRESTException("Interrupted waiting for batch", e);
+		} finally {
+			for (Future<?> future : futures) {
+				future.cancel(false);
+			}
+		}
+
+		List<BatchResult<T>> resultList = new ArrayList<BatchResult<T>>(
+				results.length);
+		for (int i = 0; i < results.length; i++) {
+			@SuppressWarnings("unchecked")
+			BatchResult<T> result = (BatchResult<T>) results[i];
+			resultList.add(result);
+		}
+		return resultList;
+	}
+
+	/**
+	 * Helper workers of a batch. Once the calling thread has run out of calls
+	 * helpers no longer start, and it waits for the running ones only
+	 */
+	private static final class Helpers {
+
+		private int running;
+
+		private boolean closed;
+
+		synchronized boolean start() {
+			if (closed) {
+				return false;
+			}
+			running++;
+			return true;
+		}
+
+		synchronized void finish() {
+			running--;
+			notifyAll();
+		}
+
+		synchronized void awaitStarted() throws InterruptedException {
+			closed = true;
+			while (running > 0) {
+				wait();
+			}
+		}
+	}
+
+	/*
+	 * Runs a single call, capturing its failure and timing
+	 */
+	private static <T> BatchResult<T> call(APIContext apiContext,
+			boolean maskRequestId, BatchRequest<T> request) {
+		long startTime = System.currentTimeMillis();
+		long start = System.nanoTime();
+		try {
+			T response = PayPalResource.configureAndExecute(
+					createContext(apiContext, maskRequestId, request),
+					request.getHttpMethod(), request.getResourcePath(),
+					request.getPayLoad(), request.getClazz());
+			return new BatchResult<T>(request, response, null, startTime,
+					(System.nanoTime() - start) / 1000000);
+		} catch (PayPalRESTException e) {
+			return new BatchResult<T>(request, null, e, startTime,
+					(System.nanoTime() - start) / 1000000);
+		} catch (RuntimeException e) {
+			return new BatchResult<T>(request, null, new PayPalRESTException(
+					e.getMessage(), e), startTime,
+					(System.nanoTime() - start) / 1000000);
+		}
+	}
+
+	/*
+	 * Copy of the shared APIContext carrying the Request Id of the call
+	 */
+	private static APIContext createContext(APIContext apiContext,
+			boolean maskRequestId, BatchRequest<?> request) {
+		APIContext context;
+		if (maskRequestId) {
+			context = new APIContext(apiContext.getAccessToken());
+			context.setMaskRequestId(true);
+		} else {
+			context = new APIContext(apiContext.getAccessToken(),
+					request.getRequestId() != null ? request.getRequestId()
+							: UUID.randomUUID().toString());
+		}
+		context.setConfigurationMap(apiContext.getConfigurationMap());
+		context.setHTTPHeaders(apiContext.getHTTPHeaders());
+		context.setSdkVersion(apiContext.getSdkVersion());
+		context.setRequestTimeout(apiContext.getRequestTimeout());
+		return context;
+	}
+
+}
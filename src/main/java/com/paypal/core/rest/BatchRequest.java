@@ -0,0 +1,114 @@
+package com.paypal.core.rest;
+
+/**
+ * <code>BatchRequest</code> is a single REST call of a batch run by
+ * {@link BatchExecutor}
+ * 
+ * @param <T>
+ *            Response Type for de-serialization
+ */
+public class BatchRequest<T> {
+
+	/**
+	 * Http Method verb
+	 */
+	private final HttpMethod httpMethod;
+
+	/**
+	 * Resource URI path
+	 */
+	private final String resourcePath;
+
+	/**
+	 * Payload to Service
+	 */
+	private final String payLoad;
+
+	/**
+	 * {@link Class} object used in De-serialization
+	 */
+	private final Class<T> clazz;
+
+	/**
+	 * Request Id, generated per request if not supplied
+	 */
+	private String requestId;
+
+	/**
+	 * BatchRequest
+	 * 
+	 * @param httpMethod
+	 *            Http Method verb
+	 * @param resourcePath
+	 *            Resource URI path
+	 * @param payLoad
+	 *            Payload to Service
+	 * @param clazz
+	 *            {@link Class} object used in De-serialization
+	 */
+	public BatchRequest(HttpMethod httpMethod, String resourcePath,
+			String payLoad, Class<T> clazz) {
+		if (httpMethod == null) {
+			throw new IllegalArgumentException("httpMethod cannot be null");
+		}
+		if (resourcePath == null) {
+			throw new IllegalArgumentException("resourcePath cannot be null");
+		}
+		this.httpMethod = httpMethod;
+		this.resourcePath = resourcePath;
+		this.payLoad = payLoad;
+		this.clazz = clazz;
+	}
+
+	/**
+	 * @return the httpMethod
+	 */
+	public HttpMethod getHttpMethod() {
+		return httpMethod;
+	}
+
+	/**
+	 * @return the resourcePath
+	 */
+	public String getResourcePath() {
+		return resourcePath;
+	}
+
+	/**
+	 * @return the payLoad
+	 */
+	public String getPayLoad() {
+		return payLoad;
+	}
+
+	/**
+	 * @return the clazz
+	 */
+	public Class<T> getClazz() {
+		return clazz;
+	}
+
+	/**
+	 * @return the requestId
+	 */
+	public String getRequestId() {
+		return requestId;
+	}
+
+	/**
+	 * Sets the PayPal Request Id of this call. Calls of a batch share an
+	 * {@link APIContext}, but each call is sent with its own Request Id so
+	 * they are not treated as duplicates
+	 * 
+	 * @param requestId
+	 *            the requestId to set
+	 */
+	public void setRequestId(String requestId) {
+		this.requestId = requestId;
+	}
+
+	public String toString() {
+		return httpMethod + " " + resourcePath;
+	}
+
+}
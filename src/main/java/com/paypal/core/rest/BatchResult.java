@@ -0,0 +1,94 @@
+package com.paypal.core.rest;
+
+/**
+ * <code>BatchResult</code> is the outcome of a {@link BatchRequest}, holding
+ * either the de-serialized response or the {@link PayPalRESTException} the
+ * call failed with, along with the timing of the call
+ * 
+ * @param <T>
+ *            Response Type
+ */
+public class BatchResult<T> {
+
+	/**
+	 * {@link BatchRequest} of this result
+	 */
+	private final BatchRequest<? extends T> request;
+
+	/**
+	 * De-serialized response
+	 */
+	private final T response;
+
+	/**
+	 * Failure of the call
+	 */
+	private final PayPalRESTException exception;
+
+	/**
+	 * Time in milliseconds the call started, zero if it did not run
+	 */
+	private final long startTime;
+
+	/**
+	 * Duration of the call in milliseconds
+	 */
+	private final long duration;
+
+	BatchResult(BatchRequest<? extends T> request, T response,
+			PayPalRESTException exception, long startTime, long duration) {
+		this.request = request;
+		this.response = response;
+		this.exception = exception;
+		this.startTime = startTime;
+		this.duration = duration;
+	}
+
+	/**
+	 * @return the request
+	 */
+	public BatchRequest<? extends T> getRequest() {
+		return request;
+	}
+
+	/**
+	 * @return the de-serialized response, null if the call failed
+	 */
+	public T getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return the exception, null if the call succeeded
+	 */
+	public PayPalRESTException getException() {
+		return exception;
+	}
+
+	/**
+	 * @return true if the call succeeded
+	 */
+	public boolean isSuccess() {
+		return exception == null;
+	}
+
+	/**
+	 * @return time in milliseconds the call started, zero if it did not run
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return duration of the call in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	public String toString() {
+		return "BatchResult [request=" + request + ", success=" + isSuccess()
+				+ ", duration=" + duration + "]";
+	}
+
+}
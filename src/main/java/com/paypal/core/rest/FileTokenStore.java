@@ -0,0 +1,256 @@
+package com.paypal.core.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.core.LoggingManager;
+
+/**
+ * <code>FileTokenStore</code> is a {@link TokenStore} that keeps one file per
+ * token in a local directory, letting processes on the same host share the
+ * token of a client. Reads and refreshes take a file lock, so only one
+ * process at a time requests a new token and the others pick it up from the
+ * file, which also survives process restarts. Files are named by the token
+ * key, a digest that includes the client secret, so only processes holding
+ * the secret can locate a token. Files are created with the permissions of
+ * the process umask; as they contain bearer tokens, the directory should only
+ * be accessible to the user running the processes.
+ * 
+ */
+public final class FileTokenStore implements TokenStore {
+
+	/**
+	 * Instances by canonical directory path
+	 */
+	private static final ConcurrentMap<String, FileTokenStore> STORES = new ConcurrentHashMap<String, FileTokenStore>();
+
+	/**
+	 * File locks are held by the process, threads of this process are
+	 * serialized on these monitors by file path
+	 */
+	private static final ConcurrentMap<String, Object> MONITORS = new ConcurrentHashMap<String, Object>();
+
+	private static final String ACCESS_TOKEN = "accessToken";
+
+	private static final String ISSUED_TIME = "issuedTime";
+
+	private static final String EXPIRY_TIME = "expiryTime";
+
+	/**
+	 * Directory of the token files
+	 */
+	private final File directory;
+
+	/**
+	 * FileTokenStore
+	 * 
+	 * @param directory
+	 *            Directory of the token files, created if it does not exist.
+	 *            It should only be accessible to the owning user
+	 */
+	public FileTokenStore(File directory) {
+		if (directory == null) {
+			throw new IllegalArgumentException("directory cannot be null");
+		}
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the shared {@link FileTokenStore} of the passed directory
+	 * 
+	 * @param directory
+	 *            Directory of the token files
+	 * @return {@link FileTokenStore}
+	 */
+	public static FileTokenStore getInstance(String directory) {
+		File file = new File(directory);
+		String path;
+		try {
+			path = file.getCanonicalPath();
+		} catch (IOException e) {
+			path = file.getAbsolutePath();
+		}
+		FileTokenStore store = STORES.get(path);
+		if (store == null) {
+			FileTokenStore newStore = new FileTokenStore(new File(path));
+			store = STORES.putIfAbsent(path, newStore);
+			if (store == null) {
+				store = newStore;
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	public OAuthToken get(String key) throws PayPalRESTException {
+		File file = getFile(key);
+		if (!file.exists()) {
+			return null;
+		}
+		synchronized (getMonitor(file)) {
+			RandomAccessFile raf = null;
+			try {
+				raf = new RandomAccessFile(file, "rw");
+				FileLock lock = raf.getChannel().lock(0, Long.MAX_VALUE, true);
+				try {
+					return read(raf);
+				} finally {
+					lock.release();
+				}
+			} catch (IOException e) {
+				throw new PayPalRESTException(e.getMessage(), e);
+			} finally {
+				close(raf);
+			}
+		}
+	}
+
+	public OAuthToken refresh(String key, Callable<OAuthToken> request)
+			throws PayPalRESTException {
+		File file = getFile(key);
+		synchronized (getMonitor(file)) {
+			RandomAccessFile raf = null;
+			try {
+				if (!directory.exists() && !directory.mkdirs()
+						&& !directory.exists()) {
+					throw new IOException("Cannot create token directory "
+							+ directory);
+				}
+				raf = new RandomAccessFile(file, "rw");
+				FileLock lock = raf.getChannel().lock();
+				try {
+					OAuthToken token = read(raf);
+					if (token != null
+							&& !token.isRefreshDue(System.currentTimeMillis())) {
+						return token;
+					}
+					token = OAuthTokenManager.call(request);
+					write(raf, token);
+					return token;
+				} finally {
+					lock.release();
+				}
+			} catch (IOException e) {
+				throw new PayPalRESTException(e.getMessage(), e);
+			} finally {
+				close(raf);
+			}
+		}
+	}
+
+	public void remove(String key) throws PayPalRESTException {
+		File file = getFile(key);
+		if (!file.exists()) {
+			return;
+		}
+		synchronized (getMonitor(file)) {
+			RandomAccessFile raf = null;
+			try {
+				raf = new RandomAccessFile(file, "rw");
+				FileLock lock = raf.getChannel().lock();
+				try {
+					raf.setLength(0);
+				} finally {
+					lock.release();
+				}
+			} catch (IOException e) {
+				throw new PayPalRESTException(e.getMessage(), e);
+			} finally {
+				close(raf);
+			}
+		}
+	}
+
+	/*
+	 * Token files are named by a digest of the key, which is itself a digest
+	 * of the client ID, client secret and endpoint URL
+	 */
+	File getFile(String key) {
+		return new File(directory, "oauth-"
+				+ OAuthTokenCredential.digest(key) + ".token");
+	}
+
+	private static Object getMonitor(File file) {
+		String path = file.getAbsolutePath();
+		Object monitor = MONITORS.get(path);
+		if (monitor == null) {
+			Object newMonitor = new Object();
+			monitor = MONITORS.putIfAbsent(path, newMonitor);
+			if (monitor == null) {
+				monitor = newMonitor;
+			}
+		}
+		return monitor;
+	}
+
+	/*
+	 * Reads the token from the locked file, an empty or unreadable file is
+	 * treated as no token
+	 */
+	private static OAuthToken read(RandomAccessFile raf) throws IOException {
+		if (raf.length() == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[(int) raf.length()];
+		raf.seek(0);
+		raf.readFully(bytes);
+		Properties properties = new Properties();
+		properties.load(new ByteArrayInputStream(bytes));
+		String accessToken = properties.getProperty(ACCESS_TOKEN);
+		String issuedTime = properties.getProperty(ISSUED_TIME);
+		String expiryTime = properties.getProperty(EXPIRY_TIME);
+		if (accessToken == null || issuedTime == null || expiryTime == null) {
+			return null;
+		}
+		try {
+			return new OAuthToken(accessToken, Long.parseLong(issuedTime),
+					Long.parseLong(expiryTime));
+		} catch (NumberFormatException e) {
+			LoggingManager.warn(FileTokenStore.class,
+					"Ignoring malformed token file", e);
+			return null;
+		}
+	}
+
+	private static void write(RandomAccessFile raf, OAuthToken token)
+			throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(ACCESS_TOKEN, token.getAccessToken());
+		properties.setProperty(ISSUED_TIME,
+				String.valueOf(token.getIssuedTime()));
+		properties.setProperty(EXPIRY_TIME,
+				String.valueOf(token.getExpiryTime()));
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		properties.store(bos, null);
+		byte[] bytes = bos.toByteArray();
+		raf.setLength(0);
+		raf.seek(0);
+		raf.write(bytes);
+		raf.getFD().sync();
+	}
+
+	private static void close(RandomAccessFile raf) {
+		if (raf != null) {
+			try {
+				raf.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.paypal.core.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <code>InMemoryTokenStore</code> is the default {@link TokenStore}, keeping
+ * tokens in the memory of the current process
+ * 
+ */
+public final class InMemoryTokenStore implements TokenStore {
+
+	/**
+	 * Singleton instance
+	 */
+	private static InMemoryTokenStore instance;
+
+	/**
+	 * {@link OAuthToken} by key
+	 */
+	private final ConcurrentMap<String, OAuthToken> tokens = new ConcurrentHashMap<String, OAuthToken>();
+
+	// Private Constructor
+	private InMemoryTokenStore() {
+	}
+
+	/**
+	 * Singleton accessor method
+	 * 
+	 * @return {@link InMemoryTokenStore} singleton object
+	 */
+	public static synchronized InMemoryTokenStore getInstance() {
+		if (instance == null) {
+			instance = new InMemoryTokenStore();
+		}
+		return instance;
+	}
+
+	public OAuthToken get(String key) {
+		return tokens.get(key);
+	}
+
+	public OAuthToken refresh(String key, Callable<OAuthToken> request)
+			throws PayPalRESTException {
+		OAuthToken token = tokens.get(key);
+		if (token != null && !token.isRefreshDue(System.currentTimeMillis())) {
+			return token;
+		}
+		token = OAuthTokenManager.call(request);
+		tokens.put(key, token);
+		return token;
+	}
+
+	public void remove(String key) {
+		tokens.remove(key);
+	}
+
+}
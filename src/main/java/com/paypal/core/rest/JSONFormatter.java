@@ -1,13 +1,49 @@
 package com.paypal.core.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.paypal.core.Constants;
+import com.paypal.core.LoggingManager;
 
 /**
  * JSONFormatter converts objects to JSON representation and vice-versa. This
- * class depends on Google's GSON library to do the transformation. This class
- * is not thread-safe.
+ * class depends on Google's GSON library to do the transformation. JSON is
+ * produced in compact form for the wire, toPrettyJSON(..) produces indented
+ * JSON for logs. The streaming overloads write to and read from streams
+ * without building an intermediate String. The adapters of the SDK's own
+ * models are listed by class name, so that this package does not depend on
+ * the packages of the models, and are part of every {@link Gson} from the
+ * start; model classes may
+ * register hand-written or generated type adapters, which are used by every
+ * {@link Gson} built afterwards and take precedence over the SDK's. The {@link Gson} instances are immutable
+ * snapshots cached per field naming policy and are rebuilt only when an
+ * adapter is registered; call warmUp(..) at startup to resolve the adapters
+ * of model classes ahead of the first request.
  * 
  * @author kjayakumar
  * 
@@ -30,24 +66,235 @@ public final class JSONFormatter {
 	private static FieldNamingPolicy FIELD_NAMING_POLICY = FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES;
 
 	/**
-	 * Gson
+	 * Adapters of the SDK's own models as 'model class, adapter class' pairs.
+	 * Each adapter class has a public constructor taking the
+	 * {@link FieldNamingPolicy}
+	 */
+	private static final String[][] SDK_TYPE_ADAPTERS = { {
+			"com.paypal.sdk.openidconnect.Tokeninfo",
+			"com.paypal.sdk.openidconnect.TokeninfoTypeAdapter" } };
+
+	/**
+	 * Adapter constructors of SDK_TYPE_ADAPTERS by model class, resolved once
+	 */
+	private static final Map<Class<?>, Constructor<?>> SDK_ADAPTER_CONSTRUCTORS = loadSdkTypeAdapters();
+
+	/**
+	 * Registered type adapters by type, guarded by JSONFormatter.class
+	 */
+	private static final Map<Type, Object> TYPE_ADAPTERS = new LinkedHashMap<Type, Object>();
+
+	/**
+	 * Registered type adapter factories, guarded by JSONFormatter.class
 	 */
-	public static Gson GSON = new GsonBuilder().setPrettyPrinting()
-			.setFieldNamingPolicy(FIELD_NAMING_POLICY).create();
+	private static final List<TypeAdapterFactory> TYPE_ADAPTER_FACTORIES = new ArrayList<TypeAdapterFactory>();
+
+	/**
+	 * Classes resolved by every new snapshot, guarded by JSONFormatter.class
+	 */
+	private static final Set<Class<?>> WARM_CLASSES = new LinkedHashSet<Class<?>>();
+
+	/**
+	 * Compact snapshots by naming policy, guarded by JSONFormatter.class
+	 */
+	private static final Map<FieldNamingPolicy, Gson> COMPACT_SNAPSHOTS = new HashMap<FieldNamingPolicy, Gson>();
+
+	/**
+	 * Indented snapshots by naming policy, guarded by JSONFormatter.class
+	 */
+	private static final Map<FieldNamingPolicy, Gson> PRETTY_SNAPSHOTS = new HashMap<FieldNamingPolicy, Gson>();
+
+	/**
+	 * Gson producing compact JSON
+	 */
+	public static volatile Gson GSON = getGson(FIELD_NAMING_POLICY);
+
+	/**
+	 * Gson producing indented JSON
+	 */
+	public static volatile Gson PRETTY_GSON = getPrettyGson(FIELD_NAMING_POLICY);
 
 	/**
 	 * Set a format for gson FIELD_NAMING_POLICY. See {@link FieldNamingPolicy}
 	 * 
 	 * @param FIELD_NAMING_POLICY
 	 */
-	public static final void setFIELD_NAMING_POLICY(
+	public static final synchronized void setFIELD_NAMING_POLICY(
 			FieldNamingPolicy FIELD_NAMING_POLICY) {
-		GSON = new GsonBuilder().setPrettyPrinting()
-				.setFieldNamingPolicy(FIELD_NAMING_POLICY).create();
+		JSONFormatter.FIELD_NAMING_POLICY = FIELD_NAMING_POLICY;
+		GSON = getGson(FIELD_NAMING_POLICY);
+		PRETTY_GSON = getPrettyGson(FIELD_NAMING_POLICY);
+	}
+
+	/**
+	 * Registers a type adapter for a model type, see
+	 * {@link GsonBuilder#registerTypeAdapter(Type, Object)}. Registered
+	 * adapters take precedence over reflection and apply to all naming
+	 * policies
+	 * 
+	 * @param type
+	 *            Model type
+	 * @param typeAdapter
+	 *            {@link TypeAdapter}, {@link JsonSerializer},
+	 *            {@link JsonDeserializer} or {@link InstanceCreator}
+	 */
+	public static synchronized void registerTypeAdapter(Type type,
+			Object typeAdapter) {
+		if (type == null) {
+			throw new IllegalArgumentException("type cannot be null");
+		}
+		if (!(typeAdapter instanceof TypeAdapter<?>
+				|| typeAdapter instanceof JsonSerializer<?>
+				|| typeAdapter instanceof JsonDeserializer<?> || typeAdapter instanceof InstanceCreator<?>)) {
+			throw new IllegalArgumentException(
+					"typeAdapter must be a TypeAdapter, JsonSerializer, JsonDeserializer or InstanceCreator");
+		}
+		TYPE_ADAPTERS.put(type, typeAdapter);
+		rebuild();
+	}
+
+	/**
+	 * Registers a type adapter factory, for example one producing generated
+	 * adapters for a family of model classes
+	 * 
+	 * @param factory
+	 *            {@link TypeAdapterFactory}
+	 */
+	public static synchronized void registerTypeAdapterFactory(
+			TypeAdapterFactory factory) {
+		if (factory == null) {
+			throw new IllegalArgumentException("factory cannot be null");
+		}
+		TYPE_ADAPTER_FACTORIES.add(factory);
+		rebuild();
+	}
+
+	/**
+	 * Resolves and caches the type adapters of the passed model classes, and
+	 * of the types they reference, in the current snapshots and all later
+	 * ones
+	 * 
+	 * @param classes
+	 *            Model classes
+	 */
+	public static synchronized void warmUp(Class<?>... classes) {
+		for (Class<?> clazz : classes) {
+			if (WARM_CLASSES.add(clazz)) {
+				GSON.getAdapter(clazz);
+				PRETTY_GSON.getAdapter(clazz);
+			}
+		}
 	}
 
 	/**
-	 * Converts a Raw Type to JSON String
+	 * Returns the immutable compact {@link Gson} snapshot of a naming policy
+	 * 
+	 * @param fieldNamingPolicy
+	 *            {@link FieldNamingPolicy}
+	 * @return {@link Gson}
+	 */
+	public static synchronized Gson getGson(FieldNamingPolicy fieldNamingPolicy) {
+		Gson gson = COMPACT_SNAPSHOTS.get(fieldNamingPolicy);
+		if (gson == null) {
+			gson = createGson(fieldNamingPolicy, false);
+			COMPACT_SNAPSHOTS.put(fieldNamingPolicy, gson);
+		}
+		return gson;
+	}
+
+	/**
+	 * Returns the immutable indented {@link Gson} snapshot of a naming policy
+	 * 
+	 * @param fieldNamingPolicy
+	 *            {@link FieldNamingPolicy}
+	 * @return {@link Gson}
+	 */
+	public static synchronized Gson getPrettyGson(
+			FieldNamingPolicy fieldNamingPolicy) {
+		Gson gson = PRETTY_SNAPSHOTS.get(fieldNamingPolicy);
+		if (gson == null) {
+			gson = createGson(fieldNamingPolicy, true);
+			PRETTY_SNAPSHOTS.put(fieldNamingPolicy, gson);
+		}
+		return gson;
+	}
+
+	/*
+	 * Resolves the adapters of SDK_TYPE_ADAPTERS without initializing the
+	 * model classes, adapters missing from the class path are skipped
+	 */
+	private static Map<Class<?>, Constructor<?>> loadSdkTypeAdapters() {
+		Map<Class<?>, Constructor<?>> constructors = new LinkedHashMap<Class<?>, Constructor<?>>();
+		ClassLoader classLoader = JSONFormatter.class.getClassLoader();
+		for (String[] names : SDK_TYPE_ADAPTERS) {
+			try {
+				constructors.put(Class.forName(names[0], false, classLoader),
+						Class.forName(names[1], false, classLoader)
+								.getConstructor(FieldNamingPolicy.class));
+			} catch (ClassNotFoundException e) {
+				LoggingManager.debug(JSONFormatter.class,
+						"SDK type adapter not available: " + names[1], e);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return constructors;
+	}
+
+	/*
+	 * Creates an adapter of SDK_TYPE_ADAPTERS for the passed naming policy
+	 */
+	private static Object newSdkTypeAdapter(Constructor<?> constructor,
+			FieldNamingPolicy fieldNamingPolicy) {
+		try {
+			return constructor.newInstance(fieldNamingPolicy);
+		} catch (InstantiationException e) {
+			throw new IllegalStateException(e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/*
+	 * Drops the snapshots after a registration and replaces the current ones
+	 */
+	private static void rebuild() {
+		COMPACT_SNAPSHOTS.clear();
+		PRETTY_SNAPSHOTS.clear();
+		GSON = getGson(FIELD_NAMING_POLICY);
+		PRETTY_GSON = getPrettyGson(FIELD_NAMING_POLICY);
+	}
+
+	private static Gson createGson(FieldNamingPolicy fieldNamingPolicy,
+			boolean pretty) {
+		GsonBuilder builder = new GsonBuilder()
+				.setFieldNamingPolicy(fieldNamingPolicy);
+		if (pretty) {
+			builder.setPrettyPrinting();
+		}
+		// SDK adapters first, so that registered adapters take precedence
+		for (Map.Entry<Class<?>, Constructor<?>> entry : SDK_ADAPTER_CONSTRUCTORS
+				.entrySet()) {
+			builder.registerTypeAdapter(entry.getKey(), newSdkTypeAdapter(
+					entry.getValue(), fieldNamingPolicy));
+		}
+		for (Map.Entry<Type, Object> entry : TYPE_ADAPTERS.entrySet()) {
+			builder.registerTypeAdapter(entry.getKey(), entry.getValue());
+		}
+		for (TypeAdapterFactory factory : TYPE_ADAPTER_FACTORIES) {
+			builder.registerTypeAdapterFactory(factory);
+		}
+		Gson gson = builder.create();
+		for (Class<?> clazz : WARM_CLASSES) {
+			gson.getAdapter(clazz);
+		}
+		return gson;
+	}
+
+	/**
+	 * Converts a Raw Type to compact JSON String
 	 * 
 	 * @param <T>
 	 *            Type to be converted
@@ -59,6 +306,59 @@ public final class JSONFormatter {
 		return GSON.toJson(t);
 	}
 
+	/**
+	 * Converts a Raw Type to indented JSON String, intended for logs
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param t
+	 *            Object of the type
+	 * @return JSON representation
+	 */
+	public static <T> String toPrettyJSON(T t) {
+		return PRETTY_GSON.toJson(t);
+	}
+
+	/**
+	 * Writes the compact JSON representation of a Raw Type to a
+	 * {@link Writer}
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param t
+	 *            Object of the type
+	 * @param writer
+	 *            {@link Writer} to write to, not closed
+	 * @throws IOException
+	 */
+	public static <T> void toJSON(T t, Writer writer) throws IOException {
+		try {
+			GSON.toJson(t, writer);
+		} catch (JsonIOException e) {
+			throw unwrap(e);
+		}
+	}
+
+	/**
+	 * Writes the compact JSON representation of a Raw Type to an
+	 * {@link OutputStream} in UTF-8
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param t
+	 *            Object of the type
+	 * @param outputStream
+	 *            {@link OutputStream} to write to, flushed but not closed
+	 * @throws IOException
+	 */
+	public static <T> void toJSON(T t, OutputStream outputStream)
+			throws IOException {
+		Writer writer = new OutputStreamWriter(outputStream,
+				Constants.ENCODING_FORMAT);
+		toJSON(t, writer);
+		writer.flush();
+	}
+
 	/**
 	 * Converts a JSON String to object representation
 	 * 
@@ -80,4 +380,75 @@ public final class JSONFormatter {
 		return t;
 	}
 
+	/**
+	 * Reads the object representation of JSON from a {@link Reader}
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param reader
+	 *            {@link Reader} of the JSON representation, not closed
+	 * @param clazz
+	 *            Target class
+	 * @return Object of the target type, null if the reader is empty
+	 * @throws IOException
+	 */
+	public static <T> T fromJSON(Reader reader, Class<T> clazz)
+			throws IOException {
+		try {
+			return GSON.fromJson(reader, clazz);
+		} catch (JsonIOException e) {
+			throw unwrap(e);
+		}
+	}
+
+	/**
+	 * Reads the object representation of JSON from an {@link InputStream}
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param inputStream
+	 *            {@link InputStream} of the JSON representation
+	 * @param charset
+	 *            Charset name of the stream
+	 * @param clazz
+	 *            Target class
+	 * @return Object of the target type, null if the stream is empty
+	 * @throws IOException
+	 */
+	public static <T> T fromJSON(InputStream inputStream, String charset,
+			Class<T> clazz) throws IOException {
+		return fromJSON(new InputStreamReader(inputStream, charset), clazz);
+	}
+
+	/**
+	 * Reads the object representation of JSON from an {@link InputStream} in
+	 * UTF-8
+	 * 
+	 * @param <T>
+	 *            Type to be converted
+	 * @param inputStream
+	 *            {@link InputStream} of the JSON representation
+	 * @param clazz
+	 *            Target class
+	 * @return Object of the target type, null if the stream is empty
+	 * @throws IOException
+	 */
+	public static <T> T fromJSON(InputStream inputStream, Class<T> clazz)
+			throws IOException {
+		return fromJSON(inputStream, Constants.ENCODING_FORMAT, clazz);
+	}
+
+	/*
+	 * I/O failures of the underlying stream are reported by Gson as
+	 * JsonIOException
+	 */
+	private static IOException unwrap(JsonIOException e) {
+		if (e.getCause() instanceof IOException) {
+			return (IOException) e.getCause();
+		}
+		IOException ioe = new IOException(e.getMessage());
+		ioe.initCause(e);
+		return ioe;
+	}
+
 }
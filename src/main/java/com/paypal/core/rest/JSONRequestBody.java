@@ -0,0 +1,43 @@
+package com.paypal.core.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import com.paypal.core.Constants;
+import com.paypal.core.HttpRequestBody;
+
+/**
+ * <code>JSONRequestBody</code> is a {@link HttpRequestBody} holding the
+ * compact JSON representation of an object, serialized once straight to UTF-8
+ * bytes. The JSON text is only decoded when the body is logged
+ * 
+ */
+final class JSONRequestBody extends HttpRequestBody {
+
+	private final byte[] bytes;
+
+	JSONRequestBody(Object object) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+		JSONFormatter.toJSON(object, bos);
+		this.bytes = bos.toByteArray();
+	}
+
+	public long getContentLength() {
+		return bytes.length;
+	}
+
+	public void writeTo(OutputStream outputStream) throws IOException {
+		outputStream.write(bytes);
+	}
+
+	public String toString() {
+		try {
+			return new String(bytes, Constants.ENCODING_FORMAT);
+		} catch (UnsupportedEncodingException e) {
+			return "<" + bytes.length + " bytes>";
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.paypal.core.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+
+import com.paypal.core.HttpResponseHandler;
+import com.paypal.core.StringResponseHandler;
+
+/**
+ * <code>JSONResponseHandler</code> is a {@link HttpResponseHandler} parsing
+ * the JSON response straight from the connection into the target class. The
+ * raw bytes are kept so that the response text can be decoded on demand by
+ * {@link com.paypal.core.DiagnosticCapture}
+ * 
+ * @param <T>
+ *            Response Type for de-serialization
+ */
+final class JSONResponseHandler<T> implements HttpResponseHandler<T> {
+
+	/**
+	 * Target class, null if the response is not de-serialized
+	 */
+	private final Class<T> clazz;
+
+	/**
+	 * Raw bytes of the response
+	 */
+	private ByteArrayOutputStream raw;
+
+	/**
+	 * Charset of the response
+	 */
+	private String charset;
+
+	/**
+	 * Response text, decoded lazily from the raw bytes
+	 */
+	private String response;
+
+	JSONResponseHandler(Class<T> clazz) {
+		this.clazz = clazz;
+	}
+
+	public T handle(int responseCode, InputStream inputStream,
+			String charset, long contentLength) throws IOException {
+		if (clazz == null || clazz.isAssignableFrom(String.class)) {
+			response = StringResponseHandler.read(inputStream, charset,
+					contentLength);
+			return clazz != null ? clazz.cast(response) : null;
+		}
+		this.charset = charset;
+		this.raw = new ByteArrayOutputStream(contentLength > 0
+				&& contentLength < Integer.MAX_VALUE ? (int) contentLength
+				: 512);
+		return JSONFormatter.fromJSON(new CopyingInputStream(inputStream,
+				raw), charset, clazz);
+	}
+
+	/**
+	 * @return the response text, null if no response was handled
+	 */
+	String getResponse() {
+		if (response == null && raw != null) {
+			try {
+				response = raw.toString(charset);
+			} catch (UnsupportedEncodingException e) {
+				response = raw.toString();
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Returns the response text, so that the handler can be passed as a lazily
+	 * decoded payload
+	 */
+	public String toString() {
+		String text = getResponse();
+		return text != null ? text : "";
+	}
+
+	/**
+	 * {@link InputStream} copying the bytes read to a
+	 * {@link ByteArrayOutputStream}
+	 */
+	private static final class CopyingInputStream extends FilterInputStream {
+
+		private final ByteArrayOutputStream copy;
+
+		CopyingInputStream(InputStream in, ByteArrayOutputStream copy) {
+			super(in);
+			this.copy = copy;
+		}
+
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				copy.write(b);
+			}
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				copy.write(b, off, read);
+			}
+			return read;
+		}
+
+		public long skip(long n) throws IOException {
+			// Skipped bytes are not copied, read them instead
+			byte[] buffer = new byte[(int) Math.min(n, 512)];
+			int read = read(buffer, 0, buffer.length);
+			return read < 0 ? 0 : read;
+		}
+
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.paypal.core.rest;
+
+/**
+ * <code>OAuthToken</code> is an immutable OAuth access token together with its
+ * lifetime, as returned by the PayPal OAuth service.
+ * 
+ */
+public final class OAuthToken {
+
+	/**
+	 * Fraction of the lifetime after which the token is refreshed
+	 */
+	private static final double REFRESH_RATIO = 0.8;
+
+	/**
+	 * Maximum time in milliseconds before expiry at which the token is no
+	 * longer handed out, to allow for clock skew and request latency
+	 */
+	private static final long MAX_EXPIRY_SKEW = 30000;
+
+	/**
+	 * Access token prefixed with the token type, for example "Bearer xxxx"
+	 */
+	private final String accessToken;
+
+	/**
+	 * Time in milliseconds the token was issued
+	 */
+	private final long issuedTime;
+
+	/**
+	 * Time in milliseconds the token expires
+	 */
+	private final long expiryTime;
+
+	/**
+	 * OAuthToken
+	 * 
+	 * @param accessToken
+	 *            Access token prefixed with the token type
+	 * @param issuedTime
+	 *            Time in milliseconds the token was issued
+	 * @param expiryTime
+	 *            Time in milliseconds the token expires
+	 */
+	public OAuthToken(String accessToken, long issuedTime, long expiryTime) {
+		if (accessToken == null) {
+			throw new IllegalArgumentException("accessToken cannot be null");
+		}
+		this.accessToken = accessToken;
+		this.issuedTime = issuedTime;
+		this.expiryTime = expiryTime;
+	}
+
+	/**
+	 * @return the accessToken
+	 */
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	/**
+	 * @return the issuedTime
+	 */
+	public long getIssuedTime() {
+		return issuedTime;
+	}
+
+	/**
+	 * @return the expiryTime
+	 */
+	public long getExpiryTime() {
+		return expiryTime;
+	}
+
+	/**
+	 * @param now
+	 *            Current time in milliseconds
+	 * @return true if the token must no longer be used
+	 */
+	public boolean isExpired(long now) {
+		long skew = Math.min(MAX_EXPIRY_SKEW, (expiryTime - issuedTime) / 10);
+		return now >= expiryTime - skew;
+	}
+
+	/**
+	 * @param now
+	 *            Current time in milliseconds
+	 * @return true if the token should be refreshed ahead of its expiry
+	 */
+	public boolean isRefreshDue(long now) {
+		return now >= issuedTime
+				+ (long) ((expiryTime - issuedTime) * REFRESH_RATIO);
+	}
+
+	public String toString() {
+		return "OAuthToken [issuedTime=" + issuedTime + ", expiryTime="
+				+ expiryTime + "]";
+	}
+
+}
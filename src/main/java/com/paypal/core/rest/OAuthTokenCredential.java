@@ -1,7 +1,8 @@
 package com.paypal.core.rest;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -9,10 +10,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.paypal.core.ConfigManager;
 import com.paypal.core.ConnectionManager;
+import com.paypal.core.Deadline;
 import com.paypal.core.Constants;
 import com.paypal.core.HttpConfiguration;
 import com.paypal.core.HttpConnection;
-import com.paypal.core.SDKUtil;
+import com.paypal.core.SDKConfig;
 import com.paypal.core.SDKVersion;
 import com.paypal.core.codec.binary.Base64;
 import com.paypal.core.credential.ICredential;
@@ -30,7 +32,11 @@ import com.paypal.sdk.util.UserAgentHeader;
  * "oauth.EndPoint" or "service.EndPoint" to retrieve the value of the endpoint
  * for the OAuth Service. If either are not present the configuration should
  * have a entry by the name "mode" with values sandbox or live wherein the
- * corresponding endpoints are default to PayPal endpoints.
+ * corresponding endpoints are default to PayPal endpoints. Access tokens are
+ * cached and refreshed by {@link OAuthTokenManager}, which shares them between
+ * all instances created for the same client ID, secret and endpoint. Setting
+ * "oauth.TokenStoreDirectory" shares tokens between processes through a
+ * {@link FileTokenStore}.
  * 
  * @author kjayakumar
  * 
@@ -53,15 +59,14 @@ public final class OAuthTokenCredential implements ICredential {
 	private String clientSecret;
 
 	/**
-	 * Access Token that is generated
+	 * Key of the token cache in {@link OAuthTokenManager}
 	 */
-	private String accessToken;
+	private String tokenKey;
 
-
-    /**
-     * Lifetime in seconds of the access token
-     */
-    private long expires = 0;
+	/**
+	 * {@link TokenStore} consulted before requesting a token
+	 */
+	private TokenStore tokenStore;
 
 	/**
 	 * Map used for dynamic configuration
@@ -94,9 +99,11 @@ public final class OAuthTokenCredential implements ICredential {
 		super();
 		this.clientID = clientID;
 		this.clientSecret = clientSecret;
-		this.configurationMap = SDKUtil.combineDefaultMap(ConfigManager
-				.getInstance().getConfigurationMap());
+		this.configurationMap = SDKConfig.getInstance(
+				ConfigManager.getInstance().getConfigurationMap())
+				.getConfigurationMap();
 		this.sdkVersion = new SDKVersionImpl();
+		this.tokenStore = getConfiguredTokenStore();
 	}
 
 	/**
@@ -117,8 +124,10 @@ public final class OAuthTokenCredential implements ICredential {
 		super();
 		this.clientID = clientID;
 		this.clientSecret = clientSecret;
-		this.configurationMap = SDKUtil.combineDefaultMap(configurationMap);
+		this.configurationMap = SDKConfig.getInstance(configurationMap)
+				.getConfigurationMap();
 		this.sdkVersion = new SDKVersionImpl();
+		this.tokenStore = getConfiguredTokenStore();
 	}
 
 	/**
@@ -129,10 +138,15 @@ public final class OAuthTokenCredential implements ICredential {
 	 * @throws PayPalRESTException
 	 */
 	public String getAccessToken() throws PayPalRESTException {
-		if (accessToken == null) {
-			accessToken = generateAccessToken();
+		// Bounds the wait for a token requested by another thread
+		Deadline previous = Deadline.enter(SDKConfig.getInstance(
+				configurationMap).getRequestTimeout());
+		try {
+			return OAuthTokenManager.getInstance().getToken(this)
+					.getAccessToken();
+		} finally {
+			Deadline.setCurrent(previous);
 		}
-		return accessToken;
 	}
 
 	/**
@@ -149,23 +163,101 @@ public final class OAuthTokenCredential implements ICredential {
 	}
 
 
-    /**
-     * Specifies how long this token can be used for placing API calls. The
-     * remaining lifetime is given in seconds.
-     *
-     * @return remaining lifetime of this access token in seconds
-     */
-    public long expiresIn(){
-        return expires - new java.util.Date().getTime();
-    }
+	/**
+	 * Returns the {@link TokenStore} consulted before requesting a token. It
+	 * is a {@link FileTokenStore} if the configuration has an entry for
+	 * 'oauth.TokenStoreDirectory', otherwise the {@link InMemoryTokenStore}
+	 * 
+	 * @return the tokenStore
+	 */
+	public TokenStore getTokenStore() {
+		return tokenStore;
+	}
 
+	/**
+	 * Sets the {@link TokenStore}, for example one shared by processes on
+	 * several hosts
+	 * 
+	 * @param tokenStore
+	 *            the tokenStore to set
+	 */
+	public void setTokenStore(TokenStore tokenStore) {
+		if (tokenStore == null) {
+			throw new IllegalArgumentException("tokenStore cannot be null");
+		}
+		this.tokenStore = tokenStore;
+	}
 
-	private String generateAccessToken() throws PayPalRESTException {
-		String generatedToken = null;
+	/**
+	 * Specifies how long this token can be used for placing API calls. The
+	 * remaining lifetime is given in seconds.
+	 * 
+	 * @return remaining lifetime of this access token in seconds, zero if no
+	 *         token has been generated
+	 */
+	public long expiresIn() {
+		OAuthToken token = OAuthTokenManager.getInstance()
+				.getCachedToken(this);
+		if (token == null) {
+			return 0;
+		}
+		return Math.max(0,
+				(token.getExpiryTime() - System.currentTimeMillis()) / 1000);
+	}
+
+	/**
+	 * Places a call to the OAuth server for a new token, bypassing the cache
+	 * of {@link OAuthTokenManager}
+	 * 
+	 * @return {@link OAuthToken}
+	 * @throws PayPalRESTException
+	 */
+	OAuthToken requestToken() throws PayPalRESTException {
 		String base64ClientID = generateBase64String(clientID + ":"
 				+ clientSecret);
-		generatedToken = generateOAuthToken(base64ClientID);
-		return generatedToken;
+		return generateOAuthToken(base64ClientID);
+	}
+
+	/**
+	 * Key of the token cache, a SHA-256 digest of the client ID, client secret
+	 * and OAuth endpoint. Tokens are only shared by credentials holding the
+	 * same secret, and the key does not reveal the secret
+	 * 
+	 * @return cache key
+	 */
+	String getTokenKey() {
+		if (tokenKey == null) {
+			String endPointUrl = null;
+			try {
+				endPointUrl = getOAuthHttpConfiguration().getEndPointUrl();
+			} catch (RuntimeException e) {
+				// Reported by the token request
+			}
+			tokenKey = digest(clientID + "|" + clientSecret + "|"
+					+ endPointUrl);
+		}
+		return tokenKey;
+	}
+
+	/*
+	 * Hex encoded SHA-256 digest of the passed String
+	 */
+	static String digest(String value) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(value
+					.getBytes(Constants.ENCODING_FORMAT));
+			StringBuilder hex = new StringBuilder(hash.length * 2);
+			for (int i = 0; i < hash.length; i++) {
+				hex.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+				hex.append(Character.forDigit(hash[i] & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	/*
@@ -187,14 +279,17 @@ public final class OAuthTokenCredential implements ICredential {
 	/*
 	 * Generate OAuth type token from Base64Client ID
 	 */
-	private String generateOAuthToken(String base64ClientID)
+	private OAuthToken generateOAuthToken(String base64ClientID)
 			throws PayPalRESTException {
+		ConnectionManager connectionManager = ConnectionManager.getInstance();
 		HttpConnection connection = null;
 		HttpConfiguration httpConfiguration = null;
-		String generatedToken = null;
+		OAuthToken generatedToken = null;
+		Deadline previous = Deadline.getCurrent();
 		try {
-			connection = ConnectionManager.getInstance().getConnection();
 			httpConfiguration = getOAuthHttpConfiguration();
+			Deadline.enter(httpConfiguration.getRequestTimeout());
+			connection = connectionManager.leaseConnection(httpConfiguration);
 			connection.createAndconfigureHttpConnection(httpConfiguration);
 			Map<String, String> headers = new HashMap<String, String>();
 			headers.put(Constants.AUTHORIZATION_HEADER, "Basic "
@@ -208,23 +303,42 @@ public final class OAuthTokenCredential implements ICredential {
 					sdkVersion != null ? sdkVersion.getSDKVersion() : null);
 			headers.putAll(userAgentHeader.getHeader());
 			String postRequest = getRequestPayload();
+			long issuedTime = System.currentTimeMillis();
 			String jsonResponse = connection.execute("", postRequest, headers);
 			JsonParser parser = new JsonParser();
 			JsonElement jsonElement = parser.parse(jsonResponse);
-			generatedToken = jsonElement.getAsJsonObject().get("token_type")
-					.getAsString()
+			String accessToken = jsonElement.getAsJsonObject()
+					.get("token_type").getAsString()
 					+ " "
 					+ jsonElement.getAsJsonObject().get("access_token")
 							.getAsString();
-            // Save expiry date
-            long tokenLifeTime = jsonElement.getAsJsonObject().get("expires_in").getAsLong();
-            expires = new Date().getTime() + tokenLifeTime;
+
+			// expires_in is the lifetime in seconds
+			long tokenLifeTime = jsonElement.getAsJsonObject()
+					.get("expires_in").getAsLong();
+			generatedToken = new OAuthToken(accessToken, issuedTime,
+					issuedTime + tokenLifeTime * 1000);
 		} catch (Exception e) {
 			throw new PayPalRESTException(e.getMessage(), e);
+		} finally {
+			connectionManager.releaseConnection(connection);
+			Deadline.setCurrent(previous);
 		}
 		return generatedToken;
 	}
 
+	/*
+	 * Get TokenStore configured by 'oauth.TokenStoreDirectory'
+	 */
+	private TokenStore getConfiguredTokenStore() {
+		String directory = configurationMap
+				.get(Constants.OAUTH_TOKEN_STORE_DIRECTORY);
+		if (directory != null && directory.trim().length() > 0) {
+			return FileTokenStore.getInstance(directory.trim());
+		}
+		return InMemoryTokenStore.getInstance();
+	}
+
 	/**
 	 * Returns the request payload for OAuth Service. Override this method to
 	 * alter the payload
@@ -254,18 +368,14 @@ public final class OAuthTokenCredential implements ICredential {
 				endPointUrl = Constants.REST_LIVE_ENDPOINT;
 			}
 		}
-		if (Boolean
-				.parseBoolean(configurationMap.get(Constants.USE_HTTP_PROXY))) {
+		SDKConfig sdkConfig = SDKConfig.getInstance(configurationMap);
+		if (sdkConfig.isUseHttpProxy()) {
 			httpConfiguration.setProxySet(true);
-			httpConfiguration.setProxyHost(configurationMap
-					.get(Constants.HTTP_PROXY_HOST));
-			httpConfiguration.setProxyPort(Integer.parseInt(configurationMap
-					.get(Constants.HTTP_PROXY_PORT)));
+			httpConfiguration.setProxyHost(sdkConfig.getProxyHost());
+			httpConfiguration.setProxyPort(sdkConfig.getProxyPort());
 
-			String proxyUserName = configurationMap
-					.get(Constants.HTTP_PROXY_USERNAME);
-			String proxyPassword = configurationMap
-					.get(Constants.HTTP_PROXY_PASSWORD);
+			String proxyUserName = sdkConfig.getProxyUserName();
+			String proxyPassword = sdkConfig.getProxyPassword();
 
 			if (proxyUserName != null && proxyPassword != null) {
 				httpConfiguration.setProxyUserName(proxyUserName);
@@ -276,9 +386,9 @@ public final class OAuthTokenCredential implements ICredential {
 				endPointUrl.length() - 1) : endPointUrl;
 		endPointUrl += OAUTH_TOKEN_PATH;
 		httpConfiguration.setEndPointUrl(endPointUrl);
-		httpConfiguration
-				.setGoogleAppEngine(Boolean.parseBoolean(configurationMap
-						.get(Constants.GOOGLE_APP_ENGINE)));
+		httpConfiguration.setGoogleAppEngine(sdkConfig.isGoogleAppEngine());
+		httpConfiguration.setConnectionClass(sdkConfig.getConnectionClass());
+		httpConfiguration.setRequestTimeout(sdkConfig.getRequestTimeout());
 		return httpConfiguration;
 	}
 
@@ -0,0 +1,269 @@
+package com.paypal.core.rest;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.paypal.core.ConnectionManager;
+import com.paypal.core.Deadline;
+import com.paypal.core.LoggingManager;
+
+/**
+ * <code>OAuthTokenManager</code> caches OAuth access tokens per client ID,
+ * client secret and OAuth endpoint, shared by all {@link OAuthTokenCredential}
+ * instances of the same client. A cached token is refreshed in the background on the
+ * {@link ConnectionManager} executor once most of its lifetime has passed and
+ * is served meanwhile, so callers only wait for the OAuth service when no
+ * valid token exists. Concurrent requests for a token of the same client are
+ * collapsed into a single call to the OAuth service, which is placed through
+ * the {@link TokenStore} of the credential so that a token stored by another
+ * process is used when still fresh.
+ * 
+ */
+public final class OAuthTokenManager {
+
+	/**
+	 * Minimum time in milliseconds between two failed background refreshes
+	 */
+	private static final long REFRESH_RETRY_INTERVAL = 5000;
+
+	/**
+	 * Singleton instance
+	 */
+	private static OAuthTokenManager instance;
+
+	/**
+	 * {@link TokenEntry} keyed by {@link OAuthTokenCredential#getTokenKey()}
+	 */
+	private final ConcurrentMap<String, TokenEntry> entries = new ConcurrentHashMap<String, TokenEntry>();
+
+	// Private Constructor
+	private OAuthTokenManager() {
+	}
+
+	/**
+	 * Singleton accessor method
+	 * 
+	 * @return {@link OAuthTokenManager} singleton object
+	 */
+	public static synchronized OAuthTokenManager getInstance() {
+		if (instance == null) {
+			instance = new OAuthTokenManager();
+		}
+		return instance;
+	}
+
+	/**
+	 * Returns a valid token for the client of the passed
+	 * {@link OAuthTokenCredential}, requesting one from the OAuth service if
+	 * none is cached or the cached token has expired
+	 * 
+	 * @param credential
+	 *            {@link OAuthTokenCredential}
+	 * @return {@link OAuthToken}
+	 * @throws PayPalRESTException
+	 */
+	public OAuthToken getToken(OAuthTokenCredential credential)
+			throws PayPalRESTException {
+		TokenEntry entry = getEntry(credential);
+		OAuthToken token = entry.token;
+		long now = System.currentTimeMillis();
+		if (token != null && !token.isExpired(now)) {
+			if (token.isRefreshDue(now)) {
+				entry.refreshInBackground(credential, now);
+			}
+			return token;
+		}
+		return entry.await(credential);
+	}
+
+	/**
+	 * Returns the cached token of the client without contacting the OAuth
+	 * service
+	 * 
+	 * @param credential
+	 *            {@link OAuthTokenCredential}
+	 * @return {@link OAuthToken}, null if none is cached
+	 */
+	public OAuthToken getCachedToken(OAuthTokenCredential credential) {
+		TokenEntry entry = entries.get(credential.getTokenKey());
+		return entry != null ? entry.token : null;
+	}
+
+	/**
+	 * Discards the cached token of the client, for example after the OAuth
+	 * service rejected it
+	 * 
+	 * @param credential
+	 *            {@link OAuthTokenCredential}
+	 */
+	public void invalidate(OAuthTokenCredential credential)
+			throws PayPalRESTException {
+		TokenEntry entry = entries.get(credential.getTokenKey());
+		if (entry != null) {
+			entry.token = null;
+		}
+		credential.getTokenStore().remove(credential.getTokenKey());
+	}
+
+	/*
+	 * Calls a token request, unwrapping PayPalRESTException
+	 */
+	static OAuthToken call(Callable<OAuthToken> request)
+			throws PayPalRESTException {
+		try {
+			return request.call();
+		} catch (PayPalRESTException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new PayPalRESTException(e.getMessage(), e);
+		}
+	}
+
+	private TokenEntry getEntry(OAuthTokenCredential credential) {
+		String key = credential.getTokenKey();
+		TokenEntry entry = entries.get(key);
+		if (entry == null) {
+			TokenEntry newEntry = new TokenEntry();
+			entry = entries.putIfAbsent(key, newEntry);
+			if (entry == null) {
+				entry = newEntry;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Cached token and in-flight request of a client
+	 */
+	private static final class TokenEntry {
+
+		volatile OAuthToken token;
+
+		/**
+		 * Request in flight, guarded by this entry
+		 */
+		private FutureTask<OAuthToken> inFlight;
+
+		/**
+		 * Time of the last failed background refresh, guarded by this entry
+		 */
+		private long lastFailure;
+
+		/*
+		 * Starts a background refresh unless one is in flight or the last one
+		 * failed recently
+		 */
+		void refreshInBackground(OAuthTokenCredential credential, long now) {
+			FutureTask<OAuthToken> task;
+			synchronized (this) {
+				if (inFlight != null
+						|| now - lastFailure < REFRESH_RETRY_INTERVAL) {
+					return;
+				}
+				task = newRequest(credential);
+				inFlight = task;
+			}
+			try {
+				ConnectionManager.getInstance().getExecutorService()
+						.execute(task);
+			} catch (RejectedExecutionException e) {
+				synchronized (this) {
+					inFlight = null;
+				}
+				LoggingManager.warn(OAuthTokenManager.class,
+						"OAuth token refresh rejected by executor");
+			}
+		}
+
+		/*
+		 * Joins the request in flight or starts a new one, running it on the
+		 * calling thread unless another thread already does. A background
+		 * refresh may still be queued behind the callers on the shared
+		 * executor, so callers never wait for it to be picked up
+		 */
+		OAuthToken await(OAuthTokenCredential credential)
+				throws PayPalRESTException {
+			FutureTask<OAuthToken> task;
+			synchronized (this) {
+				OAuthToken current = token;
+				if (current != null
+						&& !current.isExpired(System.currentTimeMillis())) {
+					return current;
+				}
+				task = inFlight;
+				if (task == null) {
+					task = newRequest(credential);
+					inFlight = task;
+				}
+			}
+			// A FutureTask runs at most once, this is a no-op if it has
+			// started on another thread
+			task.run();
+			try {
+				Deadline deadline = Deadline.getCurrent();
+				if (deadline != null) {
+					return task.get(deadline.getRemaining(),
+							TimeUnit.MILLISECONDS);
+				}
+				return task.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof PayPalRESTException) {
+					throw (PayPalRESTException) e.getCause();
+				}
+				throw new PayPalRESTException(e.getCause().getMessage(),
+						e.getCause());
+			} catch (TimeoutException e) {
+				throw new PayPalRESTException(
+						"Deadline exceeded waiting for OAuth token", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new PayPalRESTException(
+						"Interrupted waiting for OAuth token", e);
+			}
+		}
+
+		private FutureTask<OAuthToken> newRequest(
+				final OAuthTokenCredential credential) {
+			return new FutureTask<OAuthToken>(new Callable<OAuthToken>() {
+				public OAuthToken call() throws PayPalRESTException {
+					try {
+						OAuthToken newToken = credential.getTokenStore()
+								.refresh(credential.getTokenKey(),
+										new Callable<OAuthToken>() {
+											public OAuthToken call()
+													throws PayPalRESTException {
+												return credential
+														.requestToken();
+											}
+										});
+						synchronized (TokenEntry.this) {
+							token = newToken;
+							inFlight = null;
+						}
+						return newToken;
+					} catch (PayPalRESTException e) {
+						onFailure(e);
+						throw e;
+					} catch (RuntimeException e) {
+						onFailure(e);
+						throw e;
+					}
+				}
+			});
+		}
+
+		private synchronized void onFailure(Exception e) {
+			inFlight = null;
+			lastFailure = System.currentTimeMillis();
+			LoggingManager.severe(OAuthTokenManager.class,
+					"OAuth token request failed", e);
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.paypal.core.rest;
+
+/**
+ * PageIterationException is thrown by {@link PageIterator} when a page
+ * request fails, as {@link java.util.Iterator} methods cannot throw
+ * {@link PayPalRESTException}
+ */
+public class PageIterationException extends RuntimeException {
+
+	/**
+	 * Serial Version ID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public PageIterationException(PayPalRESTException cause) {
+		super(cause.getMessage(), cause);
+	}
+
+	/**
+	 * @return the {@link PayPalRESTException} of the failed page request
+	 */
+	public PayPalRESTException getCause() {
+		return (PayPalRESTException) super.getCause();
+	}
+
+}
@@ -0,0 +1,334 @@
+package com.paypal.core.rest;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.paypal.core.ConnectionManager;
+import com.paypal.core.Deadline;
+
+/**
+ * <code>PageIterator</code> iterates over the items of a list endpoint, for
+ * example payment history, across pages. The first page is requested with the
+ * passed {@link QueryParameters} on the first call to hasNext() or next(),
+ * following pages by start_id when the page carries a next id, otherwise by
+ * start_index. While the items of a page are consumed, up to the look-ahead
+ * number of following pages are fetched on the
+ * {@link java.util.concurrent.ExecutorService} of {@link ConnectionManager}.
+ * Iteration ends at an empty page, or at a page smaller than the requested
+ * count when paging by start_index. A failing page request is thrown from
+ * hasNext() or next() as a {@link PageIterationException}. Call close() to
+ * stop prefetching when abandoning the iteration.
+ * 
+ * @param <P>
+ *            Page Type
+ * @param <E>
+ *            Item Type
+ */
+public final class PageIterator<P, E> implements Iterator<E> {
+
+	private static final String COUNT = "count";
+
+	private static final String STARTID = "start_id";
+
+	private static final String STARTINDEX = "start_index";
+
+	/**
+	 * {@link APIContext} of the page requests
+	 */
+	private final APIContext apiContext;
+
+	/**
+	 * Resource URI path of the list endpoint
+	 */
+	private final String resourcePath;
+
+	/**
+	 * Page {@link Class} used in De-serialization
+	 */
+	private final Class<P> pageClass;
+
+	/**
+	 * {@link PageReader} of the pages
+	 */
+	private final PageReader<P, E> reader;
+
+	/**
+	 * Maximum number of pages fetched ahead of the page being consumed
+	 */
+	private final int lookAhead;
+
+	/**
+	 * Deadline of the thread creating the iterator, applied to prefetches
+	 */
+	private final Deadline deadline;
+
+	/**
+	 * Items of the page being consumed
+	 */
+	private Iterator<E> current = Collections.<E> emptyList().iterator();
+
+	/**
+	 * Pages fetched ahead, guarded by this iterator
+	 */
+	private final LinkedList<P> pages = new LinkedList<P>();
+
+	/**
+	 * Query parameters of the next page to fetch, null after the last page.
+	 * Guarded by this iterator
+	 */
+	private Map<String, String> nextQuery;
+
+	/**
+	 * Prefetching stopped by close(), guarded by this iterator
+	 */
+	private boolean closed;
+
+	/**
+	 * Page request in flight, guarded by this iterator
+	 */
+	private boolean fetching;
+
+	/**
+	 * Failure of the last page request, guarded by this iterator
+	 */
+	private PayPalRESTException failure;
+
+	/**
+	 * PageIterator with a look-ahead of one page
+	 * 
+	 * @param apiContext
+	 *            {@link APIContext} of the page requests
+	 * @param resourcePath
+	 *            Resource URI path of the list endpoint, without query
+	 * @param queryParameters
+	 *            {@link QueryParameters} of the first page, may be null
+	 * @param pageClass
+	 *            Page {@link Class} used in De-serialization
+	 * @param reader
+	 *            {@link PageReader} of the pages
+	 */
+	public PageIterator(APIContext apiContext, String resourcePath,
+			QueryParameters queryParameters, Class<P> pageClass,
+			PageReader<P, E> reader) {
+		this(apiContext, resourcePath, queryParameters, pageClass, reader, 1);
+	}
+
+	/**
+	 * PageIterator
+	 * 
+	 * @param apiContext
+	 *            {@link APIContext} of the page requests
+	 * @param resourcePath
+	 *            Resource URI path of the list endpoint, without query
+	 * @param queryParameters
+	 *            {@link QueryParameters} of the first page, may be null
+	 * @param pageClass
+	 *            Page {@link Class} used in De-serialization
+	 * @param reader
+	 *            {@link PageReader} of the pages
+	 * @param lookAhead
+	 *            Maximum number of pages fetched ahead of the page being
+	 *            consumed, zero fetches each page on demand
+	 */
+	public PageIterator(APIContext apiContext, String resourcePath,
+			QueryParameters queryParameters, Class<P> pageClass,
+			PageReader<P, E> reader, int lookAhead) {
+		if (apiContext == null) {
+			throw new IllegalArgumentException("apiContext cannot be null");
+		}
+		if (resourcePath == null || pageClass == null || reader == null) {
+			throw new IllegalArgumentException(
+					"resourcePath, pageClass and reader cannot be null");
+		}
+		if (lookAhead < 0) {
+			throw new IllegalArgumentException("lookAhead cannot be negative");
+		}
+		this.apiContext = apiContext;
+		this.resourcePath = resourcePath;
+		this.pageClass = pageClass;
+		this.reader = reader;
+		this.lookAhead = lookAhead;
+		this.deadline = Deadline.getCurrent();
+		this.nextQuery = queryParameters != null ? new HashMap<String, String>(
+				queryParameters.getContainerMap())
+				: new HashMap<String, String>();
+	}
+
+	public boolean hasNext() {
+		while (!current.hasNext()) {
+			P page = takePage();
+			if (page == null) {
+				return false;
+			}
+			List<E> items = reader.getItems(page);
+			if (items != null) {
+				current = items.iterator();
+			}
+		}
+		return true;
+	}
+
+	public E next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return current.next();
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Stops fetching further pages. Items of pages already fetched are still
+	 * returned
+	 */
+	public synchronized void close() {
+		closed = true;
+		nextQuery = null;
+	}
+
+	/*
+	 * Takes the next fetched page, waiting for the request in flight or
+	 * fetching it on the calling thread. Returns null after the last page
+	 */
+	private P takePage() {
+		Map<String, String> query = null;
+		synchronized (this) {
+			while (true) {
+				if (!pages.isEmpty()) {
+					P page = pages.removeFirst();
+					prefetch();
+					return page;
+				}
+				if (failure != null) {
+					throw new PageIterationException(failure);
+				}
+				if (!fetching) {
+					if (nextQuery == null) {
+						return null;
+					}
+					query = nextQuery;
+					nextQuery = null;
+					fetching = true;
+					break;
+				}
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new PageIterationException(new PayPalRESTException(
+							"Interrupted waiting for page", e));
+				}
+			}
+		}
+		fetch(query);
+		return takePage();
+	}
+
+	/*
+	 * Starts fetching the next page in the background if the look-ahead
+	 * allows. Called holding the lock
+	 */
+	private void prefetch() {
+		if (fetching || failure != null || nextQuery == null
+				|| pages.size() >= lookAhead) {
+			return;
+		}
+		final Map<String, String> query = nextQuery;
+		nextQuery = null;
+		fetching = true;
+		try {
+			ConnectionManager.getInstance().getExecutorService()
+					.execute(new Runnable() {
+						public void run() {
+							Deadline.setCurrent(deadline);
+							try {
+								fetch(query);
+							} finally {
+								Deadline.setCurrent(null);
+							}
+						}
+					});
+		} catch (RejectedExecutionException e) {
+
+			// Fetched on demand by the consuming thread
+			nextQuery = query;
+			fetching = false;
+		}
+	}
+
+	/*
+	 * Requests a page and computes the query of the following one
+	 */
+	private void fetch(Map<String, String> query) {
+		P page = null;
+		PayPalRESTException exception = null;
+		try {
+			page = PayPalResource.configureAndExecute(apiContext,
+					HttpMethod.GET,
+					RESTUtil.formatURIPath(resourcePath, null, query), null,
+					pageClass);
+		} catch (PayPalRESTException e) {
+			exception = e;
+		} catch (RuntimeException e) {
+			exception = new PayPalRESTException(e.getMessage(), e);
+		}
+		synchronized (this) {
+			fetching = false;
+			if (exception != null) {
+				failure = exception;
+			} else if (page != null) {
+				pages.addLast(page);
+				if (!closed) {
+					nextQuery = nextQuery(query, page);
+				}
+				prefetch();
+			}
+			notifyAll();
+		}
+	}
+
+	/*
+	 * Query of the page following the passed one, null if it is the last
+	 */
+	private Map<String, String> nextQuery(Map<String, String> query, P page) {
+		List<E> items = reader.getItems(page);
+		int size = items != null ? items.size() : 0;
+		if (size == 0) {
+			return null;
+		}
+		Map<String, String> next = new HashMap<String, String>(query);
+		String nextId = reader.getNextId(page);
+		if (nextId != null && nextId.trim().length() > 0) {
+			next.remove(STARTINDEX);
+			next.put(STARTID, nextId);
+			return next;
+		}
+		if (size < parseInt(query.get(COUNT), 0)) {
+			return null;
+		}
+		next.remove(STARTID);
+		next.put(STARTINDEX,
+				String.valueOf(parseInt(query.get(STARTINDEX), 0) + size));
+		return next;
+	}
+
+	private static int parseInt(String value, int defaultValue) {
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+}
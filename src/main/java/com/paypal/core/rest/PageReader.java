@@ -0,0 +1,36 @@
+package com.paypal.core.rest;
+
+import java.util.List;
+
+/**
+ * <code>PageReader</code> extracts the items and the paging cursor from a
+ * page returned by a list endpoint, for use by {@link PageIterator}
+ * 
+ * @param <P>
+ *            Page Type, for example PaymentHistory
+ * @param <E>
+ *            Item Type, for example Payment
+ */
+public interface PageReader<P, E> {
+
+	/**
+	 * Returns the items of the page
+	 * 
+	 * @param page
+	 *            Page returned by the service
+	 * @return Items of the page, null or empty if the page has no items
+	 */
+	List<E> getItems(P page);
+
+	/**
+	 * Returns the id of the first item of the next page, sent as start_id
+	 * for the next page. If the endpoint does not return one the next page is
+	 * requested by start_index
+	 * 
+	 * @param page
+	 *            Page returned by the service
+	 * @return Next id, null if not available
+	 */
+	String getNextId(P page);
+
+}
@@ -5,17 +5,23 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import com.paypal.core.APICallPreHandler;
 import com.paypal.core.ConfigManager;
 import com.paypal.core.ConnectionManager;
 import com.paypal.core.Constants;
+import com.paypal.core.Deadline;
+import com.paypal.core.DiagnosticCapture;
+import com.paypal.core.DiagnosticExchange;
 import com.paypal.core.HttpConfiguration;
 import com.paypal.core.HttpConnection;
+import com.paypal.core.HttpRequestBody;
 import com.paypal.core.LoggingManager;
+import com.paypal.core.SDKConfig;
 import com.paypal.core.SDKUtil;
 import com.paypal.core.SDKVersion;
 
@@ -39,16 +45,6 @@ public abstract class PayPalResource {
 	 */
 	private static boolean configInitialized = false;
 
-	/**
-	 * Last request sent to Service
-	 */
-	private static final ThreadLocal<String> LASTREQUEST = new ThreadLocal<String>();
-
-	/**
-	 * Last response returned form Service
-	 */
-	private static final ThreadLocal<String> LASTRESPONSE = new ThreadLocal<String>();
-
 	/**
 	 * Initialize the system using a File(Properties file). The system is
 	 * initialized using the given file and if the initialization succeeds the
@@ -151,26 +147,33 @@ public abstract class PayPalResource {
 	 * @throws PayPalRESTException
 	 */
 	public static void initializeToDefault() throws PayPalRESTException {
-		configurationMap = SDKUtil.combineDefaultMap(ConfigManager
-				.getInstance().getConfigurationMap());
+		configurationMap = ConfigManager.getInstance().getConfigurationView();
 	}
 
 	/**
-	 * Returns the last request sent to the Service
+	 * Returns the last request sent to the Service by the current thread, as
+	 * recorded by {@link DiagnosticCapture}: masked and truncated to
+	 * 'diagnostic.MaxBodyLength'
 	 * 
-	 * @return Last request sent to the server
+	 * @return Last request sent to the server, null if none
 	 */
 	public static String getLastRequest() {
-		return LASTREQUEST.get();
+		DiagnosticExchange exchange = DiagnosticCapture.getInstance()
+				.getLastExchange();
+		return exchange != null ? exchange.getRequest() : null;
 	}
 
 	/**
-	 * Returns the last response returned by the Service
+	 * Returns the last response returned by the Service to the current
+	 * thread, as recorded by {@link DiagnosticCapture}: masked and truncated
+	 * to 'diagnostic.MaxBodyLength'
 	 * 
-	 * @return Last response got from the Service
+	 * @return Last response got from the Service, null if none
 	 */
 	public static String getLastResponse() {
-		return LASTRESPONSE.get();
+		DiagnosticExchange exchange = DiagnosticCapture.getInstance()
+				.getLastExchange();
+		return exchange != null ? exchange.getResponse() : null;
 	}
 
 	/**
@@ -220,40 +223,128 @@ public abstract class PayPalResource {
 	public static <T> T configureAndExecute(APIContext apiContext,
 			HttpMethod httpMethod, String resourcePath, String payLoad,
 			Class<T> clazz) throws PayPalRESTException {
+		return configureAndExecute(apiContext, httpMethod, resourcePath,
+				payLoad, null, clazz);
+	}
+
+	/**
+	 * Configures and executes REST call: Supports JSON. The resource is
+	 * serialized to compact JSON straight into the request body, without an
+	 * intermediate String
+	 * 
+	 * @param <T>
+	 *            Response Type for de-serialization
+	 * @param apiContext
+	 *            {@link APIContext} to be used for the call.
+	 * @param httpMethod
+	 *            Http Method verb
+	 * @param resourcePath
+	 *            Resource URI path
+	 * @param resource
+	 *            Object sent as JSON payload, may be null
+	 * @param clazz
+	 *            {@link Class} object used in De-serialization
+	 * @return T
+	 * @throws PayPalRESTException
+	 */
+	public static <T> T configureAndExecute(APIContext apiContext,
+			HttpMethod httpMethod, String resourcePath, Object resource,
+			Class<T> clazz) throws PayPalRESTException {
+		if (resource instanceof String) {
+			return configureAndExecute(apiContext, httpMethod, resourcePath,
+					(String) resource, null, clazz);
+		}
+		return configureAndExecute(apiContext, httpMethod, resourcePath,
+				null, resource, clazz);
+	}
+
+	private static <T> T configureAndExecute(APIContext apiContext,
+			HttpMethod httpMethod, String resourcePath, String payLoad,
+			Object resource, Class<T> clazz) throws PayPalRESTException {
 		T t = null;
 		Map<String, String> cMap = null;
 		String accessToken = null;
 		String requestId = null;
 		Map<String, String> headersMap = null;
 		if (apiContext != null) {
+			/*
+			 * The read-only Map of the cached configuration snapshot is
+			 * already combined with default values
+			 */
 			if (apiContext.getConfigurationMap() != null) {
-				cMap = SDKUtil.combineDefaultMap(apiContext
-						.getConfigurationMap());
+				cMap = SDKConfig.getInstance(
+						apiContext.getConfigurationMap())
+						.getConfigurationMap();
 			} else {
 				if (!configInitialized) {
 					initializeToDefault();
 				}
-
-				/*
-				 * The Map returned here is already combined with default values
-				 */
-				cMap = new HashMap<String, String>(
-						PayPalResource.configurationMap);
+				cMap = SDKConfig.getInstance(PayPalResource.configurationMap)
+						.getConfigurationMap();
 			}
 			headersMap = apiContext.getHTTPHeaders();
 			accessToken = apiContext.getAccessToken();
 			requestId = apiContext.getRequestId();
 
-			APICallPreHandler apiCallPreHandler = createAPICallPreHandler(cMap,
-					payLoad, resourcePath, headersMap, accessToken, requestId,
-					apiContext.getSdkVersion());
-			HttpConfiguration httpConfiguration = createHttpConfiguration(cMap,
-					httpMethod, apiCallPreHandler);
-			t = execute(apiCallPreHandler, httpConfiguration, clazz);
+			Deadline previous = enterRequestTimeout(apiContext, cMap);
+			try {
+				APICallPreHandler apiCallPreHandler = createAPICallPreHandler(
+						cMap, payLoad, resourcePath, headersMap, accessToken,
+						requestId, apiContext.getSdkVersion());
+				HttpConfiguration httpConfiguration = createHttpConfiguration(
+						cMap, httpMethod, apiCallPreHandler);
+				t = execute(cMap, apiCallPreHandler, resource,
+						httpConfiguration, clazz);
+			} finally {
+				Deadline.setCurrent(previous);
+			}
 		}
 		return t;
 	}
 
+	/**
+	 * Configures and executes REST call asynchronously: Supports JSON. The call
+	 * runs on a worker thread of the
+	 * {@link java.util.concurrent.ExecutorService} configured in
+	 * {@link ConnectionManager}, the calling thread is not blocked. Failures
+	 * are reported through the returned {@link Future} as an
+	 * {@link java.util.concurrent.ExecutionException} wrapping the
+	 * {@link PayPalRESTException}. Note that getLastRequest() and
+	 * getLastResponse() are recorded on the worker thread
+	 * 
+	 * @param <T>
+	 *            Response Type for de-serialization
+	 * @param apiContext
+	 *            {@link APIContext} to be used for the call.
+	 * @param httpMethod
+	 *            Http Method verb
+	 * @param resourcePath
+	 *            Resource URI path
+	 * @param payLoad
+	 *            Payload to Service
+	 * @param clazz
+	 *            {@link Class} object used in De-serialization
+	 * @return {@link Future} of T
+	 */
+	public static <T> Future<T> configureAndExecuteAsync(
+			final APIContext apiContext, final HttpMethod httpMethod,
+			final String resourcePath, final String payLoad,
+			final Class<T> clazz) {
+		final Deadline deadline = Deadline.getCurrent();
+		return ConnectionManager.getInstance().getExecutorService()
+				.submit(new Callable<T>() {
+					public T call() throws PayPalRESTException {
+						Deadline.setCurrent(deadline);
+						try {
+							return configureAndExecute(apiContext, httpMethod,
+									resourcePath, payLoad, clazz);
+						} finally {
+							Deadline.setCurrent(null);
+						}
+					}
+				});
+	}
+
 	/**
 	 * Configures and executes REST call: Supports JSON
 	 * 
@@ -286,8 +377,30 @@ public abstract class PayPalResource {
 			accessToken = apiContext.getAccessToken();
 			requestId = apiContext.getRequestId();
 		}
-		return configureAndExecute(cMap, accessToken, httpMethod, resourcePath,
-				headersMap, payLoad, requestId, clazz);
+		Deadline previous = enterRequestTimeout(apiContext, null);
+		try {
+			return configureAndExecute(cMap, accessToken, httpMethod,
+					resourcePath, headersMap, payLoad, requestId, clazz);
+		} finally {
+			Deadline.setCurrent(previous);
+		}
+	}
+
+	/*
+	 * Scopes the request timeouts of the APIContext and of the configuration,
+	 * if resolved, to the calling thread and returns the previously scoped
+	 * Deadline to restore afterwards
+	 */
+	private static Deadline enterRequestTimeout(APIContext apiContext,
+			Map<String, String> cMap) {
+		Deadline previous = Deadline.getCurrent();
+		if (apiContext != null) {
+			Deadline.enter(apiContext.getRequestTimeout());
+		}
+		if (cMap != null) {
+			Deadline.enter(SDKConfig.getInstance(cMap).getRequestTimeout());
+		}
+		return previous;
 	}
 
 	private static <T> T configureAndExecute(
@@ -302,7 +415,8 @@ public abstract class PayPalResource {
 		 * Check for null before combining with default
 		 */
 		if (configurationMap != null) {
-			cMap = SDKUtil.combineDefaultMap(configurationMap);
+			cMap = SDKConfig.getInstance(configurationMap)
+					.getConfigurationMap();
 		} else {
 			if (!configInitialized) {
 				initializeToDefault();
@@ -311,14 +425,22 @@ public abstract class PayPalResource {
 			/*
 			 * The Map returned here is already combined with default values
 			 */
-			cMap = new HashMap<String, String>(PayPalResource.configurationMap);
+			cMap = SDKConfig.getInstance(PayPalResource.configurationMap)
+					.getConfigurationMap();
 		}
 
-		APICallPreHandler apiCallPreHandler = createAPICallPreHandler(cMap,
-				payLoad, resourcePath, headersMap, accessToken, requestId, null);
-		HttpConfiguration httpConfiguration = createHttpConfiguration(cMap,
-				httpMethod, apiCallPreHandler);
-		t = execute(apiCallPreHandler, httpConfiguration, clazz);
+		Deadline previous = enterRequestTimeout(null, cMap);
+		try {
+			APICallPreHandler apiCallPreHandler = createAPICallPreHandler(
+					cMap, payLoad, resourcePath, headersMap, accessToken,
+					requestId, null);
+			HttpConfiguration httpConfiguration = createHttpConfiguration(
+					cMap, httpMethod, apiCallPreHandler);
+			t = execute(cMap, apiCallPreHandler, null, httpConfiguration,
+					clazz);
+		} finally {
+			Deadline.setCurrent(previous);
+		}
 		return t;
 	}
 
@@ -359,12 +481,19 @@ public abstract class PayPalResource {
 	}
 
 	/**
-	 * Execute the API call and return response
+	 * Execute the API call and return response. The request body is written
+	 * from the payload bytes and the response is de-serialized while it is
+	 * read from the connection
 	 * 
 	 * @param <T>
 	 *            Generic Type for response object construction
+	 * @param configurationMap
+	 *            Configuration {@link Map} of the call
 	 * @param apiCallPreHandler
 	 *            Implementation of {@link APICallPreHandler}
+	 * @param resource
+	 *            Object sent as JSON payload instead of the payload of the
+	 *            {@link APICallPreHandler}, may be null
 	 * @param httpConfiguration
 	 *            {@link HttpConfiguration}
 	 * @param clazz
@@ -372,33 +501,52 @@ public abstract class PayPalResource {
 	 * @return Response Type
 	 * @throws PayPalRESTException
 	 */
-	private static <T> T execute(APICallPreHandler apiCallPreHandler,
+	private static <T> T execute(Map<String, String> configurationMap,
+			APICallPreHandler apiCallPreHandler, Object resource,
 			HttpConfiguration httpConfiguration, Class<T> clazz)
 			throws PayPalRESTException {
 		T t = null;
-		ConnectionManager connectionManager;
-		HttpConnection httpConnection;
-		Map<String, String> headers;
-		String responseString;
+		ConnectionManager connectionManager = ConnectionManager.getInstance();
+		DiagnosticCapture diagnosticCapture = DiagnosticCapture.getInstance();
+		boolean captured = diagnosticCapture.begin(configurationMap);
+		long startTime = System.currentTimeMillis();
+		HttpConnection httpConnection = null;
+		Map<String, String> headers = null;
+		Object request = null;
+		JSONResponseHandler<T> handler = null;
+		Exception error = null;
 		try {
 
 			// REST Headers
 			headers = apiCallPreHandler.getHeaderMap();
 
 			// HttpConnection Initialization
-			connectionManager = ConnectionManager.getInstance();
-			httpConnection = connectionManager.getConnection(httpConfiguration);
+			httpConnection = connectionManager
+					.leaseConnection(httpConfiguration);
 			httpConnection.createAndconfigureHttpConnection(httpConfiguration);
 
-			LASTREQUEST.set(apiCallPreHandler.getPayLoad());
-			responseString = httpConnection.execute(null,
-					apiCallPreHandler.getPayLoad(), headers);
-			LASTRESPONSE.set(responseString);
-			if (clazz != null) {
-				t = JSONFormatter.fromJSON(responseString, clazz);
+			HttpRequestBody body;
+			if (resource != null) {
+				body = new JSONRequestBody(resource);
+				request = body;
+			} else {
+				body = HttpRequestBody.create(apiCallPreHandler.getPayLoad());
+				request = apiCallPreHandler.getPayLoad();
 			}
+
+			handler = new JSONResponseHandler<T>(clazz);
+			t = httpConnection.execute(null, body, headers, handler);
 		} catch (Exception e) {
+			error = e;
 			throw new PayPalRESTException(e.getMessage(), e);
+		} finally {
+			connectionManager.releaseConnection(httpConnection);
+			diagnosticCapture.record(configurationMap, captured,
+					headers != null ? headers
+							.get(Constants.PAYPAL_REQUEST_ID_HEADER) : null,
+					httpConfiguration.getHttpMethod(), httpConfiguration
+							.getEndPointUrl(), startTime, request,
+					error == null ? handler : null, error);
 		}
 		return t;
 	}
@@ -420,35 +568,12 @@ public abstract class PayPalResource {
 	private static HttpConfiguration createHttpConfiguration(
 			Map<String, String> configurationMap, HttpMethod httpMethod,
 			APICallPreHandler apiCallPreHandler) {
-		HttpConfiguration httpConfiguration = new HttpConfiguration();
+		SDKConfig sdkConfig = SDKConfig.getInstance(configurationMap);
+		HttpConfiguration httpConfiguration = sdkConfig
+				.applyTo(new HttpConfiguration());
 		httpConfiguration.setHttpMethod(httpMethod.toString());
 		httpConfiguration.setEndPointUrl(apiCallPreHandler.getEndPoint());
-		httpConfiguration
-				.setGoogleAppEngine(Boolean.parseBoolean(configurationMap
-						.get(Constants.GOOGLE_APP_ENGINE)));
-		if (Boolean.parseBoolean(configurationMap
-				.get((Constants.USE_HTTP_PROXY)))) {
-			httpConfiguration.setProxyPort(Integer.parseInt(configurationMap
-					.get((Constants.HTTP_PROXY_PORT))));
-			httpConfiguration.setProxyHost(configurationMap
-					.get((Constants.HTTP_PROXY_HOST)));
-			httpConfiguration.setProxyUserName(configurationMap
-					.get((Constants.HTTP_PROXY_USERNAME)));
-			httpConfiguration.setProxyPassword(configurationMap
-					.get((Constants.HTTP_PROXY_PASSWORD)));
-		}
-		httpConfiguration.setConnectionTimeout(Integer
-				.parseInt(configurationMap
-						.get(Constants.HTTP_CONNECTION_TIMEOUT)));
-		httpConfiguration.setMaxRetry(Integer.parseInt(configurationMap
-				.get(Constants.HTTP_CONNECTION_RETRY)));
-		httpConfiguration.setReadTimeout(Integer.parseInt(configurationMap
-				.get(Constants.HTTP_CONNECTION_READ_TIMEOUT)));
-		httpConfiguration.setMaxHttpConnection(Integer
-				.parseInt(configurationMap
-						.get(Constants.HTTP_CONNECTION_MAX_CONNECTION)));
-		httpConfiguration.setIpAddress(configurationMap
-				.get(Constants.DEVICE_IP_ADDRESS));
+		httpConfiguration.setConnectionClass(sdkConfig.getConnectionClass());
 		return httpConfiguration;
 	}
 
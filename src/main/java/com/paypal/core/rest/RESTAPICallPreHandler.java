@@ -1,21 +1,18 @@
 package com.paypal.core.rest;
 
-import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import com.paypal.core.APICallPreHandler;
 import com.paypal.core.Constants;
-import com.paypal.core.SDKUtil;
+import com.paypal.core.SDKConfig;
 import com.paypal.core.SDKVersion;
-import com.paypal.core.codec.binary.Base64;
 import com.paypal.core.credential.ICredential;
 import com.paypal.exception.ClientActionRequiredException;
-import com.paypal.sdk.util.UserAgentHeader;
 
 /**
  * RESTApiCallPreHandler acts as a {@link APICallPreHandler} for REST API calls.
@@ -81,6 +78,11 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 	 */
 	private SDKVersion sdkVersion;
 
+	/**
+	 * {@link RESTHeaderTemplate} for the configuration and {@link SDKVersion}
+	 */
+	private RESTHeaderTemplate headerTemplate;
+
 	/**
 	 * Constructor using configurations dynamically
 	 * 
@@ -88,7 +90,8 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 	 *            Map used for dynamic configuration
 	 */
 	public RESTAPICallPreHandler(Map<String, String> configurationMap) {
-		this.configurationMap = SDKUtil.combineDefaultMap(configurationMap);
+		this.configurationMap = SDKConfig.getInstance(configurationMap)
+				.getConfigurationMap();
 	}
 
 	/**
@@ -144,6 +147,7 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 	 */
 	public void setSdkVersion(SDKVersion sdkVersion) {
 		this.sdkVersion = sdkVersion;
+		this.headerTemplate = null;
 	}
 
 	/**
@@ -185,25 +189,11 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 		 * Check for property 'service.EndPoint' in the configuration, if not
 		 * found, check for 'mode' property in the configuration and default
 		 * endpoint to PayPal sandbox or live endpoints. Throw exception if the
-		 * above rules fail
+		 * above rules fail. The URL is resolved once per configuration by the
+		 * header template
 		 */
 		if (url == null) {
-			String urlString = this.configurationMap.get(Constants.ENDPOINT);
-			if (urlString == null || urlString.length() <= 0) {
-				String mode = this.configurationMap.get(Constants.MODE);
-				if (Constants.SANDBOX.equalsIgnoreCase(mode)) {
-					urlString = Constants.REST_SANDBOX_ENDPOINT;
-				} else if (Constants.LIVE.equalsIgnoreCase(mode)) {
-					urlString = Constants.REST_LIVE_ENDPOINT;
-				} else {
-					throw new MalformedURLException(
-							"service.EndPoint not set (OR) mode not configured to sandbox/live ");
-				}
-			}
-			if (!urlString.endsWith("/")) {
-				urlString += "/";
-			}
-			url = new URL(urlString);
+			url = getHeaderTemplate().getBaseURL();
 		}
 		return url;
 	}
@@ -228,46 +218,19 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 	 * @return {@link Map} storing the User-Agent header
 	 */
 	protected Map<String, String> formUserAgentHeader() {
-		UserAgentHeader userAgentHeader = new UserAgentHeader(
-				sdkVersion != null ? sdkVersion.getSDKId() : null,
-				sdkVersion != null ? sdkVersion.getSDKVersion() : null);
-		return userAgentHeader.getHeader();
+		return getHeaderTemplate().getUserAgentHeader();
 	}
 
 	/*
-	 * Return Client ID from configuration Map
+	 * Returns the cached header template for the configuration Map and
+	 * SDKVersion
 	 */
-	private String getClientID() {
-		return this.configurationMap.get(Constants.CLIENT_ID);
-	}
-
-	/*
-	 * Returns Client Secret from configuration Map
-	 */
-	private String getClientSecret() {
-		return this.configurationMap.get(Constants.CLIENT_SECRET);
-	}
-
-	/*
-	 * Encodes Client ID and Client Secret in Base 64
-	 */
-	private String encodeToBase64(String clientID, String clientSecret)
-			throws UnsupportedEncodingException {
-		String base64ClientID = generateBase64String(clientID + ":"
-				+ clientSecret);
-		return base64ClientID;
-	}
-
-	/*
-	 * Generate a Base64 encoded String from clientID & clientSecret
-	 */
-	private String generateBase64String(String clientID)
-			throws UnsupportedEncodingException {
-		String base64ClientID = null;
-		byte[] encoded = null;
-		encoded = Base64.encodeBase64(clientID.getBytes("UTF-8"));
-		base64ClientID = new String(encoded, "UTF-8");
-		return base64ClientID;
+	private RESTHeaderTemplate getHeaderTemplate() {
+		if (headerTemplate == null) {
+			headerTemplate = RESTHeaderTemplate.getInstance(
+					this.configurationMap, sdkVersion);
+		}
+		return headerTemplate;
 	}
 
 	/**
@@ -284,7 +247,12 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 		 */
 		String endPoint = null;
 		try {
-			endPoint = getBaseURL().toURI().resolve(resourcePath).toString();
+			URL baseURL = getBaseURL();
+			URI baseURI = getHeaderTemplate().getBaseURI();
+			if (baseURI == null || baseURL != getHeaderTemplate().getBaseURL()) {
+				baseURI = baseURL.toURI();
+			}
+			endPoint = baseURI.resolve(resourcePath).toString();
 		} catch (MalformedURLException e) {
 			//
 		} catch (URISyntaxException e) {
@@ -305,21 +273,15 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 		 * formed for OAuth or Basic, for OAuth system the authorization token
 		 * passed as a parameter is used in creation of HTTP header, for Basic
 		 * Authorization the ClientID and ClientSecret passed as parameters are
-		 * used after a Base64 encoding.
+		 * used after a Base64 encoding. The Basic Authorization value, the
+		 * User-Agent and the default Content-Type are computed once per
+		 * configuration by the header template, per-request headers are
+		 * layered on top of it.
 		 */
-		Map<String, String> headers = new HashMap<String, String>();
+		Map<String, String> headers = getHeaderTemplate().newHeaderMap();
 		if (authorizationToken != null
 				&& authorizationToken.trim().length() > 0) {
 			headers.put(Constants.AUTHORIZATION_HEADER, authorizationToken);
-		} else if (getClientID() != null && getClientID().trim().length() > 0
-				&& getClientSecret() != null
-				&& getClientSecret().trim().length() > 0) {
-			try {
-				headers.put(Constants.AUTHORIZATION_HEADER, "Basic "
-						+ encodeToBase64(getClientID(), getClientSecret()));
-			} catch (UnsupportedEncodingException e) {
-				// TODO
-			}
 		}
 
 		/*
@@ -340,14 +302,10 @@ public class RESTAPICallPreHandler implements APICallPreHandler {
 			headers.putAll(headersMap);
 		}
 
-		// Add application/json as the default Content-Type
-		// backward compatibility for PayPal rest sdks which
+		// application/json is the default Content-Type in the template
+		// for backward compatibility with PayPal rest sdks which
 		// does not add Content-Type HTTP header in the sdk
-		// stubs
-		if (!headers.containsKey(Constants.HTTP_CONTENT_TYPE_HEADER)) {
-			headers.put(Constants.HTTP_CONTENT_TYPE_HEADER,
-					Constants.HTTP_CONTENT_TYPE_JSON);
-		}
+		// stubs, custom headers override it
 		return headers;
 	}
 
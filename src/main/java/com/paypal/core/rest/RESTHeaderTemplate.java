@@ -0,0 +1,452 @@
+package com.paypal.core.rest;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.paypal.core.Constants;
+import com.paypal.core.SDKVersion;
+import com.paypal.core.codec.binary.Base64;
+import com.paypal.sdk.util.UserAgentHeader;
+
+/**
+ * <code>RESTHeaderTemplate</code> holds the parts of a REST request that
+ * depend only on the configuration: the Basic Authorization value formed from
+ * the client credentials, the User-Agent, the default Content-Type and the
+ * base endpoint. Templates are immutable and cached per configuration, so a
+ * call only allocates a {@link HeaderMap} overlay for its per-request headers
+ * (token, request id and custom headers).
+ *
+ */
+final class RESTHeaderTemplate {
+
+	/**
+	 * Maximum number of cached templates, the cache is cleared when exceeded
+	 */
+	private static final int MAX_TEMPLATES = 256;
+
+	/**
+	 * Cached templates keyed by the configuration values they depend on
+	 */
+	private static final ConcurrentMap<Key, RESTHeaderTemplate> TEMPLATES = new ConcurrentHashMap<Key, RESTHeaderTemplate>();
+
+	/**
+	 * Immutable configuration headers
+	 */
+	private final Map<String, String> headers;
+
+	/**
+	 * User-Agent header as a single entry {@link Map}
+	 */
+	private final Map<String, String> userAgentHeader;
+
+	/**
+	 * Base URL ending with a '/' character, null if it cannot be formed
+	 */
+	private final URL baseURL;
+
+	/**
+	 * Base URL as {@link URI}, null if it cannot be formed
+	 */
+	private final URI baseURI;
+
+	/**
+	 * Reason the base URL could not be formed
+	 */
+	private final String baseURLError;
+
+	private RESTHeaderTemplate(Key key) {
+		Map<String, String> map = new HashMap<String, String>();
+		if (key.clientID != null && key.clientID.trim().length() > 0
+				&& key.clientSecret != null
+				&& key.clientSecret.trim().length() > 0) {
+			try {
+				map.put(Constants.AUTHORIZATION_HEADER, "Basic "
+						+ encodeToBase64(key.clientID, key.clientSecret));
+			} catch (UnsupportedEncodingException e) {
+				// UTF-8 is supported by every Java platform
+				throw new IllegalStateException(e);
+			}
+		}
+		userAgentHeader = Collections.unmodifiableMap(new UserAgentHeader(
+				key.sdkId, key.sdkVersion).getHeader());
+		map.putAll(userAgentHeader);
+		map.put(Constants.HTTP_CONTENT_TYPE_HEADER,
+				Constants.HTTP_CONTENT_TYPE_JSON);
+		headers = Collections.unmodifiableMap(map);
+
+		/*
+		 * Check for property 'service.EndPoint' in the configuration, if not
+		 * found, check for 'mode' property in the configuration and default
+		 * endpoint to PayPal sandbox or live endpoints.
+		 */
+		String urlString = key.endpoint;
+		if (urlString == null || urlString.length() <= 0) {
+			if (Constants.SANDBOX.equalsIgnoreCase(key.mode)) {
+				urlString = Constants.REST_SANDBOX_ENDPOINT;
+			} else if (Constants.LIVE.equalsIgnoreCase(key.mode)) {
+				urlString = Constants.REST_LIVE_ENDPOINT;
+			}
+		}
+		URL url = null;
+		URI uri = null;
+		String error = null;
+		if (urlString == null || urlString.length() <= 0) {
+			error = "service.EndPoint not set (OR) mode not configured to sandbox/live ";
+		} else {
+			if (!urlString.endsWith("/")) {
+				urlString += "/";
+			}
+			try {
+				url = new URL(urlString);
+				uri = url.toURI();
+			} catch (MalformedURLException e) {
+				error = e.getMessage();
+			} catch (URISyntaxException e) {
+				// URL is usable, endpoints are resolved per call
+			}
+		}
+		baseURL = url;
+		baseURI = uri;
+		baseURLError = error;
+	}
+
+	/**
+	 * Returns the template for the passed configuration and {@link SDKVersion}
+	 *
+	 * @param configurationMap
+	 *            Configuration {@link Map}
+	 * @param sdkVersion
+	 *            {@link SDKVersion}, may be null
+	 * @return {@link RESTHeaderTemplate}
+	 */
+	static RESTHeaderTemplate getInstance(Map<String, String> configurationMap,
+			SDKVersion sdkVersion) {
+		Key key = new Key(configurationMap.get(Constants.CLIENT_ID),
+				configurationMap.get(Constants.CLIENT_SECRET),
+				configurationMap.get(Constants.ENDPOINT),
+				configurationMap.get(Constants.MODE),
+				sdkVersion != null ? sdkVersion.getSDKId() : null,
+				sdkVersion != null ? sdkVersion.getSDKVersion() : null);
+		RESTHeaderTemplate template = TEMPLATES.get(key);
+		if (template == null) {
+			if (TEMPLATES.size() >= MAX_TEMPLATES) {
+				TEMPLATES.clear();
+			}
+			template = new RESTHeaderTemplate(key);
+			RESTHeaderTemplate existing = TEMPLATES.putIfAbsent(key, template);
+			if (existing != null) {
+				template = existing;
+			}
+		}
+		return template;
+	}
+
+	/**
+	 * @return immutable configuration headers
+	 */
+	Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return immutable User-Agent header {@link Map}
+	 */
+	Map<String, String> getUserAgentHeader() {
+		return userAgentHeader;
+	}
+
+	/**
+	 * @return Base URL ending with a '/' character
+	 * @throws MalformedURLException
+	 *             if endpoint cannot be found or formed
+	 */
+	URL getBaseURL() throws MalformedURLException {
+		if (baseURL == null) {
+			throw new MalformedURLException(baseURLError);
+		}
+		return baseURL;
+	}
+
+	/**
+	 * @return Base URL as {@link URI}, null if it cannot be formed
+	 */
+	URI getBaseURI() {
+		return baseURI;
+	}
+
+	/**
+	 * Creates a mutable header {@link Map} layered over the template headers
+	 *
+	 * @return {@link HeaderMap}
+	 */
+	HeaderMap newHeaderMap() {
+		return new HeaderMap(headers);
+	}
+
+	/*
+	 * Encodes Client ID and Client Secret in Base 64
+	 */
+	private static String encodeToBase64(String clientID, String clientSecret)
+			throws UnsupportedEncodingException {
+		byte[] encoded = Base64.encodeBase64((clientID + ":" + clientSecret)
+				.getBytes("UTF-8"));
+		return new String(encoded, "UTF-8");
+	}
+
+	/**
+	 * Cache key formed from the configuration values a template depends on
+	 */
+	private static final class Key {
+
+		private final String clientID;
+
+		private final String clientSecret;
+
+		private final String endpoint;
+
+		private final String mode;
+
+		private final String sdkId;
+
+		private final String sdkVersion;
+
+		private final int hash;
+
+		Key(String clientID, String clientSecret, String endpoint,
+				String mode, String sdkId, String sdkVersion) {
+			this.clientID = clientID;
+			this.clientSecret = clientSecret;
+			this.endpoint = endpoint;
+			this.mode = mode;
+			this.sdkId = sdkId;
+			this.sdkVersion = sdkVersion;
+			int h = 17;
+			h = 31 * h + hashCode(clientID);
+			h = 31 * h + hashCode(clientSecret);
+			h = 31 * h + hashCode(endpoint);
+			h = 31 * h + hashCode(mode);
+			h = 31 * h + hashCode(sdkId);
+			h = 31 * h + hashCode(sdkVersion);
+			this.hash = h;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && equal(clientID, other.clientID)
+					&& equal(clientSecret, other.clientSecret)
+					&& equal(endpoint, other.endpoint)
+					&& equal(mode, other.mode) && equal(sdkId, other.sdkId)
+					&& equal(sdkVersion, other.sdkVersion);
+		}
+
+		private static int hashCode(String value) {
+			return value != null ? value.hashCode() : 0;
+		}
+
+		private static boolean equal(String a, String b) {
+			return a == null ? b == null : a.equals(b);
+		}
+	}
+
+	/**
+	 * Mutable header {@link Map} that reads through to an immutable base
+	 * {@link Map}. Writes go to a small overlay that is only allocated when a
+	 * value differs from the base, and removals of base headers are recorded
+	 * as masked entries.
+	 */
+	static final class HeaderMap extends AbstractMap<String, String> {
+
+		/**
+		 * Marker for a base header that has been removed, compared by identity
+		 */
+		private static final String REMOVED = new String("");
+
+		private final Map<String, String> base;
+
+		private Map<String, String> overlay;
+
+		private Set<Map.Entry<String, String>> entrySet;
+
+		HeaderMap(Map<String, String> base) {
+			this.base = base;
+		}
+
+		public String get(Object key) {
+			if (overlay != null && overlay.containsKey(key)) {
+				String value = overlay.get(key);
+				return value == REMOVED ? null : value;
+			}
+			return base.get(key);
+		}
+
+		public boolean containsKey(Object key) {
+			if (overlay != null && overlay.containsKey(key)) {
+				return overlay.get(key) != REMOVED;
+			}
+			return base.containsKey(key);
+		}
+
+		public String put(String key, String value) {
+			String previous = get(key);
+			if (value != null && base.containsKey(key)
+					&& value.equals(base.get(key))) {
+				if (overlay != null) {
+					overlay.remove(key);
+				}
+			} else {
+				overlay().put(key, value);
+			}
+			return previous;
+		}
+
+		public String remove(Object key) {
+			String previous = get(key);
+			if (base.containsKey(key)) {
+				overlay().put((String) key, REMOVED);
+			} else if (overlay != null) {
+				overlay.remove(key);
+			}
+			return previous;
+		}
+
+		public void clear() {
+			overlay = null;
+			for (String key : base.keySet()) {
+				overlay().put(key, REMOVED);
+			}
+		}
+
+		public int size() {
+			int size = base.size();
+			if (overlay != null) {
+				for (Map.Entry<String, String> entry : overlay.entrySet()) {
+					if (base.containsKey(entry.getKey())) {
+						if (entry.getValue() == REMOVED) {
+							size--;
+						}
+					} else {
+						size++;
+					}
+				}
+			}
+			return size;
+		}
+
+		public Set<Map.Entry<String, String>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Map.Entry<String, String>>() {
+
+					public Iterator<Map.Entry<String, String>> iterator() {
+						return new EntryIterator();
+					}
+
+					public int size() {
+						return HeaderMap.this.size();
+					}
+				};
+			}
+			return entrySet;
+		}
+
+		private Map<String, String> overlay() {
+			if (overlay == null) {
+				overlay = new HashMap<String, String>(4);
+			}
+			return overlay;
+		}
+
+		/**
+		 * Iterates base entries not shadowed by the overlay, followed by the
+		 * overlay entries that are not removal markers
+		 */
+		private final class EntryIterator implements
+				Iterator<Map.Entry<String, String>> {
+
+			private final Iterator<Map.Entry<String, String>> baseItr = base
+					.entrySet().iterator();
+
+			private Iterator<Map.Entry<String, String>> overlayItr;
+
+			private Map.Entry<String, String> next;
+
+			private Map.Entry<String, String> current;
+
+			private boolean inOverlay;
+
+			public boolean hasNext() {
+				while (next == null) {
+					if (baseItr.hasNext()) {
+						Map.Entry<String, String> entry = baseItr.next();
+						if (overlay == null
+								|| !overlay.containsKey(entry.getKey())) {
+							next = entry;
+						}
+					} else {
+						if (overlay == null) {
+							return false;
+						}
+						if (overlayItr == null) {
+							overlayItr = overlay.entrySet().iterator();
+						}
+						if (!overlayItr.hasNext()) {
+							return false;
+						}
+						Map.Entry<String, String> entry = overlayItr.next();
+						if (entry.getValue() != REMOVED) {
+							next = entry;
+						}
+					}
+				}
+				return true;
+			}
+
+			public Map.Entry<String, String> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				current = next;
+				inOverlay = overlayItr != null;
+				next = null;
+				return current;
+			}
+
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				if (!inOverlay) {
+					overlay().put(current.getKey(), REMOVED);
+				} else if (base.containsKey(current.getKey())) {
+					current.setValue(REMOVED);
+				} else {
+					overlayItr.remove();
+				}
+				current = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.paypal.core.rest;
+
+import java.util.concurrent.Callable;
+
+/**
+ * <code>TokenStore</code> is the storage of OAuth access tokens consulted by
+ * {@link OAuthTokenManager} before requesting a token from the OAuth service.
+ * Tokens are stored by a digest of the client ID, the client secret and the
+ * OAuth endpoint. Implementations shared between processes, such as
+ * {@link FileTokenStore}, let co-located processes use one token per client
+ * instead of requesting their own.
+ * 
+ */
+public interface TokenStore {
+
+	/**
+	 * Returns the stored token
+	 * 
+	 * @param key
+	 *            Token key
+	 * @return {@link OAuthToken}, null if no token is stored
+	 * @throws PayPalRESTException
+	 */
+	OAuthToken get(String key) throws PayPalRESTException;
+
+	/**
+	 * Returns the stored token if it is not yet due for refresh, otherwise
+	 * calls the passed request and stores the token it returns.
+	 * Implementations shared between processes must make sure only one of
+	 * them calls the request at a time for the same key
+	 * 
+	 * @param key
+	 *            Token key
+	 * @param request
+	 *            Request for a new token from the OAuth service
+	 * @return {@link OAuthToken}
+	 * @throws PayPalRESTException
+	 */
+	OAuthToken refresh(String key, Callable<OAuthToken> request)
+			throws PayPalRESTException;
+
+	/**
+	 * Removes the stored token
+	 * 
+	 * @param key
+	 *            Token key
+	 * @throws PayPalRESTException
+	 */
+	void remove(String key) throws PayPalRESTException;
+
+}
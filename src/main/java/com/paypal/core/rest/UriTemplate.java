@@ -0,0 +1,407 @@
+package com.paypal.core.rest;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <code>UriTemplate</code> is a URI pattern parsed once into literal segments
+ * and placeholders, used by {@link RESTUtil} to format URI paths without
+ * re-parsing the pattern on every call. Templates are cached by pattern.
+ * Patterns using {@link MessageFormat} features other than plain indexed
+ * placeholders, and arguments other than Strings, are formatted by
+ * {@link MessageFormat} as before.
+ * 
+ */
+final class UriTemplate {
+
+	/**
+	 * Maximum number of cached templates, patterns built at runtime beyond
+	 * this are parsed per call
+	 */
+	private static final int MAX_CACHED_TEMPLATES = 512;
+
+	/**
+	 * Builder capacity above which the per-thread builder is not retained
+	 */
+	private static final int MAX_BUILDER_CAPACITY = 4096;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	private static final ConcurrentMap<String, UriTemplate> CACHE = new ConcurrentHashMap<String, UriTemplate>();
+
+	private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+		protected StringBuilder initialValue() {
+			return new StringBuilder(128);
+		}
+	};
+
+	/**
+	 * Original pattern
+	 */
+	private final String pattern;
+
+	/**
+	 * Literal text preceding each placeholder, the last entry follows the last
+	 * placeholder
+	 */
+	private final String[] literals;
+
+	/**
+	 * Placeholder names, without braces
+	 */
+	private final String[] names;
+
+	/**
+	 * Placeholder argument indexes, -1 if the name is not an index
+	 */
+	private final int[] indexes;
+
+	/**
+	 * True if the pattern is formatted like {@link MessageFormat} by
+	 * substituting indexed placeholders
+	 */
+	private final boolean indexed;
+
+	/**
+	 * Query parameter names having a placeholder value, in order of
+	 * appearance
+	 */
+	private final String[] queryNames;
+
+	private UriTemplate(String pattern) {
+		this.pattern = pattern;
+		List<String> literalList = new ArrayList<String>();
+		List<String> nameList = new ArrayList<String>();
+		boolean simple = pattern.indexOf('\'') < 0;
+		int position = 0;
+		int open;
+		while ((open = pattern.indexOf('{', position)) >= 0) {
+			int close = pattern.indexOf('}', open + 1);
+			int nested = pattern.indexOf('{', open + 1);
+			if (close < 0 || (nested >= 0 && nested < close)) {
+				simple = false;
+				break;
+			}
+			literalList.add(pattern.substring(position, open));
+			nameList.add(pattern.substring(open + 1, close));
+			position = close + 1;
+		}
+		literalList.add(pattern.substring(position));
+		this.literals = literalList.toArray(new String[literalList.size()]);
+		this.names = nameList.toArray(new String[nameList.size()]);
+		this.indexes = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			indexes[i] = parseIndex(names[i]);
+			if (indexes[i] < 0) {
+				simple = false;
+			}
+		}
+		this.indexed = simple;
+		this.queryNames = parseQueryNames(pattern);
+	}
+
+	/**
+	 * Returns the template of the passed pattern
+	 * 
+	 * @param pattern
+	 *            URI pattern
+	 * @return {@link UriTemplate}
+	 */
+	static UriTemplate get(String pattern) {
+		UriTemplate template = CACHE.get(pattern);
+		if (template == null) {
+			template = new UriTemplate(pattern);
+			if (CACHE.size() < MAX_CACHED_TEMPLATES) {
+				CACHE.putIfAbsent(pattern, template);
+			}
+		}
+		return template;
+	}
+
+	/**
+	 * @return query parameter names having a placeholder value, in order of
+	 *         appearance
+	 */
+	String[] getQueryNames() {
+		return queryNames;
+	}
+
+	/**
+	 * Formats the template like {@link MessageFormat}, replacing {n} with the
+	 * n-th argument
+	 * 
+	 * @param arguments
+	 *            Replacement objects
+	 * @return Formatted String
+	 */
+	String format(Object[] arguments) {
+		if (!indexed || !isStrings(arguments)) {
+			return MessageFormat.format(pattern, arguments);
+		}
+		StringBuilder builder = acquireBuilder();
+		for (int i = 0; i < names.length; i++) {
+			builder.append(literals[i]);
+			int index = indexes[i];
+			if (arguments == null || index >= arguments.length) {
+				builder.append('{').append(names[i]).append('}');
+			} else {
+				builder.append((String) arguments[index]);
+			}
+		}
+		builder.append(literals[names.length]);
+		return releaseBuilder(builder);
+	}
+
+	/**
+	 * Formats the template replacing {name} with the trimmed value of name in
+	 * the passed {@link Map}. Placeholders without a value are left in place
+	 * 
+	 * @param parameters
+	 *            Parameter {@link Map}, may be null
+	 * @param queryParameters
+	 *            Query parameters appended percent-encoded, may be null
+	 * @return Formatted String
+	 */
+	String expand(Map<String, String> parameters,
+			Map<String, String> queryParameters) {
+		StringBuilder builder = acquireBuilder();
+		boolean substitute = parameters != null && parameters.size() > 0
+				&& pattern.trim().length() > 0;
+		for (int i = 0; i < names.length; i++) {
+			builder.append(literals[i]);
+			String value = substitute ? getValue(parameters, names[i]) : null;
+			if (value != null) {
+				builder.append(value.trim());
+			} else {
+				builder.append('{').append(names[i]).append('}');
+			}
+		}
+		builder.append(literals[names.length]);
+		if (queryParameters != null && queryParameters.size() > 0) {
+			if (builder.indexOf("?") >= 0) {
+				char last = builder.charAt(builder.length() - 1);
+				if (last != '?' && last != '&') {
+					builder.append('&');
+				}
+			} else {
+				builder.append('?');
+			}
+			for (Map.Entry<String, String> entry : queryParameters.entrySet()) {
+				encode(entry.getKey(), builder);
+				builder.append('=');
+				encode(entry.getValue(), builder);
+				builder.append('&');
+			}
+		}
+		return releaseBuilder(builder);
+	}
+
+	/**
+	 * Percent-encodes the passed value as
+	 * application/x-www-form-urlencoded in UTF-8, like
+	 * {@link java.net.URLEncoder}
+	 * 
+	 * @param value
+	 *            Value to encode
+	 * @return Encoded value
+	 */
+	static String encode(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 16);
+		encode(value, builder);
+		return builder.toString();
+	}
+
+	/*
+	 * Appends the encoded value to the builder
+	 */
+	static void encode(String value, StringBuilder builder) {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| (c >= '0' && c <= '9') || c == '.' || c == '-'
+					|| c == '*' || c == '_') {
+				builder.append(c);
+			} else if (c == ' ') {
+				builder.append('+');
+			} else if (c < 0x80) {
+				appendEscaped(c, builder);
+			} else if (c < 0x800) {
+				appendEscaped(0xC0 | (c >> 6), builder);
+				appendEscaped(0x80 | (c & 0x3F), builder);
+			} else if (Character.isHighSurrogate(c) && i + 1 < length
+					&& Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				appendEscaped(0xF0 | (codePoint >> 18), builder);
+				appendEscaped(0x80 | ((codePoint >> 12) & 0x3F), builder);
+				appendEscaped(0x80 | ((codePoint >> 6) & 0x3F), builder);
+				appendEscaped(0x80 | (codePoint & 0x3F), builder);
+			} else if (Character.isHighSurrogate(c)
+					|| Character.isLowSurrogate(c)) {
+
+				// Unpaired surrogates are replaced like String.getBytes
+				appendEscaped('?', builder);
+			} else {
+				appendEscaped(0xE0 | (c >> 12), builder);
+				appendEscaped(0x80 | ((c >> 6) & 0x3F), builder);
+				appendEscaped(0x80 | (c & 0x3F), builder);
+			}
+		}
+	}
+
+	private static void appendEscaped(int b, StringBuilder builder) {
+		builder.append('%').append(HEX_DIGITS[(b >> 4) & 0xF])
+				.append(HEX_DIGITS[b & 0xF]);
+	}
+
+	private static String getValue(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		if (value == null) {
+
+			// Keys are matched trimmed
+			for (Map.Entry<String, String> entry : parameters.entrySet()) {
+				if (entry.getKey().trim().equals(name)) {
+					return entry.getValue();
+				}
+			}
+		}
+		return value;
+	}
+
+	private static boolean isStrings(Object[] arguments) {
+		if (arguments != null) {
+			for (int i = 0; i < arguments.length; i++) {
+				if (arguments[i] != null && !(arguments[i] instanceof String)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int parseIndex(String name) {
+		if (name.length() == 0 || name.length() > 9) {
+			return -1;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+		}
+		return Integer.parseInt(name);
+	}
+
+	/*
+	 * Query parameter names of the form name={n}, only if the pattern has a
+	 * single query part
+	 */
+	private static String[] parseQueryNames(String pattern) {
+		List<String> nameList = new ArrayList<String>();
+		String[] query = pattern.split("\\?");
+		if (query.length == 2 && query[1].contains("={")) {
+			for (String q : query[1].split("&")) {
+				String[] params = q.split("=");
+				if (params.length == 2) {
+					nameList.add(params[0].trim());
+				}
+			}
+		}
+		return nameList.toArray(new String[nameList.size()]);
+	}
+
+	private static StringBuilder acquireBuilder() {
+		StringBuilder builder = BUILDER.get();
+		builder.setLength(0);
+		return builder;
+	}
+
+	private static String releaseBuilder(StringBuilder builder) {
+		String result = builder.toString();
+		if (builder.capacity() > MAX_BUILDER_CAPACITY) {
+			BUILDER.set(new StringBuilder(128));
+		}
+		return result;
+	}
+
+	/**
+	 * Removes query parameters with a null, empty or missing value from the
+	 * formatted String. Equivalent to splitting the String at '?', '&' and
+	 * '=' but without regular expressions
+	 * 
+	 * @param formatted
+	 *            Formatted String
+	 * @return String without null query parameters
+	 */
+	static String removeNullsInQS(String formatted) {
+		if (formatted == null || formatted.length() == 0) {
+			return formatted;
+		}
+
+		// Trailing delimiters do not produce parts, only a String with
+		// exactly a path and a query part is processed
+		int end = trimTrailing(formatted, 0, formatted.length(), '?');
+		int question = formatted.indexOf('?');
+		if (question < 0 || question >= end) {
+			return formatted;
+		}
+		int second = formatted.indexOf('?', question + 1);
+		if (second >= 0 && second < end) {
+			return formatted;
+		}
+		String path = formatted.substring(0, question).trim();
+		int queryStart = question + 1;
+		if (trimTrailing(formatted, queryStart, end, '&') == queryStart) {
+
+			// No query parts, kept as before
+			return path + "?" + formatted;
+		}
+		StringBuilder builder = new StringBuilder(formatted.length());
+		builder.append(path).append('?');
+		int start = queryStart;
+		while (start <= end) {
+			int amp = formatted.indexOf('&', start);
+			int partEnd = (amp < 0 || amp > end) ? end : amp;
+			appendIfValued(formatted, start, partEnd, builder);
+			start = partEnd + 1;
+		}
+		if (builder.charAt(builder.length() - 1) == '&') {
+			builder.setLength(builder.length() - 1);
+		}
+		return builder.toString();
+	}
+
+	/*
+	 * Appends name=value& if the part has exactly one '=' (ignoring trailing
+	 * ones) and a value that is neither blank nor "null"
+	 */
+	private static void appendIfValued(String s, int start, int end,
+			StringBuilder builder) {
+		int valueEnd = trimTrailing(s, start, end, '=');
+		int equals = s.indexOf('=', start);
+		if (equals < 0 || equals >= valueEnd) {
+			return;
+		}
+		int next = s.indexOf('=', equals + 1);
+		if (next >= 0 && next < valueEnd) {
+			return;
+		}
+		String value = s.substring(equals + 1, valueEnd).trim();
+		if (value.length() == 0 || "null".equalsIgnoreCase(value)) {
+			return;
+		}
+		builder.append(s, start, end).append('&');
+	}
+
+	private static int trimTrailing(String s, int start, int end, char c) {
+		while (end > start && s.charAt(end - 1) == c) {
+			end--;
+		}
+		return end;
+	}
+
+}
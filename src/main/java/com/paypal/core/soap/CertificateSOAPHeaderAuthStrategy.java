@@ -1,6 +1,7 @@
 package com.paypal.core.soap;
 
 import com.paypal.core.AuthenticationStrategy;
+import com.paypal.core.CredentialHeaderCache;
 import com.paypal.core.credential.CertificateCredential;
 import com.paypal.core.credential.SubjectAuthorization;
 import com.paypal.core.credential.ThirdPartyAuthorization;
@@ -59,29 +60,16 @@ public class CertificateSOAPHeaderAuthStrategy implements
 	 * @return
 	 */
 	private String tokenAuthPayLoad() {
-		StringBuilder soapMsg = new StringBuilder();
-		soapMsg.append("<ns:RequesterCredentials/>");
-		return soapMsg.toString();
+		return CredentialHeaderCache.TOKEN_SOAP_HEADER;
 	}
 
+	/*
+	 * The escaped fragment is cached per credential and subject by
+	 * CredentialHeaderCache
+	 */
 	private String authPayLoad(CertificateCredential credential,
 			SubjectAuthorization subjectAuth) {
-		StringBuilder soapMsg = new StringBuilder();
-		soapMsg.append("<ns:RequesterCredentials>");
-		soapMsg.append("<ebl:Credentials>");
-		soapMsg.append("<ebl:Username>" + credential.getUserName()
-				+ "</ebl:Username>");
-		soapMsg.append("<ebl:Password>" + credential.getPassword()
-				+ "</ebl:Password>");
-
-		// Append subject credential if available
-		if (subjectAuth != null) {
-			soapMsg.append("<ebl:Subject>" + subjectAuth.getSubject()
-					+ "</ebl:Subject>");
-		}
-		soapMsg.append("</ebl:Credentials>");
-		soapMsg.append("</ns:RequesterCredentials>");
-		return soapMsg.toString();
+		return CredentialHeaderCache.getSOAPHeader(credential, subjectAuth);
 	}
 
 }
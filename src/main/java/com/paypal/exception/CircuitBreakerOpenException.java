@@ -0,0 +1,25 @@
+package com.paypal.exception;
+
+/**
+ * CircuitBreakerOpenException denotes a HTTP call rejected without being sent
+ * because the circuit breaker of the endpoint is open
+ * 
+ */
+public class CircuitBreakerOpenException extends HttpErrorException {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 3206945214893312713L;
+
+	private String endpoint;
+
+	public CircuitBreakerOpenException(String endpoint) {
+		super("Circuit breaker is open for " + endpoint);
+		this.endpoint = endpoint;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+}
@@ -0,0 +1,22 @@
+package com.paypal.exception;
+
+/**
+ * DeadlineExceededException denotes a HTTP call abandoned because its
+ * deadline passed before a response was received
+ * 
+ */
+public class DeadlineExceededException extends HttpErrorException {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = -2861793418823765212L;
+
+	public DeadlineExceededException(String msg) {
+		super(msg);
+	}
+
+	public DeadlineExceededException(String msg, Throwable exception) {
+		super(msg, exception);
+	}
+}
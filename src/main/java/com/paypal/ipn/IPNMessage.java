@@ -14,7 +14,7 @@ import com.paypal.core.Constants;
 import com.paypal.core.HttpConfiguration;
 import com.paypal.core.HttpConnection;
 import com.paypal.core.LoggingManager;
-import com.paypal.core.SDKUtil;
+import com.paypal.core.SDKConfig;
 
 public class IPNMessage {
 
@@ -35,16 +35,13 @@ public class IPNMessage {
 		httpConfiguration = new HttpConfiguration();
 		ipnEndpoint = getIPNEndpoint();
 		httpConfiguration.setEndPointUrl(ipnEndpoint);
-		httpConfiguration.setConnectionTimeout(Integer
-				.parseInt(configurationMap
-						.get(Constants.HTTP_CONNECTION_TIMEOUT)));
-		httpConfiguration.setMaxRetry(Integer.parseInt(configurationMap
-				.get(Constants.HTTP_CONNECTION_RETRY)));
-		httpConfiguration.setReadTimeout(Integer.parseInt(configurationMap
-				.get(Constants.HTTP_CONNECTION_READ_TIMEOUT)));
-		httpConfiguration.setMaxHttpConnection(Integer
-				.parseInt(configurationMap
-						.get(Constants.HTTP_CONNECTION_MAX_CONNECTION)));
+		SDKConfig sdkConfig = SDKConfig.getInstance(configurationMap);
+		httpConfiguration.setConnectionTimeout(sdkConfig
+				.getConnectionTimeout());
+		httpConfiguration.setMaxRetry(sdkConfig.getMaxRetry());
+		httpConfiguration.setReadTimeout(sdkConfig.getReadTimeout());
+		httpConfiguration.setMaxHttpConnection(sdkConfig
+				.getMaxHttpConnection());
 	}
 	
 	/**
@@ -96,7 +93,8 @@ public class IPNMessage {
 	 */
 	public IPNMessage(Map<String, String[]> ipnMap,
 			Map<String, String> configurationMap) {
-		this.configurationMap = SDKUtil.combineDefaultMap(configurationMap);
+		this.configurationMap = SDKConfig.getInstance(configurationMap)
+				.getConfigurationMap();
 		initialize();
 		payload = new StringBuffer("cmd=_notify-validate");
 		if (ipnMap != null) {
@@ -125,11 +123,12 @@ public class IPNMessage {
 		Map<String, String> headerMap = new HashMap<String, String>();
 		URL url = null;
 		String res = Constants.EMPTY_STRING;
-		HttpConnection connection = ConnectionManager.getInstance()
-				.getConnection();
+		ConnectionManager connectionManager = ConnectionManager.getInstance();
+		HttpConnection connection = null;
 
 		try {
 
+			connection = connectionManager.leaseConnection(httpConfiguration);
 			connection.createAndconfigureHttpConnection(httpConfiguration);
 			url = new URL(this.ipnEndpoint);
 			headerMap.put("Host", url.getHost());
@@ -140,10 +139,12 @@ public class IPNMessage {
 
 		} catch (Exception e) {
 			LoggingManager.debug(IPNMessage.class, e.getMessage());
+		} finally {
+			connectionManager.releaseConnection(connection);
 		}
 
 		// check notification validation
-		if (res.equals("VERIFIED")) {
+		if (res.trim().equals("VERIFIED")) {
 			isIpnVerified = true;
 		}
 
@@ -0,0 +1,110 @@
+package com.paypal.sdk.openidconnect;
+
+import java.io.IOException;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Hand-written {@link TypeAdapter} for {@link Tokeninfo}, listed by name in
+ * {@link com.paypal.core.rest.JSONFormatter} and registered in every
+ * {@link com.google.gson.Gson} it builds so that token responses are read
+ * without reflection. JSON names
+ * follow the {@link FieldNamingPolicy} of the {@link com.google.gson.Gson};
+ * null fields are omitted and unknown fields are skipped, as with the
+ * reflective adapter.
+ * 
+ */
+public final class TokeninfoTypeAdapter extends TypeAdapter<Tokeninfo> {
+
+	private final String scope;
+
+	private final String accessToken;
+
+	private final String refreshToken;
+
+	private final String tokenType;
+
+	private final String expiresIn;
+
+	/**
+	 * TokeninfoTypeAdapter
+	 * 
+	 * @param fieldNamingPolicy
+	 *            {@link FieldNamingPolicy} translating the field names
+	 */
+	public TokeninfoTypeAdapter(FieldNamingPolicy fieldNamingPolicy) {
+		this.scope = translate(fieldNamingPolicy, "scope");
+		this.accessToken = translate(fieldNamingPolicy, "accessToken");
+		this.refreshToken = translate(fieldNamingPolicy, "refreshToken");
+		this.tokenType = translate(fieldNamingPolicy, "tokenType");
+		this.expiresIn = translate(fieldNamingPolicy, "expiresIn");
+	}
+
+	private static String translate(FieldNamingPolicy fieldNamingPolicy,
+			String fieldName) {
+		try {
+			return fieldNamingPolicy.translateName(Tokeninfo.class
+					.getDeclaredField(fieldName));
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public void write(JsonWriter out, Tokeninfo value) throws IOException {
+		if (value == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		if (value.getScope() != null) {
+			out.name(scope).value(value.getScope());
+		}
+		if (value.getAccessToken() != null) {
+			out.name(accessToken).value(value.getAccessToken());
+		}
+		if (value.getRefreshToken() != null) {
+			out.name(refreshToken).value(value.getRefreshToken());
+		}
+		if (value.getTokenType() != null) {
+			out.name(tokenType).value(value.getTokenType());
+		}
+		if (value.getExpiresIn() != null) {
+			out.name(expiresIn).value(value.getExpiresIn());
+		}
+		out.endObject();
+	}
+
+	public Tokeninfo read(JsonReader in) throws IOException {
+		if (in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+		Tokeninfo tokeninfo = new Tokeninfo();
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if (in.peek() == JsonToken.NULL) {
+				in.nextNull();
+			} else if (scope.equals(name)) {
+				tokeninfo.setScope(in.nextString());
+			} else if (accessToken.equals(name)) {
+				tokeninfo.setAccessToken(in.nextString());
+			} else if (refreshToken.equals(name)) {
+				tokeninfo.setRefreshToken(in.nextString());
+			} else if (tokenType.equals(name)) {
+				tokeninfo.setTokenType(in.nextString());
+			} else if (expiresIn.equals(name)) {
+				tokeninfo.setExpiresIn(Integer.valueOf(in.nextInt()));
+			} else {
+				in.skipValue();
+			}
+		}
+		in.endObject();
+		return tokeninfo;
+	}
+
+}
@@ -4,33 +4,16 @@
 
 package com.paypal.sdk.util;
 
-import java.io.Serializable;
-import java.io.UnsupportedEncodingException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
-
-import com.paypal.core.codec.binary.Base64;
 import com.paypal.sdk.exceptions.OAuthException;
 
 public class OAuthSignature {
 
-	private static final String PARAM_DELIMETER = "&";
-	private static final String PARAM_SEPERATOR = "=";
-	private static final String ENCODING = "US-ASCII";
-	private static final String SIGNATURE_METHOD = "HMAC-SHA1";
-	private static final String SIGNATURE_ALGORITHM = "HmacSHA1";
 	public static final String OAUTH_VERSION = "1.0";
 	private String consumerKey;
 	private String consumerSecret;
@@ -39,7 +22,7 @@ public class OAuthSignature {
 	private String requestURI;
 	private String timestamp;
 	private String httpMethod;
-	private List<Parameter> queryParams;
+	private List<String[]> queryParams;
 
 	public enum HTTPMethod {
 		GET, HEAD, POST, PUT, UPDATE
@@ -55,7 +38,7 @@ public class OAuthSignature {
 	 *            - Secret shared between PayPal and Consumer (OAuth consumer)
 	 */
 	public OAuthSignature(String consumerKey, String consumerSecret) {
-		this.queryParams = new ArrayList<Parameter>();
+		this.queryParams = new ArrayList<String[]>();
 		this.consumerKey = consumerKey;
 		this.consumerSecret = consumerSecret;
 		this.httpMethod = "POST";
@@ -81,7 +64,7 @@ public class OAuthSignature {
 	 *            parameter value with no URL encoding applied
 	 */
 	public void addParameter(String name, String value) {
-		queryParams.add(new Parameter(name, value));
+		queryParams.add(new String[] { name, value });
 	}
 
 	/**
@@ -158,56 +141,9 @@ public class OAuthSignature {
 		validate(this.requestURI, "Request URI");
 		validate(this.timestamp, "Timestamp");
 
-		String signature = "";
-		try {
-			String key = PayPalURLEncoder.encode(consumerSecret, ENCODING);
-			key += PARAM_DELIMETER;
-			key += PayPalURLEncoder.encode(tokenSecret, ENCODING);
-
-			List<Parameter> params = queryParams;
-
-			params.add(new Parameter("oauth_consumer_key", this.consumerKey));
-			params.add(new Parameter("oauth_version", OAUTH_VERSION));
-			params.add(new Parameter("oauth_signature_method", SIGNATURE_METHOD));
-			params.add(new Parameter("oauth_token", this.token));
-			params.add(new Parameter("oauth_timestamp", this.timestamp));
-
-			Collections.sort(params, new ParamComparator());
-
-			String signatureBase = this.httpMethod + PARAM_DELIMETER;
-
-			signatureBase += PayPalURLEncoder.encode(requestURI, ENCODING);
-			signatureBase += PARAM_DELIMETER;
-
-			String paramString = "";
-			StringBuilder paramStringBuilder = new StringBuilder();
-			Iterator<Parameter> it = params.iterator();
-			while (it.hasNext()) {
-				Parameter current = (Parameter) it.next();
-				paramStringBuilder.append(current.getName())
-						.append(PARAM_SEPERATOR).append(current.getValue());
-				if (it.hasNext()) {
-					paramStringBuilder.append(PARAM_DELIMETER);
-				}
-			}
-			paramString = paramStringBuilder.toString();
-			signatureBase += PayPalURLEncoder.encode(paramString, ENCODING);
-			Mac hmac = Mac.getInstance(SIGNATURE_ALGORITHM);
-			hmac.init(new SecretKeySpec(key.getBytes(ENCODING), hmac
-					.getAlgorithm()));
-			hmac.update(signatureBase.getBytes(ENCODING));
-			byte[] digest = hmac.doFinal();
-			Base64 b64Encoder = new Base64();
-			signature = new String(b64Encoder.encode(digest), ENCODING);
-
-		} catch (NoSuchAlgorithmException algoe) {
-			throw new OAuthException(algoe.getMessage(), algoe);
-		} catch (InvalidKeyException ke) {
-			throw new OAuthException(ke.getMessage(), ke);
-		} catch (UnsupportedEncodingException ee) {
-			throw new OAuthException(ee.getMessage(), ee);
-		}
-		return signature;
+		return OAuthSigner
+				.getInstance(consumerKey, consumerSecret, token, tokenSecret)
+				.signNormalized(httpMethod, requestURI, timestamp, queryParams);
 	}
 
 	/**
@@ -246,7 +182,7 @@ public class OAuthSignature {
 	 * @return normalized URI. URI normalized to scheme://authority:port/path
 	 * @throws OAuthException
 	 */
-	private String normalizeURI(String uri) throws OAuthException {
+	static String normalizeURI(String uri) throws OAuthException {
 		String normalizedURI = "", port = "", scheme = "", path = "", authority = "";
 		int i, j, k;
 
@@ -304,63 +240,6 @@ public class OAuthSignature {
 		return normalizedURI;
 	}
 
-	/**
-	 * Inner class for sorting Collection
-	 * 
-	 */
-	private static class ParamComparator implements Comparator<Parameter>,
-			Serializable {
-		/**
-		 * 
-		 */
-		private static final long serialVersionUID = 8587372068875833370L;
-
-		public int compare(Parameter x, Parameter y) {
-			int retval = 0;
-			if (x != null && y != null) {
-				retval = ((Parameter) x).getName().compareTo(
-						((Parameter) y).getName());
-				// if parameter names are equal then compare parameter values.
-				if (retval == 0) {
-					retval = ((Parameter) x).getValue().compareTo(
-							((Parameter) y).getValue());
-				}
-			}
-			return retval;
-		}
-	}
-
-	/**
-	 * Inner class for representing Parameter
-	 * 
-	 */
-	private static class Parameter {
-
-		public Parameter(String name, String value) {
-			this.mName = name;
-			this.mValue = value;
-		}
-
-		public void setName(String name) {
-			this.mName = name;
-		}
-
-		public void setValue(String val) {
-			this.mValue = val;
-		}
-
-		public String getName() {
-			return this.mName;
-		}
-
-		public String getValue() {
-			return this.mValue;
-		}
-
-		private String mName;
-		private String mValue;
-	}
-
 	/**
 	 * Accepts the required parameters and Provides OAuth signature and
 	 * TimeStamp.
@@ -386,28 +265,12 @@ public class OAuthSignature {
 			String scriptURI, Map queryParams) throws OAuthException {
 
 		Map headers = new HashMap();
-		String consumerKey = apiUserName;
-		String consumerSecretStr = apiPassword;
 		String time = String.valueOf(System.currentTimeMillis() / 1000);
 
-		OAuthSignature oauth = new OAuthSignature(consumerKey,
-				consumerSecretStr);
-		if (HTTPMethod.GET.equals(httpMethod) && queryParams != null) {
-			Iterator itr = queryParams.entrySet().iterator();
-			while (itr.hasNext()) {
-				Map.Entry param = (Map.Entry) itr.next();
-				String key = (String) param.getKey();
-				String value = (String) param.getValue();
-				oauth.addParameter(key, value);
-			}
-		}
-		oauth.setToken(accessToken);
-		oauth.setTokenSecret(tokenSecret);
-		oauth.setHTTPMethod(httpMethod);
-		oauth.setTokenTimestamp(time);
-		oauth.setRequestURI(scriptURI);
 		// Compute Signature
-		String sig = oauth.computeV1Signature();
+		String sig = OAuthSigner.getInstance(apiUserName, apiPassword,
+				accessToken, tokenSecret).sign(httpMethod, scriptURI, time,
+				signedParams(httpMethod, queryParams));
 
 		headers.put("Signature", sig);
 		headers.put("TimeStamp", time);
@@ -441,11 +304,18 @@ public class OAuthSignature {
 			HTTPMethod httpMethod, String scriptURI, Map queryParams)
 			throws OAuthException {
 
-		Map headers = getAuthHeader(apiUserName, apiPassword, accessToken,
-				tokenSecret, httpMethod, scriptURI, queryParams);
-		return "token=" + accessToken + ",signature="
-				+ headers.get("Signature") + ",timestamp="
-				+ headers.get("TimeStamp");
+		String time = String.valueOf(System.currentTimeMillis() / 1000);
+		return OAuthSigner.getInstance(apiUserName, apiPassword, accessToken,
+				tokenSecret).getAuthString(httpMethod, scriptURI, time,
+				signedParams(httpMethod, queryParams));
+	}
 
+	/*
+	 * Query parameters are only part of the signature of GET requests
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, String> signedParams(HTTPMethod httpMethod,
+			Map queryParams) {
+		return HTTPMethod.GET.equals(httpMethod) ? queryParams : null;
 	}
 }
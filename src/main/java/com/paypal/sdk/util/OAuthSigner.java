@@ -0,0 +1,430 @@
+package com.paypal.sdk.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.paypal.sdk.exceptions.OAuthException;
+import com.paypal.sdk.util.OAuthSignature.HTTPMethod;
+
+/**
+ * <code>OAuthSigner</code> computes the OAuth 1.0 HMAC-SHA1 signatures of
+ * {@link OAuthSignature} for one consumer and token. The encoded key and the
+ * constant part of the signature base string are prepared once per signer;
+ * each thread keeps keyed {@link Mac} instances and reusable buffers, so a
+ * signature is computed in a single pass without intermediate Strings. Use
+ * sign(..) with many URIs to sign a batch of requests for the same token.
+ * getInstance(..) returns a signer shared by all calls for the same consumer
+ * and token, as used by {@link OAuthSignature}.
+ *
+ */
+public final class OAuthSigner {
+
+	private static final String ENCODING = "US-ASCII";
+
+	private static final String SIGNATURE_ALGORITHM = "HmacSHA1";
+
+	private static final String SIGNATURE_METHOD = "HMAC-SHA1";
+
+	/**
+	 * Maximum number of keyed {@link Mac} instances kept per thread
+	 */
+	private static final int MAX_KEYS_PER_THREAD = 8;
+
+	/**
+	 * Maximum number of cached signers, the cache is cleared when exceeded
+	 */
+	private static final int MAX_SIGNERS = 256;
+
+	/**
+	 * Signers keyed by consumer key, consumer secret, token and token secret
+	 */
+	private static final ConcurrentMap<List<String>, OAuthSigner> SIGNERS = new ConcurrentHashMap<List<String>, OAuthSigner>();
+
+	private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+
+	/**
+	 * Per thread signing state
+	 */
+	private static final ThreadLocal<SigningState> STATE = new ThreadLocal<SigningState>() {
+		protected SigningState initialValue() {
+			return new SigningState();
+		}
+	};
+
+	private final String consumerKey;
+
+	private final String token;
+
+	/**
+	 * Encoded HMAC key, 'consumer secret&token secret'
+	 */
+	private final String key;
+
+	private final byte[] keyBytes;
+
+	/**
+	 * Encoded parameters sorted before the timestamp
+	 */
+	private final String encodedPrefix;
+
+	/**
+	 * Encoded parameters sorted after the timestamp
+	 */
+	private final String encodedSuffix;
+
+	/**
+	 * OAuthSigner
+	 *
+	 * @param consumerKey
+	 *            API UserName
+	 * @param consumerSecret
+	 *            API Password
+	 * @param token
+	 *            Access Token
+	 * @param tokenSecret
+	 *            Token Secret
+	 * @throws OAuthException
+	 *             if a value is missing
+	 */
+	public OAuthSigner(String consumerKey, String consumerSecret, String token,
+			String tokenSecret) throws OAuthException {
+		validate(consumerKey, "API UserName");
+		validate(consumerSecret, "API Password");
+		validate(token, "Access Token");
+		validate(tokenSecret, "Token Secret");
+		this.consumerKey = consumerKey;
+		this.token = token;
+		StringBuilder builder = new StringBuilder();
+		encode(consumerSecret, builder);
+		builder.append('&');
+		encode(tokenSecret, builder);
+		this.key = builder.toString();
+		try {
+			this.keyBytes = key.getBytes(ENCODING);
+		} catch (UnsupportedEncodingException e) {
+			throw new OAuthException(e.getMessage(), e);
+		}
+		builder.setLength(0);
+		encode("oauth_consumer_key=" + consumerKey
+				+ "&oauth_signature_method=" + SIGNATURE_METHOD
+				+ "&oauth_timestamp=", builder);
+		this.encodedPrefix = builder.toString();
+		builder.setLength(0);
+		encode("&oauth_token=" + token + "&oauth_version="
+				+ OAuthSignature.OAUTH_VERSION, builder);
+		this.encodedSuffix = builder.toString();
+	}
+
+	/**
+	 * Returns the signer of the passed consumer and token, created on first
+	 * use and shared afterwards
+	 *
+	 * @param consumerKey
+	 *            API UserName
+	 * @param consumerSecret
+	 *            API Password
+	 * @param token
+	 *            Access Token
+	 * @param tokenSecret
+	 *            Token Secret
+	 * @return {@link OAuthSigner}
+	 * @throws OAuthException
+	 *             if a value is missing
+	 */
+	public static OAuthSigner getInstance(String consumerKey,
+			String consumerSecret, String token, String tokenSecret)
+			throws OAuthException {
+		List<String> cacheKey = Arrays.asList(consumerKey, consumerSecret,
+				token, tokenSecret);
+		OAuthSigner signer = SIGNERS.get(cacheKey);
+		if (signer == null) {
+			signer = new OAuthSigner(consumerKey, consumerSecret, token,
+					tokenSecret);
+			if (SIGNERS.size() >= MAX_SIGNERS) {
+				SIGNERS.clear();
+			}
+			OAuthSigner existing = SIGNERS.putIfAbsent(cacheKey, signer);
+			if (existing != null) {
+				signer = existing;
+			}
+		}
+		return signer;
+	}
+
+	/**
+	 * Computes the signature of a request
+	 *
+	 * @param method
+	 *            {@link HTTPMethod}
+	 * @param requestURI
+	 *            Request URI, normalized to scheme://authority:port/path if
+	 *            not normalized already
+	 * @param timestamp
+	 *            Timestamp in seconds
+	 * @param queryParams
+	 *            Extra 'name/value' parameters, may be null
+	 * @return Base64 encoded signature
+	 * @throws OAuthException
+	 */
+	public String sign(HTTPMethod method, String requestURI, String timestamp,
+			Map<String, String> queryParams) throws OAuthException {
+		validate(timestamp, "Timestamp");
+		List<String[]> params = null;
+		if (queryParams != null && !queryParams.isEmpty()) {
+			params = new ArrayList<String[]>(queryParams.size());
+			for (Map.Entry<String, String> entry : queryParams.entrySet()) {
+				params.add(new String[] { entry.getKey(), entry.getValue() });
+			}
+		}
+		return sign(STATE.get(), method.name(),
+				OAuthSignature.normalizeURI(requestURI), timestamp, params);
+	}
+
+	/**
+	 * Computes the signatures of a batch of requests sharing the method and
+	 * timestamp, reusing the signing state of the calling thread
+	 *
+	 * @param method
+	 *            {@link HTTPMethod}
+	 * @param requestURIs
+	 *            Request URIs
+	 * @param timestamp
+	 *            Timestamp in seconds
+	 * @return Base64 encoded signatures, in the order of the URIs
+	 * @throws OAuthException
+	 */
+	public String[] sign(HTTPMethod method, String[] requestURIs,
+			String timestamp) throws OAuthException {
+		validate(timestamp, "Timestamp");
+		SigningState state = STATE.get();
+		String httpMethod = method.name();
+		String[] signatures = new String[requestURIs.length];
+		for (int i = 0; i < requestURIs.length; i++) {
+			signatures[i] = sign(state, httpMethod,
+					OAuthSignature.normalizeURI(requestURIs[i]), timestamp,
+					null);
+		}
+		return signatures;
+	}
+
+	/**
+	 * Computes the value of the X-PAYPAL-AUTHORIZATION header of a request
+	 *
+	 * @param method
+	 *            {@link HTTPMethod}
+	 * @param requestURI
+	 *            Request URI
+	 * @param timestamp
+	 *            Timestamp in seconds
+	 * @param queryParams
+	 *            Extra 'name/value' parameters, may be null
+	 * @return Auth String
+	 * @throws OAuthException
+	 */
+	public String getAuthString(HTTPMethod method, String requestURI,
+			String timestamp, Map<String, String> queryParams)
+			throws OAuthException {
+		String signature = sign(method, requestURI, timestamp, queryParams);
+		return new StringBuilder(token.length() + signature.length()
+				+ timestamp.length() + 32).append("token=").append(token)
+				.append(",signature=").append(signature)
+				.append(",timestamp=").append(timestamp).toString();
+	}
+
+	/*
+	 * Signs a request whose URI is already normalized, parameters are
+	 * 'name/value' pairs
+	 */
+	String signNormalized(String method, String normalizedURI,
+			String timestamp, List<String[]> params) throws OAuthException {
+		return sign(STATE.get(), method, normalizedURI, timestamp, params);
+	}
+
+	/*
+	 * Signs the base string 'method&uri&params' where the parameters are
+	 * sorted by name and value, joined and encoded as a whole
+	 */
+	private String sign(SigningState state, String method, String normalizedURI,
+			String timestamp, List<String[]> params) throws OAuthException {
+		StringBuilder base = state.buffer;
+		base.setLength(0);
+		base.append(method).append('&');
+		encode(normalizedURI, base);
+		base.append('&');
+		if (params == null || params.isEmpty()) {
+			base.append(encodedPrefix);
+			encode(timestamp, base);
+			base.append(encodedSuffix);
+		} else {
+			List<String[]> sorted = new ArrayList<String[]>(params.size() + 5);
+			sorted.addAll(params);
+			sorted.add(new String[] { "oauth_consumer_key", consumerKey });
+			sorted.add(new String[] { "oauth_version",
+					OAuthSignature.OAUTH_VERSION });
+			sorted.add(new String[] { "oauth_signature_method",
+					SIGNATURE_METHOD });
+			sorted.add(new String[] { "oauth_token", token });
+			sorted.add(new String[] { "oauth_timestamp", timestamp });
+			Collections.sort(sorted, PARAM_COMPARATOR);
+			for (int i = 0; i < sorted.size(); i++) {
+				if (i > 0) {
+					base.append("%26");
+				}
+				encode(sorted.get(i)[0], base);
+				base.append("%3d");
+				encode(sorted.get(i)[1], base);
+			}
+		}
+
+		// The encoded base string is plain ASCII
+		int length = base.length();
+		byte[] bytes = state.bytes(length);
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) base.charAt(i);
+		}
+		try {
+			Mac mac = state.getMac(key, keyBytes);
+			mac.update(bytes, 0, length);
+			mac.doFinal(state.digest, 0);
+		} catch (NoSuchAlgorithmException algoe) {
+			throw new OAuthException(algoe.getMessage(), algoe);
+		} catch (InvalidKeyException ke) {
+			throw new OAuthException(ke.getMessage(), ke);
+		} catch (ShortBufferException se) {
+			throw new OAuthException(se.getMessage(), se);
+		}
+		return base64(state.digest);
+	}
+
+	/**
+	 * Percent-encodes the passed String as {@link PayPalURLEncoder} does with
+	 * 'US-ASCII': letters, digits and '_' are kept, ' ' becomes '+' and any
+	 * other character is encoded with lower case hex digits, characters
+	 * outside ASCII as '?'
+	 *
+	 * @param s
+	 *            String to encode
+	 * @param buffer
+	 *            {@link StringBuilder} to append to
+	 */
+	static void encode(String s, StringBuilder buffer) {
+		int length = s.length();
+		for (int i = 0; i < length; i++) {
+			char ch = s.charAt(i);
+			if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')
+					|| (ch >= '0' && ch <= '9') || ch == '_') {
+				buffer.append(ch);
+			} else if (ch == ' ') {
+				buffer.append('+');
+			} else if (ch < 0x80) {
+				buffer.append('%').append(DIGITS[ch >> 4])
+						.append(DIGITS[ch & 0xf]);
+			} else {
+				if (Character.isHighSurrogate(ch) && i + 1 < length
+						&& Character.isLowSurrogate(s.charAt(i + 1))) {
+					i++;
+				}
+				buffer.append("%3f");
+			}
+		}
+	}
+
+	private static String base64(byte[] data) {
+		char[] out = new char[(data.length + 2) / 3 * 4];
+		int j = 0;
+		for (int i = 0; i < data.length; i += 3) {
+			int b0 = data[i] & 0xff;
+			int b1 = i + 1 < data.length ? data[i + 1] & 0xff : 0;
+			int b2 = i + 2 < data.length ? data[i + 2] & 0xff : 0;
+			out[j++] = BASE64[b0 >> 2];
+			out[j++] = BASE64[((b0 & 0x3) << 4) | (b1 >> 4)];
+			out[j++] = i + 1 < data.length ? BASE64[((b1 & 0xf) << 2)
+					| (b2 >> 6)] : '=';
+			out[j++] = i + 2 < data.length ? BASE64[b2 & 0x3f] : '=';
+		}
+		return new String(out);
+	}
+
+	private static void validate(String param, String name)
+			throws OAuthException {
+		if ((param == null) || (param.length() == 0)) {
+			throw new OAuthException("Value is required: " + name);
+		}
+	}
+
+	/**
+	 * Orders parameters by name, then by value
+	 */
+	private static final Comparator<String[]> PARAM_COMPARATOR = new Comparator<String[]>() {
+		public int compare(String[] x, String[] y) {
+			int retval = x[0].compareTo(y[0]);
+			if (retval == 0) {
+				retval = x[1].compareTo(y[1]);
+			}
+			return retval;
+		}
+	};
+
+	/**
+	 * Buffers and keyed {@link Mac} instances of a thread
+	 */
+	private static final class SigningState {
+
+		private final StringBuilder buffer = new StringBuilder(256);
+
+		private final byte[] digest = new byte[20];
+
+		private byte[] bytes = new byte[256];
+
+		/**
+		 * {@link Mac} instances keyed by encoded key, least recently used
+		 * first
+		 */
+		private final Map<String, Mac> macs = new LinkedHashMap<String, Mac>(
+				16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Mac> eldest) {
+				return size() > MAX_KEYS_PER_THREAD;
+			}
+		};
+
+		byte[] bytes(int length) {
+			if (bytes.length < length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			return bytes;
+		}
+
+		Mac getMac(String key, byte[] keyBytes)
+				throws NoSuchAlgorithmException, InvalidKeyException {
+			Mac mac = macs.get(key);
+			if (mac == null) {
+				mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+				mac.init(new SecretKeySpec(keyBytes, SIGNATURE_ALGORITHM));
+				macs.put(key, mac);
+			} else {
+				mac.reset();
+			}
+			return mac;
+		}
+	}
+
+}
@@ -59,6 +59,12 @@ public class ResourceLoader {
 		return inputStream;
 	}
 
+	// Returns the resource as a File, null if it is not on the file system
+	public File getFile() throws IOException {
+		getInputStream();
+		return file;
+	}
+
 	// Returns true if found
 	private boolean searchClasspath(String filename) {
 		String classpath = System.getProperty(CLASSPATH);
@@ -0,0 +1,93 @@
+package com.paypal.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CircuitBreakerTest {
+
+	@Test
+	public void opensOnFailureRateTest() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 0, 0,
+				60000);
+		for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS - 1; i++) {
+			Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+			circuitBreaker.onResult(true, 1);
+		}
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.CLOSED);
+		circuitBreaker.onResult(true, 1);
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.OPEN);
+		Assert.assertFalse(circuitBreaker.isCallPermitted());
+		Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	public void staysClosedBelowThresholdTest() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 0, 0,
+				60000);
+		for (int i = 0; i < CircuitBreaker.WINDOW_SIZE * 2; i++) {
+			circuitBreaker.onResult(i % 3 == 0, 1);
+		}
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void opensOnSlowCallRateTest() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 80,
+				100, 60000);
+		for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS; i++) {
+			circuitBreaker.onResult(false, 150);
+		}
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	public void halfOpenTrialCallsTest() throws InterruptedException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 0, 0,
+				10);
+		for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS; i++) {
+			circuitBreaker.onResult(true, 1);
+		}
+		Thread.sleep(20);
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.HALF_OPEN);
+		for (int i = 0; i < CircuitBreaker.HALF_OPEN_CALLS; i++) {
+			Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+		}
+		Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+		for (int i = 0; i < CircuitBreaker.HALF_OPEN_CALLS; i++) {
+			circuitBreaker.onResult(false, 1);
+		}
+		Assert.assertEquals(circuitBreaker.getState(),
+				CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void halfOpenReopensOnFailureTest() throws InterruptedException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 0, 0,
+				10);
+		for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS; i++) {
+			circuitBreaker.onResult(true, 1);
+		}
+		Thread.sleep(20);
+		for (int i = 0; i < CircuitBreaker.HALF_OPEN_CALLS; i++) {
+			Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+			circuitBreaker.onResult(true, 1);
+		}
+		Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+	}
+
+	@Test
+	public void disabledTest() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker("test", 0, 0, 0,
+				60000);
+		for (int i = 0; i < CircuitBreaker.WINDOW_SIZE; i++) {
+			circuitBreaker.onResult(true, 1);
+		}
+		Assert.assertTrue(circuitBreaker.isCallPermitted());
+	}
+
+}
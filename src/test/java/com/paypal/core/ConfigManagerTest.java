@@ -1,7 +1,15 @@
 package com.paypal.core;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
 import org.testng.Assert;
@@ -36,4 +44,69 @@ public class ConfigManagerTest {
 		}
 	}
 
+	@Test
+	public void reloadTest() throws IOException {
+		ConfigManager conf = ConfigManager.getInstance();
+		final List<SDKConfig[]> changes = new ArrayList<SDKConfig[]>();
+		ConfigurationListener listener = new ConfigurationListener() {
+			public void configurationChanged(SDKConfig previous,
+					SDKConfig current) {
+				changes.add(new SDKConfig[] { previous, current });
+			}
+		};
+		File file = File.createTempFile("sdk_config", ".properties");
+		ConfigManager.addConfigurationListener(listener);
+		try {
+			InputStream in = ConfigManagerTest.class
+					.getResourceAsStream("/sdk_config.properties");
+			conf.load(in);
+			Properties properties = new Properties();
+			properties.putAll(conf.getConfigurationMap());
+			properties.setProperty(Constants.HTTP_CONNECTION_MAX_CONNECTION,
+					"7");
+			write(file, properties);
+			Assert.assertTrue(conf.reload(file));
+			Assert.assertEquals(conf.getSDKConfig().getMaxHttpConnection(), 7);
+			Assert.assertEquals(
+					conf.getValue(Constants.HTTP_CONNECTION_MAX_CONNECTION),
+					"7");
+			Assert.assertEquals(changes.size(), 1);
+			Assert.assertSame(changes.get(0)[1], conf.getSDKConfig());
+
+			// Invalid configurations are rejected
+			properties.setProperty(Constants.HTTP_CONNECTION_TIMEOUT, "abc");
+			write(file, properties);
+			Assert.assertFalse(conf.reload(file));
+			Assert.assertEquals(conf.getSDKConfig().getMaxHttpConnection(), 7);
+			Assert.assertEquals(changes.size(), 1);
+
+			// Polling picks up changes to the watched file
+			properties.setProperty(Constants.HTTP_CONNECTION_TIMEOUT, "1000");
+			properties.setProperty(Constants.HTTP_CONNECTION_MAX_CONNECTION,
+					"12");
+			conf.enableReload(file, 60000);
+			Assert.assertFalse(conf.checkForChanges());
+			write(file, properties);
+			Assert.assertTrue(conf.checkForChanges());
+			Assert.assertEquals(conf.getSDKConfig().getMaxHttpConnection(), 12);
+			Assert.assertEquals(changes.size(), 2);
+		} finally {
+			conf.disableReload();
+			ConfigManager.removeConfigurationListener(listener);
+			file.delete();
+			conf.load(ConfigManagerTest.class
+					.getResourceAsStream("/sdk_config.properties"));
+		}
+	}
+
+	private static void write(File file, Properties properties)
+			throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			properties.store(out, null);
+		} finally {
+			out.close();
+		}
+	}
+
 }
@@ -0,0 +1,70 @@
+package com.paypal.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConfigurationViewTest {
+
+	@Test
+	public void layeredLookupTest() {
+		Properties properties = new Properties();
+		properties.setProperty(" service.EndPoint ", " https://file/ ");
+		properties.setProperty(Constants.HTTP_CONNECTION_RETRY, "5");
+		ConfigurationView file = ConfigurationView.wrap(properties);
+		Assert.assertEquals(file.get("service.EndPoint"), "https://file/");
+		Assert.assertNull(file.get(Constants.HTTP_CONNECTION_TIMEOUT));
+
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.HTTP_CONNECTION_RETRY, " 7");
+		ConfigurationView view = ConfigurationView.overlay(
+				ConfigurationView.of(file), configurationMap);
+		Assert.assertEquals(view.get(Constants.HTTP_CONNECTION_RETRY), "7");
+		Assert.assertEquals(view.get("service.EndPoint"), "https://file/");
+		Assert.assertEquals(view.get(Constants.HTTP_CONNECTION_TIMEOUT),
+				ConfigurationView.getDefaults().get(
+						Constants.HTTP_CONNECTION_TIMEOUT));
+		Assert.assertEquals(view.size(),
+				ConfigurationView.getDefaults().size() + 1);
+		Assert.assertEquals(new HashMap<String, String>(view).get(
+				"service.EndPoint"), "https://file/");
+
+		// Later changes to the passed Map are not visible
+		configurationMap.put(Constants.HTTP_CONNECTION_RETRY, "9");
+		Assert.assertEquals(view.get(Constants.HTTP_CONNECTION_RETRY), "7");
+	}
+
+	@Test
+	public void overlayReusesViewsTest() {
+		ConfigurationView defaults = ConfigurationView.getDefaults();
+		Assert.assertSame(ConfigurationView.of((Map<String, String>) null),
+				defaults);
+		Assert.assertSame(ConfigurationView.of(defaults), defaults);
+		ConfigurationView view = ConfigurationView.of(new Properties());
+		Assert.assertSame(ConfigurationView.of(view), view);
+		Assert.assertSame(SDKConfig.getInstance(view),
+				SDKConfig.getInstance(view));
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void readOnlyTest() {
+		ConfigurationView.of(new Properties()).put("key", "value");
+	}
+
+	@Test
+	public void combineDefaultPropertiesTest() {
+		Properties properties = new Properties();
+		properties.setProperty("key", " value");
+		Properties combined = ConfigManager
+				.combineDefaultProperties(properties);
+		Assert.assertEquals(combined.getProperty("key"), " value");
+		Assert.assertEquals(combined
+				.getProperty(Constants.HTTP_CONNECTION_RETRY), ConfigManager
+				.getDefaultProperties().getProperty(
+						Constants.HTTP_CONNECTION_RETRY));
+	}
+
+}
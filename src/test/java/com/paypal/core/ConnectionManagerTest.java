@@ -1,5 +1,7 @@
 package com.paypal.core;
 
+import java.io.IOException;
+
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -7,6 +9,7 @@ import org.testng.annotations.Test;
 
 import com.paypal.core.ConnectionManager;
 import com.paypal.core.HttpConnection;
+import com.paypal.exception.CircuitBreakerOpenException;
 
 public class ConnectionManagerTest {
 	ConnectionManager conn;
@@ -39,6 +42,97 @@ public class ConnectionManagerTest {
 				DefaultHttpConnection.class);
 	}
 
+	@Test
+	public void getConnectionWithHttpConfigurationForConnectionClassTest() {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setConnectionClass(GoogleAppEngineHttpConnection.class
+				.getName());
+		Assert.assertEquals(conn.getConnection(httpConfig).getClass(),
+				GoogleAppEngineHttpConnection.class);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void getConnectionWithHttpConfigurationForInvalidConnectionClassTest() {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setConnectionClass(String.class.getName());
+		conn.getConnection(httpConfig);
+	}
+
+	@Test
+	public void releaseConnectionFreesSlotTest() throws IOException,
+			CircuitBreakerOpenException {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setEndPointUrl("https://limit-release.example.com/v1/path");
+		httpConfig.setMaxHttpConnection(1);
+		httpConfig.setConnectionTimeout(50);
+		HttpConnection first = conn.leaseConnection(httpConfig);
+		conn.releaseConnection(first);
+		conn.releaseConnection(first);
+		httpConfig.setEndPointUrl("https://limit-release.example.com/v1/other");
+		HttpConnection second = conn.leaseConnection(httpConfig);
+		Assert.assertEquals(conn.getLimiter(httpConfig).getLeasedCount(), 1);
+		conn.releaseConnection(second);
+		Assert.assertEquals(conn.getLimiter(httpConfig).getLeasedCount(), 0);
+	}
+
+	@Test
+	public void leaseConnectionPerRouteTest() throws IOException,
+			CircuitBreakerOpenException {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setEndPointUrl("https://limit-route-a.example.com/");
+		httpConfig.setMaxHttpConnection(1);
+		httpConfig.setConnectionTimeout(50);
+		HttpConnection first = conn.leaseConnection(httpConfig);
+		httpConfig.setEndPointUrl("https://limit-route-b.example.com/");
+		HttpConnection second = conn.leaseConnection(httpConfig);
+		conn.releaseConnection(second);
+		conn.releaseConnection(first);
+		Assert.assertNotSame(second, first);
+	}
+
+	@Test(expectedExceptions = IOException.class)
+	public void leaseConnectionExhaustedPoolTest() throws IOException,
+			CircuitBreakerOpenException {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setEndPointUrl("https://limit-bound.example.com/");
+		httpConfig.setMaxHttpConnection(1);
+		httpConfig.setConnectionTimeout(50);
+		HttpConnection first = conn.leaseConnection(httpConfig);
+		try {
+			conn.leaseConnection(httpConfig);
+		} finally {
+			conn.releaseConnection(first);
+		}
+	}
+
+	@Test
+	public void retryBudgetSharedPerEndpointTest() throws IOException {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setEndPointUrl("https://budget.example.com/v1/a");
+		RetryBudget retryBudget = conn.getRetryBudget(httpConfig);
+		httpConfig.setEndPointUrl("https://budget.example.com/v1/b");
+		Assert.assertSame(conn.getRetryBudget(httpConfig), retryBudget);
+		int retries = 0;
+		while (retryBudget.tryAcquire()) {
+			retries++;
+		}
+		Assert.assertTrue(retries >= RetryBudget.MAX_TOKENS);
+		Assert.assertTrue(retries < RetryBudget.MAX_TOKENS + 2);
+		Assert.assertFalse(retryBudget.tryAcquire());
+	}
+
+	@Test(expectedExceptions = CircuitBreakerOpenException.class)
+	public void leaseConnectionCircuitBreakerOpenTest() throws IOException,
+			CircuitBreakerOpenException {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setEndPointUrl("https://breaker.example.com/");
+		CircuitBreaker circuitBreaker = conn.getCircuitBreaker(httpConfig);
+		for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS; i++) {
+			circuitBreaker.onResult(true, 1);
+		}
+		conn.leaseConnection(httpConfig);
+	}
+
 	@AfterClass
 	public void afterClass() {
 		conn = null;
@@ -0,0 +1,29 @@
+package com.paypal.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paypal.core.credential.SignatureCredential;
+import com.paypal.core.credential.SubjectAuthorization;
+
+public class CredentialHeaderCacheTest {
+
+	@Test
+	public void soapHeaderTest() {
+		SignatureCredential credential = new SignatureCredential("user",
+				"pass<&>", "signature");
+		String header = CredentialHeaderCache.getSOAPHeader(credential,
+				new SubjectAuthorization("subject"));
+		Assert.assertEquals(header, "<ns:RequesterCredentials><ebl:Credentials>"
+				+ "<ebl:Username>user</ebl:Username>"
+				+ "<ebl:Password>pass&lt;&amp;&gt;</ebl:Password>"
+				+ "<ebl:Signature>signature</ebl:Signature>"
+				+ "<ebl:Subject>subject</ebl:Subject>"
+				+ "</ebl:Credentials></ns:RequesterCredentials>");
+		Assert.assertSame(CredentialHeaderCache.getSOAPHeader(credential,
+				new SubjectAuthorization("subject")), header);
+		Assert.assertFalse(CredentialHeaderCache.getSOAPHeader(credential,
+				null).contains("ebl:Subject"));
+	}
+
+}
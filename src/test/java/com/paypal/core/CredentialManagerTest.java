@@ -1,8 +1,6 @@
 package com.paypal.core;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -51,48 +49,34 @@ public class CredentialManagerTest {
 		Assert.assertNotNull(credential);
 	}
 
-	@Test(dataProvider = "configParams", dataProviderClass = DataProviderClass.class, expectedExceptions = InvocationTargetException.class, priority = 3)
+	@Test(dataProvider = "configParams", dataProviderClass = DataProviderClass.class, expectedExceptions = InvalidCredentialException.class, priority = 3)
 	public void returnCredentialForInvalidCredentialExceptionTest(
-			ConfigManager conf) throws NoSuchMethodException,
-			SecurityException, IllegalAccessException,
-			IllegalArgumentException, InvocationTargetException {
+			ConfigManager conf) throws InvalidCredentialException {
 		Map<String, String> credMap = new HashMap<String, String>();
 		credMap.put("acct1.UserName", "jb_us_seller");
 		credMap.put("acct1.Password", "password1");
 		credMap.put("acct2.Password", "password2");
-		Class<?> credClass = cred.getClass();
-		Method method = credClass.getDeclaredMethod("returnCredential",
-				Map.class, String.class);
-		method.setAccessible(true);
-		credential = (ICredential) method.invoke(cred, credMap, "acct1");
+		credential = CredentialRegistry.createCredential(credMap, "acct1");
 
 	}
 
 	@Test(dataProvider = "configParams", dataProviderClass = DataProviderClass.class, priority = 4)
 	public void returnCredentialForSignatureTest(ConfigManager conf)
-			throws NoSuchMethodException, SecurityException,
-			IllegalAccessException, IllegalArgumentException,
-			InvocationTargetException {
+			throws InvalidCredentialException {
 		Map<String, String> credMap = new HashMap<String, String>();
 		credMap.put("acct1.UserName", "jb_us_seller");
 		credMap.put("acct1.Password", "password1");
 		credMap.put("acct1.Signature", "signature1");
 		credMap.put("acct1.Subject", "subject1");
 		credMap.put("acct2.Password", "password2");
-		Class<?> credClass = cred.getClass();
-		Method method = credClass.getDeclaredMethod("returnCredential",
-				Map.class, String.class);
-		method.setAccessible(true);
-		credential = (ICredential) method.invoke(cred, credMap, "acct1");
+		credential = CredentialRegistry.createCredential(credMap, "acct1");
 		Assert.assertNotNull(credential);
 		Assert.assertEquals(credential.getClass(), SignatureCredential.class);
 	}
 
 	@Test(dataProvider = "configParams", dataProviderClass = DataProviderClass.class, priority = 5)
 	public void returnCredentialForCertificateTest(ConfigManager conf)
-			throws NoSuchMethodException, SecurityException,
-			IllegalAccessException, IllegalArgumentException,
-			InvocationTargetException {
+			throws InvalidCredentialException {
 		Map<String, String> credMap = new HashMap<String, String>();
 		credMap.put("acct1.UserName", "jb_us_seller");
 		credMap.put("acct1.Password", "password1");
@@ -100,11 +84,7 @@ public class CredentialManagerTest {
 		credMap.put("acct1.CertKey", "certKey1");
 		credMap.put("acct1.Subject", "subject1");
 		credMap.put("acct2.Password", "password2");
-		Class<?> credClass = cred.getClass();
-		Method method = credClass.getDeclaredMethod("returnCredential",
-				Map.class, String.class);
-		method.setAccessible(true);
-		credential = (ICredential) method.invoke(cred, credMap, "acct1");
+		credential = CredentialRegistry.createCredential(credMap, "acct1");
 		Assert.assertNotNull(credential);
 		Assert.assertEquals(credential.getClass(), CertificateCredential.class);
 	}
@@ -0,0 +1,116 @@
+package com.paypal.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paypal.core.credential.CertificateCredential;
+import com.paypal.core.credential.ICredential;
+import com.paypal.core.credential.SignatureCredential;
+import com.paypal.core.credential.TokenAuthorization;
+import com.paypal.exception.InvalidCredentialException;
+import com.paypal.exception.MissingCredentialException;
+
+public class CredentialRegistryTest {
+
+	private static Map<String, String> accounts() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("acct1.UserName", "Seller_API1.paypal.com");
+		configurationMap.put("acct1.Password", "password1");
+		configurationMap.put("acct1.Signature", "signature1");
+		configurationMap.put("acct2.UserName", "cert_api1.paypal.com");
+		configurationMap.put("acct2.Password", "password2");
+		configurationMap.put("acct2.CertPath", "cert.p12");
+		configurationMap.put("acct2.CertKey", "key");
+		configurationMap.put("acct3.UserName", "invalid_api1.paypal.com");
+		return configurationMap;
+	}
+
+	@Test
+	public void lookupTest() throws Exception {
+		ConfigurationView view = ConfigurationView.of(accounts());
+		CredentialRegistry registry = CredentialRegistry.getInstance(view);
+		Assert.assertSame(CredentialRegistry.getInstance(view), registry);
+		Assert.assertSame(CredentialRegistry.getInstance(accounts()),
+				CredentialRegistry.getInstance(accounts()));
+		Assert.assertEquals(registry.getAccountKeys().size(), 3);
+
+		ICredential credential = registry
+				.getCredential("seller_api1.PAYPAL.com");
+		Assert.assertEquals(((SignatureCredential) credential).getSignature(),
+				"signature1");
+		Assert.assertSame(registry.getCredential(null), credential);
+		Assert.assertSame(registry.getCredentialByAccount("acct1"),
+				credential);
+		Assert.assertTrue(registry.getCredential("cert_api1.paypal.com") instanceof CertificateCredential);
+		Assert.assertNull(registry.getCredentialByAccount("acct9"));
+	}
+
+	@Test(expectedExceptions = InvalidCredentialException.class)
+	public void invalidAccountTest() throws Exception {
+		CredentialRegistry.getInstance(accounts()).getCredential(
+				"invalid_api1.paypal.com");
+	}
+
+	@Test(expectedExceptions = MissingCredentialException.class)
+	public void noAccountsTest() throws Exception {
+		CredentialRegistry.getInstance(new HashMap<String, String>())
+				.getCredential(null);
+	}
+
+	@Test
+	public void addAndRemoveTest() throws Exception {
+		CredentialRegistry registry = CredentialRegistry
+				.getInstance(ConfigurationView.of(accounts()));
+		SignatureCredential tenant = new SignatureCredential(
+				"tenant_api1.paypal.com", "password", "signature");
+		registry.addCredential("tenant", tenant);
+		ICredential credential = registry.getCredential("TENANT_api1.paypal.com");
+		Assert.assertNotSame(credential, tenant);
+		Assert.assertEquals(((SignatureCredential) credential).getPassword(),
+				"password");
+		Assert.assertTrue(registry.removeCredential("tenant"));
+		Assert.assertFalse(registry.removeCredential("tenant"));
+		try {
+			registry.getCredential("tenant_api1.paypal.com");
+			Assert.fail();
+		} catch (MissingCredentialException e) {
+			Assert.assertNotNull(e.getMessage());
+		}
+	}
+
+	@Test
+	public void runtimeAccountsNotEvictedTest() throws Exception {
+		Map<String, String> configurationMap = accounts();
+		configurationMap.put("tenant.evict", "true");
+		CredentialRegistry registry = CredentialRegistry
+				.getInstance(configurationMap);
+		registry.addCredential("tenant", new SignatureCredential(
+				"evict_api1.paypal.com", "password", "signature"));
+		for (int i = 0; i < 200; i++) {
+			Map<String, String> other = accounts();
+			other.put("tenant.evict", String.valueOf(i));
+			CredentialRegistry.getInstance(other);
+		}
+		Assert.assertSame(CredentialRegistry.getInstance(configurationMap),
+				registry);
+		Assert.assertNotNull(CredentialRegistry.getInstance(configurationMap)
+				.getCredential("evict_api1.paypal.com"));
+	}
+
+	@Test
+	public void credentialManagerReturnsCopyTest() throws Exception {
+		ConfigurationView view = ConfigurationView.of(accounts());
+		ICredential credential = new CredentialManager(view)
+				.getCredentialObject(null);
+		((SignatureCredential) credential)
+				.setThirdPartyAuthorization(new TokenAuthorization("token",
+						"secret"));
+		Assert.assertNull(((SignatureCredential) CredentialRegistry
+				.getInstance(view).getCredential(null))
+				.getThirdPartyAuthorization());
+	}
+
+}
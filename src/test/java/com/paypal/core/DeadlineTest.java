@@ -0,0 +1,79 @@
+package com.paypal.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DeadlineTest {
+
+	@Test
+	public void shrinkTest() {
+		Deadline deadline = Deadline.after(1000);
+		Assert.assertEquals(deadline.shrink(100), 100);
+		Assert.assertTrue(deadline.shrink(5000) <= 1000);
+		Assert.assertTrue(deadline.shrink(0) <= 1000);
+		Assert.assertTrue(deadline.shrink(0) > 0);
+	}
+
+	@Test
+	public void earliestTest() {
+		Deadline first = Deadline.after(100);
+		Deadline second = Deadline.after(100000);
+		Assert.assertSame(Deadline.earliest(first, second), first);
+		Assert.assertSame(Deadline.earliest(second, first), first);
+		Assert.assertSame(Deadline.earliest(null, second), second);
+		Assert.assertNull(Deadline.earliest(null, null));
+	}
+
+	@Test
+	public void forConfigurationTest() {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		Assert.assertNull(Deadline.forConfiguration(httpConfig));
+		httpConfig.setRequestTimeout(100000);
+		Deadline current = Deadline.after(100);
+		Deadline.setCurrent(current);
+		try {
+			Assert.assertSame(Deadline.forConfiguration(httpConfig), current);
+		} finally {
+			Deadline.setCurrent(null);
+		}
+		Assert.assertNull(Deadline.getCurrent());
+	}
+
+	@Test
+	public void enterTest() {
+		HttpConfiguration httpConfig = new HttpConfiguration();
+		httpConfig.setRequestTimeout(100);
+		Assert.assertNull(Deadline.enter(100000));
+		try {
+			Deadline current = Deadline.getCurrent();
+			Assert.assertNotNull(current);
+
+			// Later stages of the call share the deadline entered once
+			Assert.assertSame(Deadline.forConfiguration(httpConfig), current);
+			Assert.assertSame(Deadline.enter(200000), current);
+			Assert.assertSame(Deadline.getCurrent(), current);
+			Assert.assertSame(Deadline.enter(0), current);
+			Assert.assertSame(Deadline.enter(10), current);
+			Assert.assertNotSame(Deadline.getCurrent(), current);
+		} finally {
+			Deadline.setCurrent(null);
+		}
+		Assert.assertTrue(Deadline.forConfiguration(httpConfig)
+				.getRemaining() <= 100);
+	}
+
+	@Test
+	public void expiredTest() throws InterruptedException {
+		Deadline deadline = Deadline.after(1);
+		Thread.sleep(5);
+		Assert.assertTrue(deadline.isExpired());
+		Assert.assertEquals(deadline.getRemaining(), 0);
+		Assert.assertEquals(deadline.shrink(1000), 1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void invalidTimeoutTest() {
+		Deadline.after(0);
+	}
+
+}
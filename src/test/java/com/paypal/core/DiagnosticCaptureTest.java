@@ -0,0 +1,198 @@
+package com.paypal.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paypal.core.rest.APIContext;
+import com.paypal.core.rest.HttpMethod;
+import com.paypal.core.rest.PayPalRESTException;
+import com.paypal.core.rest.PayPalResource;
+
+public class DiagnosticCaptureTest {
+
+	@Test
+	public void getModeTest() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		Assert.assertEquals(DiagnosticCapture.getMode(null),
+				DiagnosticCapture.Mode.ERRORS);
+		Assert.assertEquals(DiagnosticCapture.getMode(ConfigurationView
+				.getDefaults()), DiagnosticCapture.Mode.ERRORS);
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "all");
+		Assert.assertEquals(DiagnosticCapture.getMode(configurationMap),
+				DiagnosticCapture.Mode.ALL);
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, " Errors");
+		Assert.assertEquals(DiagnosticCapture.getMode(configurationMap),
+				DiagnosticCapture.Mode.ERRORS);
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "off");
+		Assert.assertEquals(DiagnosticCapture.getMode(configurationMap),
+				DiagnosticCapture.Mode.OFF);
+	}
+
+	@Test
+	public void maskTest() {
+		String fields = DiagnosticCapture.DEFAULT_MASK_FIELDS;
+		Assert.assertEquals(DiagnosticCapture.mask(
+				"{\"number\":\"4417119669820331\",\"cvv2\": 874,\"type\":\"visa\"}",
+				fields),
+				"{\"number\":\"****\",\"cvv2\": \"****\",\"type\":\"visa\"}");
+		Assert.assertEquals(DiagnosticCapture.mask(
+				"USER=user&PWD=secret&SIGNATURE=abc&AMT=1.00", fields),
+				"USER=user&PWD=****&SIGNATURE=****&AMT=1.00");
+		Assert.assertEquals(DiagnosticCapture.mask(
+				"<ebl:Password>secret</ebl:Password><Amount>1</Amount>",
+				fields),
+				"<ebl:Password>****</ebl:Password><Amount>1</Amount>");
+		Assert.assertEquals(DiagnosticCapture.mask("PWD=secret", ""),
+				"PWD=secret");
+	}
+
+	@Test
+	public void recordTruncatesAndQueriesTest() {
+		DiagnosticCapture capture = DiagnosticCapture.getInstance();
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "all");
+		configurationMap.put(Constants.DIAGNOSTIC_MAX_BODY_LENGTH, "5");
+		Assert.assertTrue(capture.begin(configurationMap));
+		DiagnosticExchange exchange = capture.record(configurationMap, true,
+				"corr-1", "POST", "https://localhost/", 0L, "0123456789",
+				"abc", null);
+		Assert.assertEquals(exchange.getRequest(),
+				"01234...[5 characters truncated]");
+		Assert.assertEquals(exchange.getResponse(), "abc");
+		Assert.assertFalse(exchange.isError());
+		Assert.assertSame(capture.getLastExchange(), exchange);
+		Assert.assertSame(capture.getExchange(exchange.getId()), exchange);
+		List<DiagnosticExchange> exchanges = capture.getExchanges("corr-1");
+		Assert.assertEquals(exchanges.size(), 1);
+		Assert.assertSame(exchanges.get(0), exchange);
+
+		// Masking applies to the truncated text
+		configurationMap.put(Constants.DIAGNOSTIC_MAX_BODY_LENGTH, "10");
+		Assert.assertEquals(capture.record(configurationMap, true, null,
+				null, null, 0L, "PWD=secret&AMT=1.00", null, null)
+				.getRequest(), "PWD=****...[9 characters truncated]");
+	}
+
+	@Test
+	public void ringBufferOverwritesOldestTest() {
+		DiagnosticCapture capture = DiagnosticCapture.getInstance();
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "all");
+		configurationMap.put(Constants.DIAGNOSTIC_BUFFER_SIZE, "4");
+		try {
+			DiagnosticExchange first = null;
+			DiagnosticExchange last = null;
+			for (int i = 0; i < 6; i++) {
+				last = capture.record(configurationMap, true, null, null,
+						null, 0L, "request" + i, null, null);
+				if (first == null) {
+					first = last;
+				}
+			}
+			Assert.assertEquals(capture.getCapacity(), 4);
+			Assert.assertNull(capture.getExchange(first.getId()));
+			List<DiagnosticExchange> exchanges = capture.getExchanges();
+			Assert.assertEquals(exchanges.size(), 4);
+			Assert.assertSame(exchanges.get(0), last);
+			Assert.assertEquals(exchanges.get(3).getRequest(), "request2");
+		} finally {
+			configurationMap.remove(Constants.DIAGNOSTIC_BUFFER_SIZE);
+			capture.record(configurationMap, true, null, null, null, 0L,
+					null, null, null);
+			capture.clear();
+		}
+		Assert.assertEquals(capture.getCapacity(),
+				DiagnosticCapture.DEFAULT_BUFFER_SIZE);
+	}
+
+	@Test
+	public void errorsAndSampledModeTest() {
+		DiagnosticCapture capture = DiagnosticCapture.getInstance();
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "errors");
+		Assert.assertTrue(capture.begin(configurationMap));
+		Assert.assertNull(capture.getLastExchange());
+
+		// Successful calls are not kept in the buffer but remain the last
+		// exchange of the thread
+		DiagnosticExchange success = capture.record(configurationMap, true,
+				null, null, null, 0L, "request", "response", null);
+		Assert.assertEquals(success.getId(), 0);
+		Assert.assertSame(capture.getLastExchange(), success);
+		Assert.assertEquals(success.getResponse(), "response");
+		DiagnosticExchange exchange = capture.record(configurationMap, true,
+				null, null, null, 0L, "request", null, new Exception("failed"));
+		Assert.assertEquals(exchange.getError(), "failed");
+
+		configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "sampled");
+		configurationMap.put(Constants.DIAGNOSTIC_SAMPLE_RATE, "0.25");
+		int sampled = 0;
+		for (int i = 0; i < 100; i++) {
+			if (capture.begin(configurationMap)) {
+				sampled++;
+			}
+		}
+		Assert.assertEquals(sampled, 25);
+	}
+
+	@Test
+	public void lastRequestViewTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "{\"access_token\":\"secret\",\"id\":\"1\"}");
+			Map<String, String> configurationMap = new HashMap<String, String>();
+			configurationMap.put("service.EndPoint", server.getUrl());
+			configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "all");
+			APIContext apiContext = new APIContext("Bearer abc", "request-1");
+			apiContext.setConfigurationMap(configurationMap);
+			PayPalResource.configureAndExecute(apiContext, HttpMethod.POST,
+					"v1/a", "{\"number\":\"4417119669820331\"}", String.class);
+			Assert.assertEquals(PayPalResource.getLastRequest(),
+					"{\"number\":\"****\"}");
+			Assert.assertEquals(PayPalResource.getLastResponse(),
+					"{\"access_token\":\"****\",\"id\":\"1\"}");
+			DiagnosticExchange exchange = DiagnosticCapture.getInstance()
+					.getExchanges("request-1").get(0);
+			Assert.assertEquals(exchange.getMethod(), "POST");
+			Assert.assertEquals(exchange.getEndpoint(), server.getUrl()
+					+ "v1/a");
+
+			configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "off");
+			PayPalResource.configureAndExecute(apiContext, HttpMethod.POST,
+					"v1/a", "{}", String.class);
+			Assert.assertEquals(PayPalResource.getLastRequest(), "{}");
+			Assert.assertEquals(PayPalResource.getLastResponse(),
+					"{\"access_token\":\"****\",\"id\":\"1\"}");
+
+			// The default mode keeps the getters working for successful calls
+			configurationMap.remove(Constants.DIAGNOSTIC_CAPTURE_MODE);
+			PayPalResource.configureAndExecute(apiContext, HttpMethod.POST,
+					"v1/b", "{\"id\":\"2\"}", Map.class);
+			Assert.assertEquals(PayPalResource.getLastRequest(),
+					"{\"id\":\"2\"}");
+			Assert.assertEquals(PayPalResource.getLastResponse(),
+					"{\"access_token\":\"****\",\"id\":\"1\"}");
+			Assert.assertEquals(DiagnosticCapture.getInstance()
+					.getLastExchange().getId(), 0);
+
+			configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "errors");
+			server.respond(400, "{\"name\":\"VALIDATION_ERROR\"}");
+			try {
+				PayPalResource.configureAndExecute(apiContext,
+						HttpMethod.POST, "v1/a", "{}", String.class);
+				Assert.fail();
+			} catch (PayPalRESTException e) {
+				Assert.assertEquals(PayPalResource.getLastRequest(), "{}");
+				Assert.assertTrue(DiagnosticCapture.getInstance()
+						.getLastExchange().isError());
+			}
+		} finally {
+			server.stop();
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.paypal.core;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+	private final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(
+			100, 1000);
+
+	@Test
+	public void isRetryableIdempotentTest() {
+		Assert.assertTrue(policy.isRetryable("GET", null, 502, null));
+		Assert.assertTrue(policy.isRetryable("DELETE", null, -1,
+				new IOException()));
+		Assert.assertFalse(policy.isRetryable("GET", null, 500, null));
+		Assert.assertFalse(policy.isRetryable("GET", null, 404, null));
+	}
+
+	@Test
+	public void isRetryableNonIdempotentTest() {
+		Assert.assertFalse(policy.isRetryable("POST", null, 502, null));
+		Assert.assertFalse(policy.isRetryable("POST", null, -1,
+				new IOException()));
+		Assert.assertTrue(policy.isRetryable("POST", null, 503, null));
+		Assert.assertTrue(policy.isRetryable("POST", null, 429, null));
+		Assert.assertTrue(policy.isRetryable("POST", null, -1,
+				new ConnectException()));
+		Assert.assertTrue(policy.isRetryable("POST", Collections
+				.singletonMap("PayPal-Request-Id", "id"), 504, null));
+	}
+
+	@Test
+	public void getRetryDelayTest() {
+		long delay = 0;
+		for (int retry = 1; retry < 20; retry++) {
+			long previous = delay;
+			delay = policy.getRetryDelay(retry, previous, -1);
+			Assert.assertTrue(delay >= 100 && delay <= 1000);
+			Assert.assertTrue(delay <= Math.max(100, previous) * 3);
+		}
+	}
+
+	@Test
+	public void getRetryDelayRetryAfterTest() {
+		Assert.assertTrue(policy.getRetryDelay(1, 0, 800) >= 800);
+		Assert.assertEquals(policy.getRetryDelay(1, 0, 5000), -1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void invalidDelaysTest() {
+		new ExponentialBackoffRetryPolicy(1000, 100);
+	}
+
+}
@@ -1,10 +1,19 @@
 package com.paypal.core;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import junit.framework.Assert;
 
@@ -13,6 +22,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.paypal.exception.ClientActionRequiredException;
+import com.paypal.exception.DeadlineExceededException;
 import com.paypal.exception.HttpErrorException;
 import com.paypal.exception.InvalidResponseDataException;
 
@@ -55,6 +65,321 @@ public class HttpConnectionTest {
 		Assert.assertTrue(response.contains("<ack>Failure</ack>"));
 	}
 
+	@Test
+	public void executeWritesExactBytesTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "OK");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			String payload = "name=caf\u00e9 ";
+			String response = conn.execute(null, payload, null);
+			Assert.assertEquals("OK", response);
+			byte[] expected = payload.getBytes("UTF-8");
+			Assert.assertTrue(Arrays.equals(expected,
+					server.getLastRequestBody()));
+			Assert.assertEquals(String.valueOf(expected.length), server
+					.getLastRequestHeaders().get("Content-length").get(0));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeByteBufferBodyTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "OK");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(4);
+			buffer.put(new byte[] { 'a', 'b', 'c', 'd' }).flip();
+			conn.execute(null, HttpRequestBody.create(buffer), null);
+			Assert.assertTrue(Arrays.equals(new byte[] { 'a', 'b', 'c', 'd' },
+					server.getLastRequestBody()));
+			Assert.assertEquals(4, buffer.remaining());
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executePreservesLineSeparatorsTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "line1\nline2\r\n");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			Assert.assertEquals("line1\nline2\r\n",
+					conn.execute(null, "", null));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeResponseHandlerTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, new byte[] { 1, 2, 3 }, Collections
+					.singletonMap("Content-Type",
+							"application/octet-stream; charset=ISO-8859-1"));
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			final String[] charset = new String[1];
+			byte[] response = conn.execute(null, HttpRequestBody.create(""),
+					null, new HttpResponseHandler<byte[]>() {
+						public byte[] handle(int responseCode,
+								InputStream inputStream, String responseCharset,
+								long contentLength) throws IOException {
+							charset[0] = responseCharset;
+							byte[] bytes = new byte[(int) contentLength];
+							int offset = 0;
+							while (offset < bytes.length) {
+								offset += inputStream.read(bytes, offset,
+										bytes.length - offset);
+							}
+							return bytes;
+						}
+					});
+			Assert.assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, response));
+			Assert.assertEquals("ISO-8859-1", charset[0]);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeGzipResponseTurkishLocaleTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		Locale locale = Locale.getDefault();
+		try {
+			// 'GZIP' lower-cased in the Turkish locale is not 'gzip'
+			Locale.setDefault(new Locale("tr", "TR"));
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(bos);
+			gzip.write("{}".getBytes("UTF-8"));
+			gzip.close();
+			server.respond(200, bos.toByteArray(), Collections.singletonMap(
+					"Content-Encoding", "GZIP"));
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setCompressionEnabled(true);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			Assert.assertEquals("{}", conn.execute(null, "", null));
+		} finally {
+			Locale.setDefault(locale);
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeGzipResponseTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			String payload = "{\"items\":[\"a\",\"a\",\"a\",\"a\",\"a\"]}";
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			GZIPOutputStream gzip = new GZIPOutputStream(bos);
+			gzip.write(payload.getBytes("UTF-8"));
+			gzip.close();
+			byte[] compressed = bos.toByteArray();
+			server.respond(200, compressed, Collections.singletonMap(
+					"Content-Encoding", "gzip"));
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setCompressionEnabled(true);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			CompressionStatistics statistics = ConnectionManager.getInstance()
+					.getCompressionStatistics();
+			long compressedBytes = statistics.getCompressedBytes();
+			long decompressedBytes = statistics.getDecompressedBytes();
+			Assert.assertEquals(payload, conn.execute(null, "", null));
+			Assert.assertEquals("gzip, deflate", server
+					.getLastRequestHeaders().get("Accept-encoding").get(0));
+			Assert.assertEquals(compressed.length,
+					statistics.getCompressedBytes() - compressedBytes);
+			Assert.assertEquals(payload.length(),
+					statistics.getDecompressedBytes() - decompressedBytes);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeRawDeflateResponseTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			DeflaterOutputStream deflate = new DeflaterOutputStream(bos,
+					new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+			deflate.write("deflated".getBytes("UTF-8"));
+			deflate.close();
+			server.respond(200, bos.toByteArray(), Collections.singletonMap(
+					"Content-Encoding", "deflate"));
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setCompressionEnabled(true);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			Assert.assertEquals("deflated", conn.execute(null, "", null));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeWithoutCompressionTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "plain");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			Assert.assertEquals("plain", conn.execute(null, "", null));
+			Assert.assertNull(server.getLastRequestHeaders().get(
+					"Accept-encoding"));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeRetriesUnavailableTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.enqueue(503, "unavailable", Collections.singletonMap(
+					"Retry-After", "0"));
+			server.respond(200, "OK");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setRetryDelay(1);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			Assert.assertEquals("OK", conn.execute(null, "payload", null));
+			Assert.assertEquals(2, server.getRequestCount());
+			Assert.assertEquals("payload", new String(server
+					.getLastRequestBody(), "UTF-8"));
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeDoesNotRetryNonIdempotentTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(502, "bad gateway");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setRetryDelay(1);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			try {
+				conn.execute(null, "payload", null);
+				Assert.fail("HttpErrorException expected");
+			} catch (HttpErrorException e) {
+				Assert.assertEquals(502, e.getResponsecode());
+				Assert.assertEquals("bad gateway", e.getErrorResponse());
+			}
+			Assert.assertEquals(1, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeDeadlineStopsRetriesTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(503, "unavailable");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setMaxRetry(5);
+			config.setRetryDelay(2000);
+			config.setRequestTimeout(500);
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			long start = System.currentTimeMillis();
+			try {
+				conn.execute(null, "payload", null);
+				Assert.fail("DeadlineExceededException expected");
+			} catch (DeadlineExceededException e) {
+				Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+			}
+			Assert.assertEquals(1, server.getRequestCount());
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeDeadlineShrinksReadTimeoutTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "late");
+			server.setDelay(3000);
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			config.setDeadline(Deadline.after(300));
+			HttpConnection conn = new DefaultHttpConnection();
+			conn.createAndconfigureHttpConnection(config);
+			long start = System.currentTimeMillis();
+			try {
+				conn.execute(null, "payload", null);
+				Assert.fail("HttpErrorException expected");
+			} catch (HttpErrorException e) {
+				Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+			}
+		} finally {
+			server.setDelay(0);
+			server.stop();
+		}
+	}
+
+	@Test
+	public void executeHandlerFailureDoesNotTripCircuitBreakerTest()
+			throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "not json");
+			HttpConfiguration config = new HttpConfiguration();
+			config.setEndPointUrl(server.getUrl());
+			HttpResponseHandler<Object> handler = new HttpResponseHandler<Object>() {
+				public Object handle(int responseCode,
+						InputStream inputStream, String charset,
+						long contentLength) {
+					throw new IllegalStateException("cannot parse");
+				}
+			};
+			for (int i = 0; i < CircuitBreaker.MINIMUM_CALLS; i++) {
+				HttpConnection conn = new DefaultHttpConnection();
+				conn.createAndconfigureHttpConnection(config);
+				try {
+					conn.execute(null, HttpRequestBody.create("payload"),
+							null, handler);
+					Assert.fail("IllegalStateException expected");
+				} catch (IllegalStateException e) {
+					// expected
+				}
+			}
+			Assert.assertEquals(CircuitBreaker.State.CLOSED, ConnectionManager
+					.getInstance().getCircuitBreaker(config).getState());
+		} finally {
+			server.stop();
+		}
+	}
+
 	@AfterClass
 	public void afterClass() {
 		connection = null;
@@ -0,0 +1,156 @@
+package com.paypal.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal HTTP server bound to an ephemeral local port, used by tests that
+ * exercise the transport without reaching PayPal endpoints
+ */
+public class LocalHttpServer {
+
+	private final HttpServer server;
+
+	private final AtomicInteger requestCount = new AtomicInteger();
+
+	private final List<byte[]> requestBodies = Collections
+			.synchronizedList(new LinkedList<byte[]>());
+
+	private final List<Map<String, List<String>>> requestHeaders = Collections
+			.synchronizedList(new LinkedList<Map<String, List<String>>>());
+
+	private volatile String lastRequestUri;
+
+	private volatile int status = 200;
+
+	private volatile long delay;
+
+	private volatile byte[] body = new byte[0];
+
+	private volatile Map<String, String> responseHeaders = Collections
+			.emptyMap();
+
+	private final Queue<Object[]> queuedResponses = new ConcurrentLinkedQueue<Object[]>();
+
+	public LocalHttpServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@SuppressWarnings("unchecked")
+			public void handle(HttpExchange exchange) throws IOException {
+				lastRequestUri = exchange.getRequestURI().toString();
+				requestCount.incrementAndGet();
+				requestBodies.add(readFully(exchange.getRequestBody()));
+				requestHeaders.add(exchange.getRequestHeaders());
+				if (delay > 0) {
+					try {
+						Thread.sleep(delay);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				int responseStatus = status;
+				byte[] responseBody = body;
+				Map<String, String> headers = responseHeaders;
+				Object[] queued = queuedResponses.poll();
+				if (queued != null) {
+					responseStatus = (Integer) queued[0];
+					responseBody = (byte[]) queued[1];
+					headers = (Map<String, String>) queued[2];
+				}
+				for (Map.Entry<String, String> entry : headers.entrySet()) {
+					exchange.getResponseHeaders().add(entry.getKey(),
+							entry.getValue());
+				}
+				exchange.sendResponseHeaders(responseStatus,
+						responseBody.length == 0 ? -1 : responseBody.length);
+				OutputStream os = exchange.getResponseBody();
+				os.write(responseBody);
+				os.close();
+			}
+		});
+		server.start();
+	}
+
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+	}
+
+	public void respond(int status, String body) throws IOException {
+		respond(status, body.getBytes(Constants.ENCODING_FORMAT),
+				Collections.<String, String> emptyMap());
+	}
+
+	public void respond(int status, byte[] body,
+			Map<String, String> responseHeaders) {
+		this.status = status;
+		this.body = body;
+		this.responseHeaders = responseHeaders;
+	}
+
+	/**
+	 * Delays every response by the passed time in milliseconds
+	 */
+	public void setDelay(long delay) {
+		this.delay = delay;
+	}
+
+	/**
+	 * Queues a response served once before the default response
+	 */
+	public void enqueue(int status, String body,
+			Map<String, String> responseHeaders) throws IOException {
+		queuedResponses.add(new Object[] { status,
+				body.getBytes(Constants.ENCODING_FORMAT), responseHeaders });
+	}
+
+	public int getRequestCount() {
+		return requestCount.get();
+	}
+
+	public String getLastRequestUri() {
+		return lastRequestUri;
+	}
+
+	public byte[] getLastRequestBody() {
+		synchronized (requestBodies) {
+			return requestBodies.isEmpty() ? null : requestBodies
+					.get(requestBodies.size() - 1);
+		}
+	}
+
+	public Map<String, List<String>> getLastRequestHeaders() {
+		synchronized (requestHeaders) {
+			return requestHeaders.isEmpty() ? null : requestHeaders
+					.get(requestHeaders.size() - 1);
+		}
+	}
+
+	public void stop() {
+		server.stop(0);
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int read;
+		while ((read = is.read(buffer)) != -1) {
+			bos.write(buffer, 0, read);
+		}
+		return bos.toByteArray();
+	}
+
+}
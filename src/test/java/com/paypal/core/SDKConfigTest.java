@@ -0,0 +1,68 @@
+package com.paypal.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SDKConfigTest {
+
+	@Test
+	public void getInstanceCachesByContentTest() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.HTTP_CONNECTION_TIMEOUT, "1234");
+		configurationMap.put(Constants.HTTP_CONNECTION_MAX_RETRY_DELAY, "777");
+		SDKConfig sdkConfig = SDKConfig.getInstance(configurationMap);
+		Assert.assertSame(SDKConfig.getInstance(new HashMap<String, String>(
+				configurationMap)), sdkConfig);
+		Assert.assertSame(
+				SDKConfig.getInstance(sdkConfig.getConfigurationMap()),
+				sdkConfig);
+		Assert.assertEquals(sdkConfig.getConnectionTimeout(), 1234);
+		Assert.assertEquals(sdkConfig.getMaxRetryDelay(), 777);
+
+		// Defaults are combined in
+		Assert.assertEquals(sdkConfig.getMaxRetry(), 2);
+		Assert.assertEquals(sdkConfig.get(Constants.HTTP_CONNECTION_RETRY),
+				"2");
+
+		// Later changes to the passed Map create a new snapshot
+		configurationMap.put(Constants.HTTP_CONNECTION_TIMEOUT, "4321");
+		Assert.assertEquals(SDKConfig.getInstance(configurationMap)
+				.getConnectionTimeout(), 4321);
+		Assert.assertEquals(sdkConfig.getConnectionTimeout(), 1234);
+	}
+
+	@Test
+	public void applyToTest() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.USE_HTTP_PROXY, "true");
+		configurationMap.put(Constants.HTTP_PROXY_HOST, "proxy");
+		configurationMap.put(Constants.HTTP_PROXY_PORT, "8080");
+		configurationMap.put(Constants.HTTP_CONNECTION_RETRY_BUDGET_RATIO,
+				"0.5");
+		HttpConfiguration httpConfiguration = SDKConfig.getInstance(
+				configurationMap).applyTo(new HttpConfiguration());
+		Assert.assertEquals(httpConfiguration.getProxyHost(), "proxy");
+		Assert.assertEquals(httpConfiguration.getProxyPort(), 8080);
+		Assert.assertEquals(httpConfiguration.getRetryBudgetRatio(), 0.5);
+		Assert.assertEquals(httpConfiguration.getReadTimeout(), 30000);
+		Assert.assertEquals(httpConfiguration.getRequestTimeout(),
+				new HttpConfiguration().getRequestTimeout());
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void configurationMapIsReadOnlyTest() {
+		SDKConfig.getInstance(new HashMap<String, String>())
+				.getConfigurationMap().put("key", "value");
+	}
+
+	@Test(expectedExceptions = NumberFormatException.class)
+	public void invalidValueTest() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put(Constants.HTTP_CONNECTION_READ_TIMEOUT, "abc");
+		SDKConfig.getInstance(configurationMap);
+	}
+
+}
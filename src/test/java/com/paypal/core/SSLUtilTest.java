@@ -1,5 +1,7 @@
 package com.paypal.core;
 
+import javax.net.ssl.SSLSocketFactory;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -18,6 +20,24 @@ public class SSLUtilTest {
 				UnitTestConstants.CERT_PATH, UnitTestConstants.CERT_PASSWORD));
 	}
 
+	@Test
+	public void getSSLSocketFactoryIsSharedTest()
+			throws SSLConfigurationException {
+		Assert.assertSame(SSLUtil.getSSLSocketFactory(),
+				SSLUtil.getSSLSocketFactory());
+	}
+
+	@Test
+	public void getSSLSocketFactoryPerIdentityTest()
+			throws SSLConfigurationException {
+		SSLSocketFactory clientFactory = SSLUtil.getSSLSocketFactory(
+				UnitTestConstants.CERT_PATH, UnitTestConstants.CERT_PASSWORD);
+		Assert.assertSame(SSLUtil.getSSLSocketFactory(
+				UnitTestConstants.CERT_PATH, UnitTestConstants.CERT_PASSWORD),
+				clientFactory);
+		Assert.assertNotSame(SSLUtil.getSSLSocketFactory(), clientFactory);
+	}
+
 	@Test(expectedExceptions = SSLConfigurationException.class)
 	public void setupClientSSLExceptionTest() throws Exception {
 		Assert.assertNotNull(SSLUtil.setupClientSSL("src/sdk_cert.p12",
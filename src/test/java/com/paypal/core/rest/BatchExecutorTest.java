@@ -0,0 +1,141 @@
+package com.paypal.core.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.paypal.core.ConnectionManager;
+import com.paypal.core.LocalHttpServer;
+
+public class BatchExecutorTest {
+
+	private LocalHttpServer server;
+
+	private APIContext apiContext;
+
+	@BeforeMethod
+	public void startServer() throws Exception {
+		server = new LocalHttpServer();
+		server.respond(200, "{\"id\":\"PAY-1\"}");
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("service.EndPoint", server.getUrl());
+		apiContext = new APIContext("Bearer abc");
+		apiContext.setConfigurationMap(configurationMap);
+	}
+
+	@AfterMethod
+	public void stopServer() {
+		server.stop();
+	}
+
+	public static class Resource {
+		private String id;
+
+		public String getId() {
+			return id;
+		}
+	}
+
+	private List<BatchRequest<Resource>> newRequests(int count) {
+		List<BatchRequest<Resource>> requests = new ArrayList<BatchRequest<Resource>>();
+		for (int i = 0; i < count; i++) {
+			requests.add(new BatchRequest<Resource>(HttpMethod.GET,
+					"v1/payments/payment/PAY-" + i, null, Resource.class));
+		}
+		return requests;
+	}
+
+	@Test
+	public void executeInOrderTest() throws Exception {
+		server.setDelay(20);
+		List<BatchRequest<Resource>> requests = newRequests(20);
+		List<BatchResult<Resource>> results = new BatchExecutor(4).execute(
+				apiContext, requests);
+		Assert.assertEquals(results.size(), 20);
+		for (int i = 0; i < results.size(); i++) {
+			BatchResult<Resource> result = results.get(i);
+			Assert.assertSame(result.getRequest(), requests.get(i));
+			Assert.assertTrue(result.isSuccess());
+			Assert.assertEquals(result.getResponse().getId(), "PAY-1");
+			Assert.assertTrue(result.getStartTime() > 0);
+			Assert.assertTrue(result.getDuration() >= 0);
+		}
+		Assert.assertEquals(server.getRequestCount(), 20);
+	}
+
+	@Test
+	public void executeDoesNotWaitForQueuedHelpersTest() throws Exception {
+		ConnectionManager connectionManager = ConnectionManager.getInstance();
+		ExecutorService previous = connectionManager.getExecutorService();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		final CountDownLatch busy = new CountDownLatch(1);
+		try {
+			// The only worker is busy, helpers of the batch stay queued
+			connectionManager.setExecutorService(executor);
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						busy.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			List<BatchResult<Resource>> results = new BatchExecutor(4)
+					.execute(apiContext, newRequests(5));
+			Assert.assertEquals(results.size(), 5);
+			for (BatchResult<Resource> result : results) {
+				Assert.assertTrue(result.isSuccess());
+			}
+		} finally {
+			busy.countDown();
+			connectionManager.setExecutorService(previous);
+			executor.shutdown();
+		}
+		Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		Assert.assertEquals(server.getRequestCount(), 5);
+	}
+
+	@Test
+	public void executePerItemErrorTest() throws Exception {
+		server.enqueue(404, "{\"name\":\"INVALID_RESOURCE_ID\"}",
+				Collections.<String, String> emptyMap());
+		List<BatchResult<Resource>> results = new BatchExecutor(1).execute(
+				apiContext, newRequests(3));
+		Assert.assertFalse(results.get(0).isSuccess());
+		Assert.assertNotNull(results.get(0).getException());
+		Assert.assertNull(results.get(0).getResponse());
+		Assert.assertTrue(results.get(1).isSuccess());
+		Assert.assertTrue(results.get(2).isSuccess());
+	}
+
+	@Test
+	public void executeRequestIdPerCallTest() throws Exception {
+		BatchRequest<Resource> request = new BatchRequest<Resource>(
+				HttpMethod.POST, "v1/payments/payment", "{}", Resource.class);
+		request.setRequestId("request-1");
+		new BatchExecutor().execute(apiContext,
+				Collections.singletonList(request));
+		Assert.assertEquals(
+				server.getLastRequestHeaders().get("Paypal-request-id").get(0),
+				"request-1");
+	}
+
+	@Test
+	public void executeEmptyBatchTest() throws Exception {
+		Assert.assertTrue(new BatchExecutor().execute(apiContext,
+				newRequests(0)).isEmpty());
+	}
+
+}
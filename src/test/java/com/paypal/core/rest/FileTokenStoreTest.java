@@ -0,0 +1,104 @@
+package com.paypal.core.rest;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.paypal.core.LocalHttpServer;
+
+public class FileTokenStoreTest {
+
+	private File directory;
+
+	@BeforeMethod
+	public void createDirectory() throws Exception {
+		directory = File.createTempFile("paypal-tokens", "");
+		directory.delete();
+	}
+
+	@AfterMethod
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	private static Callable<OAuthToken> newRequest(final AtomicInteger count,
+			final long lifetime) {
+		return new Callable<OAuthToken>() {
+			public OAuthToken call() {
+				long now = System.currentTimeMillis();
+				return new OAuthToken("Bearer " + count.incrementAndGet(), now,
+						now + lifetime);
+			}
+		};
+	}
+
+	@Test
+	public void refreshSharedBetweenStoresTest() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		FileTokenStore first = new FileTokenStore(directory);
+		FileTokenStore second = new FileTokenStore(directory);
+		Assert.assertNull(second.get("key"));
+		OAuthToken token = first.refresh("key", newRequest(count, 3600000));
+		Assert.assertEquals(token.getAccessToken(), "Bearer 1");
+		OAuthToken stored = second.refresh("key", newRequest(count, 3600000));
+		Assert.assertEquals(stored.getAccessToken(), "Bearer 1");
+		Assert.assertEquals(stored.getExpiryTime(), token.getExpiryTime());
+		Assert.assertEquals(count.get(), 1);
+	}
+
+	@Test
+	public void refreshDueTokenIsReplacedTest() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		FileTokenStore store = new FileTokenStore(directory);
+		store.refresh("key", newRequest(count, 0));
+		OAuthToken token = store.refresh("key", newRequest(count, 3600000));
+		Assert.assertEquals(token.getAccessToken(), "Bearer 2");
+		Assert.assertEquals(store.get("key").getAccessToken(), "Bearer 2");
+		store.remove("key");
+		Assert.assertNull(store.get("key"));
+	}
+
+	@Test
+	public void credentialUsesStoredTokenTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "{}");
+			Map<String, String> configurationMap = new HashMap<String, String>();
+			configurationMap.put("oauth.EndPoint", server.getUrl());
+			configurationMap.put("oauth.TokenStoreDirectory",
+					directory.getPath());
+			OAuthTokenCredential credential = new OAuthTokenCredential(
+					"storedClientID", "clientSecret", configurationMap);
+			Assert.assertTrue(credential.getTokenStore() instanceof FileTokenStore);
+
+			// Token stored by another process
+			long now = System.currentTimeMillis();
+			final OAuthToken stored = new OAuthToken("Bearer stored", now,
+					now + 3600000);
+			new FileTokenStore(directory).refresh(credential.getTokenKey(),
+					new Callable<OAuthToken>() {
+						public OAuthToken call() {
+							return stored;
+						}
+					});
+			Assert.assertEquals(credential.getAccessToken(), "Bearer stored");
+			Assert.assertEquals(server.getRequestCount(), 0);
+		} finally {
+			server.stop();
+		}
+	}
+
+}
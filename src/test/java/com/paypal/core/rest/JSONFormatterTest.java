@@ -0,0 +1,170 @@
+package com.paypal.core.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.paypal.core.Constants;
+import com.paypal.core.LocalHttpServer;
+import com.paypal.sdk.openidconnect.Tokeninfo;
+
+public class JSONFormatterTest {
+
+	public static class Resource {
+		private String resourceId;
+
+		private int count;
+	}
+
+	private static Resource newResource() {
+		Resource resource = new Resource();
+		resource.resourceId = "PAY-1";
+		resource.count = 2;
+		return resource;
+	}
+
+	@Test
+	public void toJSONCompactTest() {
+		Assert.assertEquals(JSONFormatter.toJSON(newResource()),
+				"{\"resource_id\":\"PAY-1\",\"count\":2}");
+		Assert.assertTrue(JSONFormatter.toPrettyJSON(newResource()).contains(
+				"\n"));
+	}
+
+	@Test
+	public void streamingRoundTripTest() throws Exception {
+		StringWriter writer = new StringWriter();
+		JSONFormatter.toJSON(newResource(), writer);
+		Assert.assertEquals(writer.toString(),
+				JSONFormatter.toJSON(newResource()));
+		Resource resource = JSONFormatter.fromJSON(new StringReader(writer
+				.toString()), Resource.class);
+		Assert.assertEquals(resource.resourceId, "PAY-1");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		JSONFormatter.toJSON(newResource(), bos);
+		resource = JSONFormatter.fromJSON(
+				new ByteArrayInputStream(bos.toByteArray()), Resource.class);
+		Assert.assertEquals(resource.count, 2);
+	}
+
+	@Test
+	public void executeStreamsResourceTest() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "{\"resource_id\":\"PAY-2\",\"count\":3}");
+			Map<String, String> configurationMap = new HashMap<String, String>();
+			configurationMap.put("service.EndPoint", server.getUrl());
+			configurationMap.put(Constants.DIAGNOSTIC_CAPTURE_MODE, "all");
+			APIContext apiContext = new APIContext("Bearer abc");
+			apiContext.setConfigurationMap(configurationMap);
+			Resource response = PayPalResource.configureAndExecute(
+					apiContext, HttpMethod.POST, "v1/payments/payment",
+					(Object) newResource(), Resource.class);
+			Assert.assertEquals(response.resourceId, "PAY-2");
+			Assert.assertEquals(response.count, 3);
+			Assert.assertEquals(new String(server.getLastRequestBody(),
+					"UTF-8"), "{\"resource_id\":\"PAY-1\",\"count\":2}");
+			Assert.assertEquals(PayPalResource.getLastRequest(),
+					"{\"resource_id\":\"PAY-1\",\"count\":2}");
+			Assert.assertEquals(PayPalResource.getLastResponse(),
+					"{\"resource_id\":\"PAY-2\",\"count\":3}");
+		} finally {
+			server.stop();
+		}
+	}
+
+	public static class Amount {
+		private String value;
+	}
+
+	@Test
+	public void registerTypeAdapterTest() {
+		JSONFormatter.registerTypeAdapter(Amount.class,
+				new TypeAdapter<Amount>() {
+					public void write(JsonWriter out, Amount amount)
+							throws IOException {
+						out.value(amount.value);
+					}
+
+					public Amount read(JsonReader in)
+							throws IOException {
+						Amount amount = new Amount();
+						amount.value = in.nextString();
+						return amount;
+					}
+				});
+		Amount amount = new Amount();
+		amount.value = "10.00";
+		Assert.assertEquals(JSONFormatter.toJSON(amount), "\"10.00\"");
+		Assert.assertEquals(
+				JSONFormatter.fromJSON("\"5.00\"", Amount.class).value,
+				"5.00");
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class)
+	public void registerInvalidTypeAdapterTest() {
+		JSONFormatter.registerTypeAdapter(Amount.class, "adapter");
+	}
+
+	@Test
+	public void snapshotPerNamingPolicyTest() {
+		Gson gson = JSONFormatter
+				.getGson(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES);
+		Assert.assertSame(JSONFormatter
+				.getGson(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES), gson);
+		Assert.assertNotSame(JSONFormatter
+				.getGson(FieldNamingPolicy.UPPER_CAMEL_CASE), gson);
+		Assert.assertEquals(
+				JSONFormatter.getGson(FieldNamingPolicy.UPPER_CAMEL_CASE)
+						.toJson(newResource()),
+				"{\"ResourceId\":\"PAY-1\",\"Count\":2}");
+	}
+
+	@Test
+	public void warmUpTest() {
+		JSONFormatter.warmUp(Resource.class, Tokeninfo.class);
+		Assert.assertEquals(JSONFormatter.toJSON(newResource()),
+				"{\"resource_id\":\"PAY-1\",\"count\":2}");
+	}
+
+	@Test
+	public void tokeninfoTypeAdapterTest() {
+		Tokeninfo tokeninfo = new Tokeninfo("token", "Bearer", 900);
+		tokeninfo.setRefreshToken("refresh");
+		String json = tokeninfo.toJSON();
+		Assert.assertEquals(json,
+				"{\"access_token\":\"token\",\"refresh_token\":\"refresh\",\"token_type\":\"Bearer\",\"expires_in\":900}");
+		Tokeninfo parsed = JSONFormatter.fromJSON(
+				"{\"scope\":\"openid\",\"access_token\":\"a\",\"unknown\":{\"x\":[1]},\"expires_in\":60,\"refresh_token\":null}",
+				Tokeninfo.class);
+		Assert.assertEquals(parsed.getScope(), "openid");
+		Assert.assertEquals(parsed.getAccessToken(), "a");
+		Assert.assertEquals(parsed.getExpiresIn(), Integer.valueOf(60));
+		Assert.assertNull(parsed.getRefreshToken());
+	}
+
+	@Test
+	public void tokeninfoTypeAdapterNamingPolicyTest() {
+		Gson gson = JSONFormatter.getGson(FieldNamingPolicy.UPPER_CAMEL_CASE);
+		Assert.assertEquals(gson.toJson(new Tokeninfo("token", "Bearer", 900)),
+				"{\"AccessToken\":\"token\",\"TokenType\":\"Bearer\",\"ExpiresIn\":900}");
+		Tokeninfo parsed = gson.fromJson(
+				"{\"AccessToken\":\"a\",\"access_token\":\"b\"}",
+				Tokeninfo.class);
+		Assert.assertEquals(parsed.getAccessToken(), "a");
+	}
+
+}
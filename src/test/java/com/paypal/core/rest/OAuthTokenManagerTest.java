@@ -0,0 +1,188 @@
+package com.paypal.core.rest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.paypal.core.ConnectionManager;
+import com.paypal.core.LocalHttpServer;
+
+public class OAuthTokenManagerTest {
+
+	private LocalHttpServer server;
+
+	@BeforeMethod
+	public void startServer() throws Exception {
+		server = new LocalHttpServer();
+	}
+
+	@AfterMethod
+	public void stopServer() {
+		server.stop();
+	}
+
+	private OAuthTokenCredential newCredential() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("oauth.EndPoint", server.getUrl());
+		return new OAuthTokenCredential("clientID", "clientSecret",
+				configurationMap);
+	}
+
+	private static String tokenResponse(String accessToken, long expiresIn) {
+		return "{\"token_type\":\"Bearer\",\"access_token\":\"" + accessToken
+				+ "\",\"expires_in\":" + expiresIn + "}";
+	}
+
+	@Test
+	public void concurrentCallersShareSingleRequestTest() throws Exception {
+		server.respond(200, tokenResponse("abc", 3600));
+		server.setDelay(200);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int i = 0; i < 8; i++) {
+				final OAuthTokenCredential credential = newCredential();
+				results.add(executor.submit(new Callable<String>() {
+					public String call() throws Exception {
+						return credential.getAccessToken();
+					}
+				}));
+			}
+			for (Future<String> result : results) {
+				Assert.assertEquals(result.get(), "Bearer abc");
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(server.getRequestCount(), 1);
+	}
+
+	@Test
+	public void expiresInSecondsTest() throws Exception {
+		server.respond(200, tokenResponse("abc", 3600));
+		OAuthTokenCredential credential = newCredential();
+		Assert.assertEquals(credential.expiresIn(), 0);
+		credential.getAccessToken();
+		Assert.assertTrue(credential.expiresIn() > 3590);
+		Assert.assertTrue(credential.expiresIn() <= 3600);
+	}
+
+	@Test
+	public void proactiveRefreshServesCachedTokenTest() throws Exception {
+		server.respond(200, tokenResponse("first", 3));
+		OAuthTokenCredential credential = newCredential();
+		Assert.assertEquals(credential.getAccessToken(), "Bearer first");
+		OAuthToken token = OAuthTokenManager.getInstance().getCachedToken(
+				credential);
+
+		// Sleep until the refresh is due but the token is still valid
+		server.respond(200, tokenResponse("second", 3600));
+		server.setDelay(100);
+		long refreshTime = token.getIssuedTime()
+				+ (token.getExpiryTime() - token.getIssuedTime()) * 8 / 10;
+		Thread.sleep(Math.max(0, refreshTime - System.currentTimeMillis()) + 50);
+		Assert.assertEquals(credential.getAccessToken(), "Bearer first");
+
+		long timeout = System.currentTimeMillis() + 2000;
+		while (!"Bearer second".equals(OAuthTokenManager.getInstance()
+				.getCachedToken(credential).getAccessToken())
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(20);
+		}
+		Assert.assertEquals(credential.getAccessToken(), "Bearer second");
+		Assert.assertEquals(server.getRequestCount(), 2);
+	}
+
+	@Test
+	public void expiredTokenDoesNotWaitForQueuedRefreshTest()
+			throws Exception {
+		ConnectionManager connectionManager = ConnectionManager.getInstance();
+		ExecutorService previous = connectionManager.getExecutorService();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		final CountDownLatch busy = new CountDownLatch(1);
+		try {
+			// The only worker is busy, background refreshes stay queued
+			connectionManager.setExecutorService(executor);
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						busy.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			server.respond(200, tokenResponse("first", 1));
+			OAuthTokenCredential credential = newCredential();
+			Assert.assertEquals(credential.getAccessToken(), "Bearer first");
+			OAuthToken token = OAuthTokenManager.getInstance()
+					.getCachedToken(credential);
+			server.respond(200, tokenResponse("second", 3600));
+			long lifetime = token.getExpiryTime() - token.getIssuedTime();
+			Thread.sleep(Math.max(0, token.getIssuedTime() + lifetime * 8
+					/ 10 - System.currentTimeMillis()) + 20);
+			Assert.assertEquals(credential.getAccessToken(), "Bearer first");
+			Thread.sleep(Math.max(0, token.getExpiryTime()
+					- System.currentTimeMillis()) + 20);
+			Assert.assertEquals(credential.getAccessToken(), "Bearer second");
+			Assert.assertEquals(server.getRequestCount(), 2);
+		} finally {
+			busy.countDown();
+			connectionManager.setExecutorService(previous);
+			executor.shutdown();
+		}
+		Assert.assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+		Assert.assertEquals(server.getRequestCount(), 2);
+	}
+
+	@Test
+	public void failedRequestIsNotCachedTest() throws Exception {
+		server.respond(500, "{}");
+		OAuthTokenCredential credential = newCredential();
+		try {
+			credential.getAccessToken();
+			Assert.fail("Expected PayPalRESTException");
+		} catch (PayPalRESTException e) {
+			// expected
+		}
+		server.respond(200, tokenResponse("abc", 3600));
+		Assert.assertEquals(credential.getAccessToken(), "Bearer abc");
+	}
+
+	@Test
+	public void tokenNotSharedWithOtherSecretTest() throws Exception {
+		server.respond(200, tokenResponse("abc", 3600));
+		Assert.assertEquals(newCredential().getAccessToken(), "Bearer abc");
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("oauth.EndPoint", server.getUrl());
+		OAuthTokenCredential credential = new OAuthTokenCredential(
+				"clientID", "wrongSecret", configurationMap);
+		Assert.assertFalse(credential.getTokenKey().equals(
+				newCredential().getTokenKey()));
+		Assert.assertFalse(credential.getTokenKey().contains("clientID"));
+		Assert.assertNull(OAuthTokenManager.getInstance().getCachedToken(
+				credential));
+	}
+
+	@Test
+	public void tokenExpiryTest() {
+		OAuthToken token = new OAuthToken("Bearer abc", 0, 100000);
+		Assert.assertFalse(token.isRefreshDue(79999));
+		Assert.assertTrue(token.isRefreshDue(80000));
+		Assert.assertFalse(token.isExpired(89999));
+		Assert.assertTrue(token.isExpired(90000));
+	}
+
+}
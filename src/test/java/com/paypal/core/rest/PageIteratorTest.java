@@ -0,0 +1,122 @@
+package com.paypal.core.rest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.paypal.core.LocalHttpServer;
+
+public class PageIteratorTest {
+
+	private LocalHttpServer server;
+
+	private APIContext apiContext;
+
+	@BeforeMethod
+	public void startServer() throws Exception {
+		server = new LocalHttpServer();
+		server.respond(200, "{\"payments\":[]}");
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("service.EndPoint", server.getUrl());
+		apiContext = new APIContext("Bearer abc");
+		apiContext.setConfigurationMap(configurationMap);
+	}
+
+	@AfterMethod
+	public void stopServer() {
+		server.stop();
+	}
+
+	public static class Item {
+		private String id;
+	}
+
+	public static class History {
+		private List<Item> payments;
+		private String next_id;
+	}
+
+	private static final PageReader<History, Item> READER = new PageReader<History, Item>() {
+		public List<Item> getItems(History page) {
+			return page.payments;
+		}
+
+		public String getNextId(History page) {
+			return page.next_id;
+		}
+	};
+
+	private void enqueue(String body) throws Exception {
+		server.enqueue(200, body, Collections.<String, String> emptyMap());
+	}
+
+	private static List<String> ids(PageIterator<History, Item> iterator) {
+		List<String> ids = new ArrayList<String>();
+		while (iterator.hasNext()) {
+			ids.add(iterator.next().id);
+		}
+		return ids;
+	}
+
+	private PageIterator<History, Item> newIterator(String count, int lookAhead) {
+		QueryParameters queryParameters = new QueryParameters();
+		queryParameters.setCount(count);
+		return new PageIterator<History, Item>(apiContext,
+				"v1/payments/payment", queryParameters, History.class, READER,
+				lookAhead);
+	}
+
+	@Test
+	public void iterateByStartIdTest() throws Exception {
+		enqueue("{\"payments\":[{\"id\":\"1\"},{\"id\":\"2\"}],\"next_id\":\"3\"}");
+		enqueue("{\"payments\":[{\"id\":\"3\"}]}");
+		Assert.assertEquals(ids(newIterator("2", 1)),
+				Arrays.asList("1", "2", "3"));
+		Assert.assertEquals(server.getRequestCount(), 2);
+		Assert.assertTrue(server.getLastRequestUri().contains("start_id=3"));
+	}
+
+	@Test
+	public void iterateByStartIndexTest() throws Exception {
+		enqueue("{\"payments\":[{\"id\":\"1\"},{\"id\":\"2\"}]}");
+		enqueue("{\"payments\":[{\"id\":\"3\"},{\"id\":\"4\"}]}");
+		Assert.assertEquals(ids(newIterator("2", 0)),
+				Arrays.asList("1", "2", "3", "4"));
+		Assert.assertEquals(server.getRequestCount(), 3);
+		Assert.assertTrue(server.getLastRequestUri().contains("start_index=4"));
+	}
+
+	@Test
+	public void prefetchBoundedByLookAheadTest() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			enqueue("{\"payments\":[{\"id\":\"" + i + "\"}],\"next_id\":\"x"
+					+ i + "\"}");
+		}
+		PageIterator<History, Item> iterator = newIterator("1", 2);
+		Assert.assertEquals(iterator.next().id, "0");
+		long timeout = System.currentTimeMillis() + 2000;
+		while (server.getRequestCount() < 3
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(100);
+		Assert.assertEquals(server.getRequestCount(), 3);
+		iterator.close();
+		Assert.assertEquals(ids(iterator), Arrays.asList("1", "2"));
+	}
+
+	@Test(expectedExceptions = PageIterationException.class)
+	public void pageFailureTest() throws Exception {
+		server.enqueue(404, "{}", Collections.<String, String> emptyMap());
+		newIterator("2", 1).hasNext();
+	}
+
+}
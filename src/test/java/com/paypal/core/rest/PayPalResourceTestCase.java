@@ -4,11 +4,17 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.paypal.core.LocalHttpServer;
+
 public class PayPalResourceTestCase {
 
 	@Test
@@ -51,4 +57,43 @@ public class PayPalResourceTestCase {
 		}
 	}
 
+	@Test
+	public void testConfigureAndExecuteAsync() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(200, "{\"id\":\"PAY-1\"}");
+			Future<String> future = PayPalResource.configureAndExecuteAsync(
+					createAPIContext(server), HttpMethod.GET, "v1/payments",
+					"", String.class);
+			Assert.assertEquals(future.get(), "{\"id\":\"PAY-1\"}");
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testConfigureAndExecuteAsyncFailure() throws Exception {
+		LocalHttpServer server = new LocalHttpServer();
+		try {
+			server.respond(400, "{\"name\":\"VALIDATION_ERROR\"}");
+			Future<String> future = PayPalResource.configureAndExecuteAsync(
+					createAPIContext(server), HttpMethod.GET, "v1/payments",
+					"", String.class);
+			future.get();
+			Assert.fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof PayPalRESTException);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private APIContext createAPIContext(LocalHttpServer server) {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("service.EndPoint", server.getUrl());
+		APIContext apiContext = new APIContext("Bearer token");
+		apiContext.setConfigurationMap(configurationMap);
+		return apiContext;
+	}
+
 }
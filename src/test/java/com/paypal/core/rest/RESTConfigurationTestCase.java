@@ -4,6 +4,7 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.testng.Assert;
@@ -54,4 +55,71 @@ public class RESTConfigurationTestCase {
 			Assert.fail();
 		}
 	}
+
+	@Test
+	public void testRESTHeaderTemplate() {
+		Map<String, String> configurationMap = new HashMap<String, String>();
+		configurationMap.put("service.EndPoint", "https://localhost.sandbox.paypal.com");
+		configurationMap.put("clientId", "id");
+		configurationMap.put("clientSecret", "secret");
+		RESTAPICallPreHandler restConfiguration = new RESTAPICallPreHandler(configurationMap);
+		restConfiguration.setResourcePath("v1/a/b");
+		Map<String, String> headers = restConfiguration.getHeaderMap();
+		Assert.assertEquals(headers.get("Authorization"), "Basic aWQ6c2VjcmV0");
+		Assert.assertEquals(headers.get("Content-Type"), "application/json");
+		Assert.assertNotNull(headers.get("User-Agent"));
+		Assert.assertEquals(headers.size(), 3);
+		Assert.assertEquals(restConfiguration.getEndPoint(),
+				"https://localhost.sandbox.paypal.com/v1/a/b");
+
+		Map<String, String> customHeaders = new HashMap<String, String>();
+		customHeaders.put("Content-Type", "text/plain");
+		customHeaders.put("X-Custom", "value");
+		RESTAPICallPreHandler tokenConfiguration = new RESTAPICallPreHandler(
+				new HashMap<String, String>(configurationMap), customHeaders);
+		tokenConfiguration.setAuthorizationToken("Bearer token");
+		tokenConfiguration.setRequestId("request-id");
+		Map<String, String> tokenHeaders = tokenConfiguration.getHeaderMap();
+		Assert.assertEquals(tokenHeaders.get("Authorization"), "Bearer token");
+		Assert.assertEquals(tokenHeaders.get("PayPal-Request-Id"), "request-id");
+		Assert.assertEquals(tokenHeaders.get("Content-Type"), "text/plain");
+		Assert.assertEquals(tokenHeaders.get("X-Custom"), "value");
+		Assert.assertEquals(tokenHeaders.get("User-Agent"), headers.get("User-Agent"));
+		Assert.assertEquals(tokenHeaders.size(), 5);
+		Assert.assertEquals(new HashMap<String, String>(tokenHeaders).size(), 5);
+		Assert.assertSame(RESTHeaderTemplate.getInstance(configurationMap, null),
+				RESTHeaderTemplate.getInstance(
+						new HashMap<String, String>(configurationMap), null));
+	}
+
+	@Test
+	public void testRESTHeaderMapOverlay() {
+		Map<String, String> base = new HashMap<String, String>();
+		base.put("A", "1");
+		base.put("B", "2");
+		Map<String, String> headers = new RESTHeaderTemplate.HeaderMap(base);
+		headers.put("A", "1");
+		headers.put("C", "3");
+		Assert.assertEquals(headers.remove("B"), "2");
+		Assert.assertFalse(headers.containsKey("B"));
+		Assert.assertNull(headers.get("B"));
+		Assert.assertEquals(headers.size(), 2);
+		Map<String, String> expected = new HashMap<String, String>();
+		expected.put("A", "1");
+		expected.put("C", "3");
+		Assert.assertEquals(headers, expected);
+		headers.put("B", "4");
+		Assert.assertEquals(headers.get("B"), "4");
+		Iterator<String> itr = headers.keySet().iterator();
+		while (itr.hasNext()) {
+			if (!"C".equals(itr.next())) {
+				itr.remove();
+			}
+		}
+		Assert.assertEquals(headers.size(), 1);
+		Assert.assertEquals(headers.get("C"), "3");
+		headers.clear();
+		Assert.assertTrue(headers.isEmpty());
+		Assert.assertEquals(base.size(), 2);
+	}
 }
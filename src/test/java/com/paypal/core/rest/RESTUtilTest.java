@@ -1,11 +1,15 @@
 package com.paypal.core.rest;
 
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.paypal.sdk.openidconnect.UserinfoParameters;
+
 public class RESTUtilTest {
 
 	@Test()
@@ -188,4 +192,99 @@ public class RESTUtilTest {
 				"/a/b/first/second?alreadypresent=value&query1=value1&query2=value2&");
 	}
 
+	@Test
+	public void testFormatURIPathContainerParameters() {
+		UserinfoParameters userinfoParameters = new UserinfoParameters();
+		userinfoParameters.setAccessToken("a b&c");
+		String uriPath = RESTUtil.formatURIPath(
+				"v1/identity/openidconnect/userinfo?schema={0}&access_token={1}",
+				new Object[] { userinfoParameters });
+		Assert.assertEquals(uriPath,
+				"v1/identity/openidconnect/userinfo?schema=openid&access_token=a%2Bb%2526c");
+	}
+
+	@Test
+	public void testFormatURIPathNonStringParameter() {
+		Assert.assertEquals(
+				RESTUtil.formatURIPath("/a/{0}?count={1}", new Object[] {
+						"b", 1000 }), "/a/b?count=1,000");
+	}
+
+	@Test
+	public void testFormatURIPathMissingParameter() {
+		Assert.assertEquals(RESTUtil.formatURIPath("/a/{0}/{1}",
+				new Object[] { "b" }), "/a/b/{1}");
+	}
+
+	@Test
+	public void testUriTemplateCached() {
+		Assert.assertSame(UriTemplate.get("/a/b/{0}"),
+				UriTemplate.get("/a/b/{0}"));
+	}
+
+	@Test
+	public void testEncodeMatchesURLEncoder() throws Exception {
+		Random random = new Random(42);
+		String alphabet = "aZ09.-*_ ~!@#$%^&()+=?/{}'\"\u00e9\u20ac\ud83d\ude00\ud800";
+		for (int i = 0; i < 500; i++) {
+			StringBuilder value = new StringBuilder();
+			int length = random.nextInt(12);
+			for (int j = 0; j < length; j++) {
+				value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			Assert.assertEquals(UriTemplate.encode(value.toString()),
+					URLEncoder.encode(value.toString(), "UTF-8"), value
+							.toString());
+		}
+	}
+
+	@Test
+	public void testRemoveNullsInQSMatchesSplit() {
+		Random random = new Random(7);
+		String alphabet = "a?&= null";
+		for (int i = 0; i < 2000; i++) {
+			StringBuilder value = new StringBuilder();
+			int length = random.nextInt(14);
+			for (int j = 0; j < length; j++) {
+				value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			Assert.assertEquals(UriTemplate.removeNullsInQS(value.toString()),
+					removeNullsInQSBySplit(value.toString()), value.toString());
+		}
+	}
+
+	/*
+	 * Reference implementation splitting with regular expressions
+	 */
+	private static String removeNullsInQSBySplit(String fString) {
+		String formattedString = fString;
+		if (fString != null && fString.length() != 0) {
+			String[] parts = fString.split("\\?");
+			if (parts.length == 2) {
+				String queryString = parts[1];
+				String[] querys = queryString.split("&");
+				if (querys.length > 0) {
+					StringBuilder strBuilder = new StringBuilder();
+					for (String query : querys) {
+						String[] valueSplit = query.split("=");
+						if (valueSplit.length == 2) {
+							if ("null".equalsIgnoreCase(valueSplit[1].trim())) {
+								continue;
+							} else if ("".equals(valueSplit[1].trim())) {
+								continue;
+							} else {
+								strBuilder.append(query).append("&");
+							}
+						}
+					}
+					formattedString = (!strBuilder.toString().endsWith("&")) ? strBuilder
+							.toString() : strBuilder.toString().substring(0,
+							strBuilder.toString().length() - 1);
+				}
+				formattedString = (parts[0].trim() + "?") + formattedString;
+			}
+		}
+		return formattedString;
+	}
+
 }
@@ -0,0 +1,149 @@
+package com.paypal.sdk.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.paypal.core.codec.binary.Base64;
+import com.paypal.sdk.exceptions.OAuthException;
+import com.paypal.sdk.util.OAuthSignature.HTTPMethod;
+
+public class OAuthSignerTest {
+
+	/*
+	 * Signature computed as the original OAuthSignature implementation did
+	 */
+	private static String referenceSignature(String consumerKey,
+			String consumerSecret, String token, String tokenSecret,
+			String method, String normalizedURI, String timestamp,
+			Map<String, String> queryParams) throws Exception {
+		String key = PayPalURLEncoder.encode(consumerSecret, "US-ASCII") + "&"
+				+ PayPalURLEncoder.encode(tokenSecret, "US-ASCII");
+		List<String[]> params = new ArrayList<String[]>();
+		if (queryParams != null) {
+			for (Map.Entry<String, String> entry : queryParams.entrySet()) {
+				params.add(new String[] { entry.getKey(), entry.getValue() });
+			}
+		}
+		params.add(new String[] { "oauth_consumer_key", consumerKey });
+		params.add(new String[] { "oauth_version", "1.0" });
+		params.add(new String[] { "oauth_signature_method", "HMAC-SHA1" });
+		params.add(new String[] { "oauth_token", token });
+		params.add(new String[] { "oauth_timestamp", timestamp });
+		Collections.sort(params, new Comparator<String[]>() {
+			public int compare(String[] x, String[] y) {
+				int retval = x[0].compareTo(y[0]);
+				return retval != 0 ? retval : x[1].compareTo(y[1]);
+			}
+		});
+		StringBuilder paramString = new StringBuilder();
+		for (String[] param : params) {
+			if (paramString.length() > 0) {
+				paramString.append('&');
+			}
+			paramString.append(param[0]).append('=').append(param[1]);
+		}
+		String base = method + "&"
+				+ PayPalURLEncoder.encode(normalizedURI, "US-ASCII") + "&"
+				+ PayPalURLEncoder.encode(paramString.toString(), "US-ASCII");
+		Mac mac = Mac.getInstance("HmacSHA1");
+		mac.init(new SecretKeySpec(key.getBytes("US-ASCII"), "HmacSHA1"));
+		return new String(Base64.encodeBase64(mac.doFinal(base
+				.getBytes("US-ASCII"))), "US-ASCII");
+	}
+
+	@Test
+	public void matchesReferenceTest() throws Exception {
+		OAuthSigner signer = new OAuthSigner("user_api1.paypal.com",
+				"pass word-1.*", "token~\u00e9", "secret/+=");
+		Assert.assertEquals(signer.sign(HTTPMethod.POST,
+				"HTTPS://Svcs.Sandbox.PayPal.com:443/Permissions/GetBasicPersonalData",
+				"1357000000", null), referenceSignature(
+				"user_api1.paypal.com", "pass word-1.*", "token~\u00e9",
+				"secret/+=", "POST",
+				"https://svcs.sandbox.paypal.com/Permissions/GetBasicPersonalData",
+				"1357000000", null));
+
+		Map<String, String> queryParams = new LinkedHashMap<String, String>();
+		queryParams.put("z", "last");
+		queryParams.put("a-b", "dash");
+		queryParams.put("a", "plain");
+		queryParams.put("oauth_a", "first & <second>");
+		queryParams.put("\ud83d\ude00", "surrogate");
+		Assert.assertEquals(signer.sign(HTTPMethod.GET,
+				"http://localhost:8080/a", "1357000000", queryParams),
+				referenceSignature("user_api1.paypal.com", "pass word-1.*",
+						"token~\u00e9", "secret/+=", "GET",
+						"http://localhost:8080/a", "1357000000", queryParams));
+	}
+
+	@Test
+	public void batchTest() throws Exception {
+		OAuthSigner signer = new OAuthSigner("user", "password", "token",
+				"secret");
+		String[] uris = new String[] { "https://api.paypal.com/a",
+				"https://api.paypal.com/b", "https://api.paypal.com/a" };
+		String[] signatures = signer.sign(HTTPMethod.POST, uris, "100");
+		Assert.assertEquals(signatures.length, 3);
+		for (int i = 0; i < uris.length; i++) {
+			Assert.assertEquals(signatures[i],
+					signer.sign(HTTPMethod.POST, uris[i], "100", null));
+		}
+		Assert.assertEquals(signatures[0], signatures[2]);
+		Assert.assertFalse(signatures[0].equals(signatures[1]));
+	}
+
+	@Test
+	public void oauthSignatureDelegatesTest() throws Exception {
+		OAuthSignature oauth = new OAuthSignature("user", "password");
+		oauth.setToken("token");
+		oauth.setTokenSecret("secret");
+		oauth.setHTTPMethod(HTTPMethod.GET);
+		oauth.setTokenTimestamp("100");
+		oauth.setRequestURI("https://api.paypal.com/a");
+		oauth.addParameter("name", "value");
+		String signature = oauth.computeV1Signature();
+		Map<String, String> queryParams = new LinkedHashMap<String, String>();
+		queryParams.put("name", "value");
+		Assert.assertEquals(signature, new OAuthSigner("user", "password",
+				"token", "secret").sign(HTTPMethod.GET,
+				"https://api.paypal.com/a", "100", queryParams));
+		Assert.assertTrue(oauth.verifyV1Signature(signature));
+
+		String authString = OAuthSignature.getFullAuthString("user",
+				"password", "token", "secret", HTTPMethod.POST,
+				"https://api.paypal.com/a", null);
+		Assert.assertTrue(authString.startsWith("token=token,signature="));
+		Assert.assertTrue(authString.contains(",timestamp="));
+	}
+
+	@Test
+	public void getInstanceTest() throws Exception {
+		OAuthSigner signer = OAuthSigner.getInstance("user", "password",
+				"token", "secret");
+		Assert.assertSame(OAuthSigner.getInstance("user", "password", "token",
+				"secret"), signer);
+		Assert.assertNotSame(OAuthSigner.getInstance("user", "password",
+				"token", "other"), signer);
+	}
+
+	@Test(expectedExceptions = OAuthException.class)
+	public void getInstanceMissingTokenTest() throws Exception {
+		OAuthSigner.getInstance("user", "password", null, "secret");
+	}
+
+	@Test(expectedExceptions = OAuthException.class)
+	public void missingTokenTest() throws Exception {
+		new OAuthSigner("user", "password", null, "secret");
+	}
+
+}